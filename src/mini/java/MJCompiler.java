@@ -1,5 +1,13 @@
 package mini.java;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mini.java.fa.CompiledDFA;
+import mini.java.fa.DFASnapshot;
 import mini.java.lex.IMatcher;
 import mini.java.lex.RegexMatcher;
 import mini.java.lex.Tokenizer;
@@ -29,53 +37,76 @@ public class MJCompiler {
             EXPR = "Expr", PARAMS = "Params";
     
     
+    // token type -> regex, in the order of precedence
+    private final static String[][] TOKENS = {
+            {SEMICOLON, ";"},
+            {COMMA, ","},
+            {PLUS, "+"},
+            {MINUS, "-"},
+            {AND, "&&"},
+            {LESS_THAN, "<"},
+            {STAR, "[*]"},
+            {DOT, "[.]"},
+            {BANG, "!"},
+            {EQUAL, "="},
+            {TRUE, "true"},
+            {FALSE, "false"},
+            {NEW, "new"},
+            {THIS, "this"},
+            {EXTENDS, "extends"},
+            {RETURN, "return"},
+            {INT, "int"},
+            {BOOLEAN, "boolean"},
+            {IF, "if"},
+            {ELSE, "else"},
+            {WHILE, "while"},
+            {PRINT, "System\\.out\\.println"},
+            {CLASS, "class"},
+            {STATIC, "static"},
+            {PUBLIC, "public"},
+            {VOID, "void"},
+            {STRING, "String"},
+            {MAIN, "main"},
+            {LENGTH, "length"},
+            {LP, "[(]"},
+            {RP, "[)]"},
+            {LEFT_BRACKET, "\\["},
+            {RIGHT_BRACKET, "\\]"},
+            {LEFT_BRACE, "\\{"},
+            {RIGHT_BRACE, "\\}"},
+            {INTEGER, "-?[0-9][0-9]*"}, // 00?
+            {ID, "[A-Za-z_][0-9A-Za-z_]*"},
+            {WHITESPACE, "[ \t\n\r][ \t\n\r]*"},
+            {COMMENT, "//[^\n]*\n"},
+    };
+    
+    /**
+     * The system property naming the DFASnapshot to load the lexer from, as
+     * written by main(). The regexes are compiled if it's not set or cannot
+     * be read.
+     */
+    public final static String SNAPSHOT_PROPERTY = "mini.java.snapshot";
+    
     static {
         TOKENIZER = new Tokenizer();
-        IMatcher[] matchers = new RegexMatcher[] {
-                new RegexMatcher(SEMICOLON, ";"),
-                new RegexMatcher(COMMA, ","),
-                new RegexMatcher(PLUS, "+"),
-                new RegexMatcher(MINUS, "-"),
-                new RegexMatcher(AND, "&&"),
-                new RegexMatcher(LESS_THAN, "<"),
-                new RegexMatcher(STAR, "[*]"),
-                new RegexMatcher(DOT, "[.]"),
-                new RegexMatcher(BANG, "!"),
-                new RegexMatcher(EQUAL, "="),
-                new RegexMatcher(TRUE, "true"),
-                new RegexMatcher(FALSE, "false"),
-                new RegexMatcher(NEW, "new"),
-                new RegexMatcher(THIS, "this"),
-                new RegexMatcher(EXTENDS, "extends"),
-                new RegexMatcher(RETURN, "return"),
-                new RegexMatcher(INT, "int"),
-                new RegexMatcher(BOOLEAN, "boolean"),
-                new RegexMatcher(IF, "if"),
-                new RegexMatcher(ELSE, "else"),
-                new RegexMatcher(WHILE, "while"),                
-                new RegexMatcher(PRINT, "System\\.out\\.println"),
-                new RegexMatcher(CLASS, "class"),
-                new RegexMatcher(STATIC, "static"),
-                new RegexMatcher(PUBLIC, "public"),
-                new RegexMatcher(VOID, "void"),
-                new RegexMatcher(STRING, "String"),
-                new RegexMatcher(MAIN, "main"),
-                new RegexMatcher(LENGTH, "length"),
-                new RegexMatcher(LP, "[(]"),
-                new RegexMatcher(RP, "[)]"),
-                new RegexMatcher(LEFT_BRACKET, "\\["),
-                new RegexMatcher(RIGHT_BRACKET, "\\]"),
-                new RegexMatcher(LEFT_BRACE, "\\{"),
-                new RegexMatcher(RIGHT_BRACE, "\\}"),
-                
-                new RegexMatcher(INTEGER, "-?[0-9][0-9]*"), // 00?
-                new RegexMatcher(ID, "[A-Za-z_][0-9A-Za-z_]*"),
-                new RegexMatcher(WHITESPACE, "[ \t\n\r][ \t\n\r]*"),
-                new RegexMatcher(COMMENT, "//[^\n]*\n"),
-        };
-
-        for (IMatcher mat : matchers) {
-            TOKENIZER.addMatcher(mat);
+        Map<String, CompiledDFA> snapshot = loadSnapshot();
+        for (String[] token : TOKENS) {
+            CompiledDFA dfa = snapshot.get(token[1]);
+            TOKENIZER.addMatcher((dfa != null)
+                    ? new RegexMatcher(token[0], token[1], dfa)
+                    : new RegexMatcher(token[0], token[1]));
+        }
+        CompiledDFA combined = snapshot.get(getCombinedKey());
+        if (combined != null) {
+            try {
+                TOKENIZER.setCombined(combined);
+            } catch (IllegalArgumentException ex_) {
+                System.err.println("Ignoring the combined DFA of the snapshot: " + ex_.getMessage());
+                combined = null;
+            }
+        }
+        if (combined == null) {
+            TOKENIZER.setCombined(true); // one DFA for all the token types
         }
             
         
@@ -158,6 +189,57 @@ public class MJCompiler {
         RULE_SET.addRule(new Rule().left(PARAMS).right(PARAMS, EXPR));
         
         
-        PARSER = new Parser(RULE_SET);
+        // the tables generated by ParserGenerator, unless the rules changed
+        // since; regenerate with:
+        //   ParserGenerator mini.java.MJCompiler.RULE_SET mini.java.MJParserTables src
+        PARSER = new Parser(RULE_SET, MJParserTables.create(RULE_SET));
+    }
+    
+    /**
+     * Helper method used to load the snapshot named by SNAPSHOT_PROPERTY.
+     * Empty if there's none.
+     */
+    private static Map<String, CompiledDFA> loadSnapshot() {
+        String path = System.getProperty(SNAPSHOT_PROPERTY);
+        if (path != null) {
+            try {
+                return DFASnapshot.load(new File(path));
+            } catch (IOException ex_) {
+                // not fatal; we just compile the regexes
+                System.err.println("Ignoring the DFA snapshot " + path + ": " + ex_.getMessage());
+            }
+        }
+        return Collections.emptyMap();
+    }
+    
+    /**
+     * Helper method used to name the combined DFA in the snapshot. The name
+     * covers all the token types and regexes, so that a stale snapshot isn't
+     * used.
+     */
+    private static String getCombinedKey() {
+        StringBuilder sb = new StringBuilder("combined");
+        for (String[] token : TOKENS) {
+            sb.append('\n').append(token[0]).append('=').append(token[1]);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Writes the DFAs of the lexer into the DFASnapshot named by the first
+     * argument. Meant to be run as a build step; see SNAPSHOT_PROPERTY.
+     */
+    public static void main(String[] args_) throws IOException {
+        if (args_.length != 1) {
+            System.err.println("Usage: MJCompiler <snapshot file>");
+            System.exit(1);
+        }
+        
+        Map<String, CompiledDFA> snapshot = new LinkedHashMap<String, CompiledDFA>();
+        for (IMatcher matcher : TOKENIZER.getMatchers()) {
+            snapshot.put(((RegexMatcher)matcher).getRegex(), ((RegexMatcher)matcher).getDFA());
+        }
+        snapshot.put(getCombinedKey(), TOKENIZER.getCombinedDFA());
+        DFASnapshot.save(snapshot, new File(args_[0]));
     }
 }
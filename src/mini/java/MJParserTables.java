@@ -0,0 +1,48 @@
+// Generated by mini.java.syntax.ParserGenerator; do not edit.
+package mini.java;
+
+import mini.java.syntax.ParseTable;
+import mini.java.syntax.RuleSet;
+
+public final class MJParserTables {
+    /**
+     * The fingerprint of the rule set the tables were generated from.
+     */
+    public static final String FINGERPRINT = "d875ea1a43d8e914e6bf91e88655a3b78178c1dc305de040831db62389179757";
+
+    private static final int STATES = 140;
+
+    // [state * terminals + terminal] -> the action, as a short
+    private static final char[] ACTIONS = unpack(
+            "\000\000\000\000\002\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\005\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffff\000\000\000\006\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufffe\000\000\000\ufffe\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\010\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\011\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufffd\000\000\000\ufffd\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\012\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\013\000\000\000\000\000\014\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\015\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\016\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\017\000\000\000\000\000\000\020\000\021\000\000\000\000\000\000\000\000\000\000\000\022\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\027\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\030\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufffc\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufffb\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufffa\000\000\000\000\031\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\017\000\000\000\000\000\000\020\000\021\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\033\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\022\000\ufff9\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\035\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\017\000\000\000\000\000\000\020\000\021\000\000\000\000\000\000\000\000\000\000\000\022\000\ufff8\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000 \000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\017\000\000\000\000\000\000\020\000\021\000\000\000\000\000\000\000\000\000\000\000\022\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\"\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000#\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufff7\000\000\000\ufff7\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufff6\000\ufff6\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000$\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\022\000\ufff5\000\000\000\000\000\000\000\000\000\000\000\000\000\ufff4\000\000\000\000\000\000\ufff4\ufff4\ufff4\000\ufff4\000\000\000\000\000\000\000\000\ufff4\ufff4\000\ufff4\000\000\000\000\000\000\000\000\000\ufff4\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000%\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000&\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufff3\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000'\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufff2\000\000\000\000\000\000\ufff2\ufff2\ufff2\000\ufff2\000\000\000\000\000\000\000\000\ufff2\ufff2\000\ufff2\000\000\000\000\000\000\000\000\000\ufff2\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000(\000\000\000\000\ufff1\000\000\000\ufff1\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\017\000\000\000\000\000\000\020\000\021\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000)\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000,\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000-\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\ufff0\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000/\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\0000\000\000\000\000\000\000\000\000\000\000\000\000\017\000\000\000\000\000\00012\021\0003\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\000\000\000\000\000\000\000\000\000\000\000\000\000:\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffef\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000;\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000<\000\000\ufffb\000\000\000\000=\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000>\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000?2\000\0003\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000A\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000B\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000C\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffee\uffee\000\000\000\000\000\000\000\000\000\000\000\uffee\000\uffee\uffee\000\000\000\000\000\000\000\000\000\uffee\000\000\000\000\000\000\000\000\000\000?2\000\000\000\000\000\000\000\000\000\000\0004\000\uffed\000\000\000\000\000\000\000\000\000\0005\000\000\000\017\000\000\000\000\000\00012\021\0003\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\000\000\017\000\000\000\000\000\00012\021\0003\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000G\000\000\000\000\000\000\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\000<\000\000\000\000\000\000\000=\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000?2\000\000\000\000\000\000\000\000\000\000\0004\000\000S\000\000\000\000\000\000\000\000\0005\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\000\000\000\000\uffec\uffec\000\000\000\000\000\000\000\000\000\000\000\uffec\000\uffec\uffec\000\000\000\000\000\000\000\000\000\uffec\000\000\000\000\000\000\000\000\000\000?2\000\000\000\000\000\000\000\000\000\000\0004\000\uffeb\000\000\000\000\000\000\000\000\000\0005\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000W\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000X\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\uffea\uffea\000\000\uffea\000\000\000\uffea\uffea\000\000\uffea\000\uffea\000\uffea\uffea\000\uffea\uffea\uffea\000\000\000\000\uffea\uffea\uffea\uffea\000\000\uffea\uffea\000\000\000\uffe9\uffe9\000\000\uffe9\000\000\000\uffe9\uffe9\000\000\uffe9\000\uffe9\000\uffe9\uffe9\000\uffe9\uffe9\uffe9\000\000\000\000\uffe9\uffe9\uffe9\uffe9\000\000\uffe9\uffe9\000\000\000\uffe8\uffe8\000\000\uffe8\000\000\000\uffe8\uffe8\000\000\uffe8\000\uffe8\000\uffe8\uffe8\000\uffe8\uffe8\uffe8\000\000\000\000\uffe8\uffe8\uffe8\uffe8\000\000\uffe8\uffe8\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\000\000\000\000[\000\\\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffe7\uffe7\000\000\uffe7\000\000\000\uffe7\uffe7\000\000\uffe7\000\uffe7\000\uffe7\uffe7\000\uffe7\uffe7\uffe7\000\000\000\000\uffe7\uffe7\uffe7\uffe7\000\000\uffe7\uffe7\000\000\000\uffe6\uffe6\000\000\uffe6\000\000\000\uffe6\uffe6\000\000\uffe6\000\uffe6\000\uffe6\uffe6\000\uffe6\uffe6\uffe6\000\000\000\000\uffe6\uffe6\uffe6\uffe6\000\000\uffe6\uffe6\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000\000cd\000\000\000\000\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000e\000\000d\000\000\000\000\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000f\000d\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffe5\uffe5\000\000\000\000\000\000\000\000\000\000\000\uffe5\000\uffe5\uffe5\000\000\000\000\000\000\000\000\000\uffe5\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000g\000d\000\000\000\000\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000h\000d\000\000\000\000\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000\000id\000\000\000\000\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\000\000\000\000?2\000\000\000\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\uffe4\uffe4\000\000\uffe4\000\000\000\uffe4\uffe4\000\000\uffe4\000\uffe4\000\uffe4\uffe4\000\uffe4\uffe4\uffe4\000\000\000\000\uffe4\uffe4\uffe4\uffe4\000\000\uffe4\uffe4\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000l\000d\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000m\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000n\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\000\000\000\000p\000\000\000\000\000q\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\uffe3\000\000\000\uffe3\uffe3\000\000\000\000\000\000\000\000\000\000\000\uffe3\000\uffe3\uffe3\000\000\000\000\000\000\000\000\000\uffe3\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\000w\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000?2\000\000\000\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000y\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000?2\000\000\000\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000{\000\000\000\000\000\000\000\000\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000\000|d\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000}\000\000\000\000\000\000\000\000\000\000\000\uffe2\uffe2\000\000\uffe2\000\000\000\uffe2\uffe2\000\000\uffe2\000\uffe2\000\uffe2\uffe2\000\uffe2\uffe2\uffe2\000\000\000\000\uffe2\uffe2\uffe2\uffe2\000\000\uffe2\uffe2\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000~\000\000\000\000\000\000\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\uffe1\uffe1\000\000\uffe1\000\000\000\uffe1\uffe1\000\000\uffe1\000\uffe1\000\uffe1\uffe1\000\uffe1\uffe1\uffe1\000\000\000\000\uffe1\uffe1\uffe1\uffe1\000\000\uffe1\uffe1\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\200\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffe0\uffe0\000\000\uffe0\000\000\000\uffe0\uffe0\000\000\uffe0\000\uffe0\000\uffe0\uffe0\000\uffe0\uffe0\uffe0\000\000\000\000\uffe0\uffe0\uffe0\uffe0\000\000\uffe0\uffe0\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\201\000\000d\000\000\000\000\000\000\000\uffdf\uffdf\000\000\uffdf\000\000\000\uffdf\uffdf\000\000\uffdf\000\uffdf\000\uffdf\uffdf\000\uffdf\uffdf\uffdf\000\000\000\000\uffdf\uffdf\uffdf\uffdf\000\000\uffdf\uffdf\000\000\000\uffde\uffde\000\000\uffde\000\000\000\uffde\uffde\000\000\uffde\000\uffde\000\uffde\uffde\000\uffde\uffde\uffde\000\000\000\000\uffde\uffde\uffde\uffde\000\000\uffde\uffde\000\000\000\uffdd\uffdd\000\000\uffdd\000\000\000\uffdd\uffdd\000\000\uffdd\000\uffdd\000\uffdd\uffdd\000\uffdd\uffdd\uffdd\000\000\000\000\uffdd\uffdd\uffdd\uffdd\000\000\uffdd\uffdd\000\000\000\uffdc\uffdc\000\000\uffdc\000\000\000\uffdc\uffdc\000\000\uffdc\000\uffdc\000\uffdc\uffdc\000\uffdc\uffdc\uffdc\000\000\000\000\uffdc\uffdc\uffdc\uffdc\000\000\uffdc\uffdc\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\000\000\000\000\000\203\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffdb\000\000\000\uffdb\uffdb\000\000\000\000\000\000\000\000\000\000\000\uffdb\000\uffdb\uffdb\000\000\000\000\000\000\000\000\000\uffdb\000\000\000\000\000\000\uffda\000\000\000\uffda\uffda\000\000\000\000\000\000\000\000\000\000\000\uffda\000\uffda\uffda\000\000\000\000\000\000\000\000\000\uffda\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffd9\000\uffd9\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\204\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\205\000\000\000\000\000\000\000\000\000\000\000\uffd8\uffd8\000\000\uffd8\000\000\000\uffd8\uffd8\000\000\uffd8\000\uffd8\000\uffd8\uffd8\000\uffd8\uffd8\uffd8\000\000\000\000\uffd8\uffd8\uffd8\uffd8\000\000\uffd8\uffd8\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\206\000\000d\000\000\000\000\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\000\000\000\000\000NO\000\000\000\uffd7\uffd7\000\000\uffd7\000\000\000\uffd7\uffd7\000\000\uffd7\000\uffd7\000\uffd7\uffd7\000\uffd7\uffd7\uffd7\000\000\000\000\uffd7\uffd7\uffd7\uffd7\000\000\uffd7\uffd7\000\000\000]\000\000\000^\000\000\000\000\000\000\000\000\000_\000`\000\000a\000b\000\000\000\000\000\000\211d\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000?2\000\000\000\000\000\000\000\000\000\000\0004\000\000\000\000\000\000\000\000\000\000\000\0005\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffd6\000\uffd6\000\000\000\000\000\000\000\000\000\000\uffd5\000\000\000\uffd5\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\uffd4\uffd4\000\000\uffd4\000\000\000\uffd4\uffd4\000\000\uffd4\000\uffd4\000\uffd4\uffd4\000\uffd4\uffd4\uffd4\000\000\000\000\uffd4\uffd4\uffd4\uffd4\000\000\uffd4\uffd4\000\000\000]\uffd3\000\000^\000\000\000\uffd3\uffd3\000\000\uffd3\000_\000`\uffd3\000a\uffd3b\000\000\000\000\000\uffd3\000d\000\000\uffd3\uffd3\000\000\000\000H\000\000\000\000\000\000IJ\000\000K\000\000\000\000L\000\000M\000\000\000\000\000\000\213\000\000\000\000NO\000\000\000\000\000\000\000\000\uffd2\000\000\000\uffd2\uffd2\000\000\000\000\000\000\000\000\000\000\000\uffd2\000\uffd2\uffd2\000\000\000\000\000\000\000\000\000\uffd2\000\000\000\000\000\000\uffd1\000\000\000\uffd1\uffd1\000\000\000\000\000\000\000\000\000\000\000\uffd1\000\uffd1\uffd1\000\000\000\000\000\000\000\000\000\uffd1\000\uffd0\uffd0\000\000\uffd0\000\000\000\uffd0\uffd0\000\000\uffd0\000\uffd0\000\uffd0\uffd0\000\uffd0\uffd0\uffd0\000\000\000\000\uffd0\uffd0\uffd0\uffd0\000\000\uffd0\uffd0\000\000\000]\uffcf\000\000^\000\000\000\uffcf\uffcf\000\000\uffcf\000_\000`\uffcf\000a\uffcfb\000\000\000\000\000\uffcf\000d\000\000\uffcf\uffcf\000\000");
+
+    // [state * non-terminals + non-terminal] -> target state + 1; 0 if none
+    private static final char[] GOTOS = unpack(
+            "\000\000\000\000\003\004\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\007\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\023\000\000\000\000\024\000\000\000\000\000\025\026\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\032\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\034\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\036\000\000\000\000\000\025\037\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000!\000\000\000\000\024\000\000\000\000\000\025\026\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\034\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\034\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\025\037\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000*\000\000\000\000+\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\0006\000\000\000\000\000\000\000\000\00078\0259\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\0007@\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000D\000\000\000\000\000\000\000\000\000\000\000\000\0007E\025\037F\000\000\000\000\000\000\000\000\00078\0259\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000P\000\000\000\000\000\000\000\000\000\000\000\000\000Q\000\000\000\000\000\000\000\000\000\000\000\000\000R\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000D\000\000\000\000\000\000T\000\000\000\000\000\000\000\000\000\000\000\000\000U\000\000\000\000\000\000\000\000\000\000\000\000\000V\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000D\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000Y\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000Z\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000j\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000k\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000o\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000r\000\000\000\000\000\000\000\000\000\000\000\000\000s\000\000\000\000\000\000\000\000\000\000\000\000\000t\000\000\000\000\000\000\000\000\000\000\000\000\000u\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000v\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000x\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000z\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\177\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\202\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\207\000\000\000\000\210\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\212\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\214\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000");
+
+    // by rule: its index in RuleSet.getRules(), the id of its lhs and its length
+    private static final char[] RULES = unpack(
+            "\000.\001\001)\001\002)\002\0231\001\0251\001\0221\001\007&\001\006&\001\004'\005\015+\002\010&\002\0112\002\0241\003\0122\003\005'\007\021,\001\020,\002\0260\001\016%\001\0270\002\017%\002)(\001+(\001*(\001,(\001((\001\0300\003#(\002\034/\004$(\003\036(\003&(\003\037(\003!(\003 (\003\"(\003\033/\005\032/\005\013+\013.(\004%(\004\014+\014\003*\021-(\005/-\001\035/\007\031/\007'(\0060-\002");
+
+    private MJParserTables() {
+    }
+
+    /**
+     * Returns the tables of the given rule set; null if it's not the one
+     * they were generated from.
+     */
+    public static ParseTable create(RuleSet rules_) {
+        if (!FINGERPRINT.equals(rules_.getFingerprint())) {
+            return null;
+        }
+        return ParseTable.unpack(rules_, STATES, ACTIONS, GOTOS, RULES);
+    }
+
+    private static char[] unpack(String... chunks_) {
+        StringBuilder sb = new StringBuilder();
+        for (String chunk : chunks_) {
+            sb.append(chunk);
+        }
+        return sb.toString().toCharArray();
+    }
+}
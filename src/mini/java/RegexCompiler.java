@@ -1,6 +1,12 @@
 package mini.java;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
 import mini.java.fa.AcceptableNFAState;
+import mini.java.fa.CharSet;
 import mini.java.fa.NFAState;
 import mini.java.fa.helper.Helper;
 import mini.java.lex.CharLiteralMatcher;
@@ -17,7 +23,13 @@ import mini.java.syntax.Rule.IRuleHandler;
 
 public class RegexCompiler {
     
-    public static final char CH_MIN = 0, CH_MAX = 127;
+    // the whole UTF-16 range; supplementary chars are matched as surrogate pairs
+    public static final char CH_MIN = Character.MIN_VALUE, CH_MAX = Character.MAX_VALUE;
+    
+    private static final CharSet HIGH_SURROGATES = CharSet.range(
+            Character.MIN_HIGH_SURROGATE, Character.MAX_HIGH_SURROGATE);
+    private static final CharSet LOW_SURROGATES = CharSet.range(
+            Character.MIN_LOW_SURROGATE, Character.MAX_LOW_SURROGATE);
     
     // terminals
     public static final String  QM        = "qm"; // question marker
@@ -74,29 +86,19 @@ public class RegexCompiler {
             Symbol first = ((NonTerminal)sym_).first();
             NFAState[] st = (NFAState[])ctx_;
             
-            st[0].addTransition(st[1], ((Terminal)first).getData());
+            st[0].addTransition(st[1], new CharSet(((Terminal)first).getData().charAt(0)));
         }
         
     };
     
+    // the ranges of the classes add to a CodePoints rather than to states
     public static final IRuleHandler RANGE_HANDLER = new IRuleHandler() {
 
         @Override
         public void handle(Symbol sym_, Object ctx_) {
-            NFAState[] st = (NFAState[])ctx_;
             NonTerminal sym = (NonTerminal)sym_;
-            char from = ((String)((Terminal)sym.first()).getData()).charAt(0);
-            char to = ((String)((Terminal)sym.third()).getData()).charAt(0);
-            {
-                if (from > to) {
-                    char t = to; to = from; from = t;
-                }
-            }
-            // XXX - the characters we recognize
-            for (char c=from; c <= to; ++c) {
-                st[0].addTransition(st[1],
-                    new Character(c).toString()); // everything is a string
-            }
+            ((CodePoints)ctx_).add(toCodePoint((Terminal)sym.first()),
+                    toCodePoint((Terminal)sym.third()));
         }
         
     };
@@ -106,17 +108,121 @@ public class RegexCompiler {
         @Override
         public void handle(Symbol sym_, Object ctx_) {
             Symbol first = ((NonTerminal)sym_).first();
-            String data = ((Terminal)first).getData();
-            NFAState[] st = (NFAState[])ctx_;
-            
-            st[0].addTransition(st[1],
-                    (data.length() == 2 && data.charAt(0) == '\\')
-                        ? data.substring(1) : data);
-            
+            int ch = toCodePoint((Terminal)first);
+            CodePoints set = new CodePoints();
+            set.add(ch, ch);
+            set.addTransitions((NFAState[])ctx_);
         }
         
     };
     
+    // the single chars of the classes, escaped or not
+    public static final IRuleHandler CLASS_CH_HANDLER = new IRuleHandler() {
+
+        @Override
+        public void handle(Symbol sym_, Object ctx_) {
+            int ch = toCodePoint((Terminal)((NonTerminal)sym_).first());
+            ((CodePoints)ctx_).add(ch, ch);
+        }
+        
+    };
+    
+    /**
+     * Returns the code point the given terminal stands for, i.e. the escaped
+     * one for the escape sequences.
+     */
+    private static int toCodePoint(Terminal terminal_) {
+        String data = terminal_.getData();
+        return (data.length() > 1 && data.charAt(0) == '\\')
+            ? data.codePointAt(1) : data.codePointAt(0);
+    }
+    
+    /**
+     * A set of code points, as of a class: the BMP chars as a CharSet, the
+     * supplementary ones as the low surrogates by high surrogate. They're
+     * matched as surrogate pairs, through a state of their own for every
+     * run of high surrogates sharing the same lows.
+     */
+    private static final class CodePoints {
+        private CharSet                           _chars = CharSet.EMPTY;
+        private final TreeMap<Character, CharSet> _pairs = new TreeMap<Character, CharSet>();
+        
+        /**
+         * Adds the given (inclusive) range; the bounds are swapped if
+         * necessary.
+         */
+        void add(int from_, int to_) {
+            int from = Math.min(from_, to_), to = Math.max(from_, to_);
+            if (from <= CH_MAX) {
+                _chars = _chars.union(CharSet.range((char)from, (char)Math.min(to, CH_MAX)));
+                from = CH_MAX + 1;
+            }
+            while (from <= to) {
+                char high = Character.highSurrogate(from);
+                // the rest of the lows of this high, up to the range's end
+                int last = Math.min(to, Character.toCodePoint(high, Character.MAX_LOW_SURROGATE));
+                CharSet lows = CharSet.range(Character.lowSurrogate(from), Character.lowSurrogate(last));
+                CharSet old = _pairs.get(high);
+                _pairs.put(high, (old != null) ? old.union(lows) : lows);
+                from = last + 1;
+            }
+        }
+        
+        /**
+         * Returns the code points not in this set. Unpaired low surrogates
+         * are in it, but not the high ones: those only start a pair, so
+         * that no pair is ever matched by halves.
+         */
+        CodePoints complement() {
+            CodePoints ret = new CodePoints();
+            ret._chars = _chars.complement().minus(HIGH_SURROGATES);
+            for (char high = Character.MIN_HIGH_SURROGATE; ; ++high) {
+                CharSet old = _pairs.get(high);
+                CharSet lows = (old != null) ? LOW_SURROGATES.minus(old) : LOW_SURROGATES;
+                if (!lows.isEmpty()) {
+                    ret._pairs.put(high, lows);
+                }
+                if (high == Character.MAX_HIGH_SURROGATE) {
+                    break;
+                }
+            }
+            return ret;
+        }
+        
+        /**
+         * Adds the transitions matching the set from st_[0] to st_[1].
+         */
+        void addTransitions(NFAState[] st_) {
+            if (!_chars.isEmpty()) {
+                st_[0].addTransition(st_[1], _chars); // one transition for all
+            }
+            Map.Entry<Character, CharSet> run = null;
+            char end = 0;
+            for (Map.Entry<Character, CharSet> entry : _pairs.entrySet()) {
+                if (run != null && entry.getKey() == end + 1 && entry.getValue().equals(run.getValue())) {
+                    end = entry.getKey();
+                    continue;
+                }
+                addPairs(st_, run, end);
+                run = entry;
+                end = entry.getKey();
+            }
+            addPairs(st_, run, end);
+        }
+        
+        /**
+         * Helper method used to add the pairs of the run of high surrogates
+         * from the one of the given entry up to end_.
+         */
+        private static void addPairs(NFAState[] st_, Map.Entry<Character, CharSet> run_, char end_) {
+            if (run_ != null) {
+                NFAState middle = new NFAState();
+                st_[0].addTransition(middle, CharSet.range(run_.getKey(), end_));
+                middle.addTransition(st_[1], run_.getValue());
+            }
+        }
+    }
+    
     
     
     
@@ -161,7 +267,9 @@ public class RegexCompiler {
             @Override
             public void handle(Symbol sym_, Object ctx_) {
                 Symbol second = ((NonTerminal)sym_).second();
-                ((NonTerminal) second).execute(ctx_);
+                CodePoints set = new CodePoints();
+                ((NonTerminal) second).execute(set);
+                set.addTransitions((NFAState[])ctx_);
             }
             
         }));
@@ -170,19 +278,9 @@ public class RegexCompiler {
             @Override
             public void handle(Symbol sym_, Object ctx_) {
                 Symbol third = ((NonTerminal)sym_).third();
-                NFAState head = new NFAState(),
-                    tail = new AcceptableNFAState();
-                ((NonTerminal) third).execute(new NFAState[] {head, tail});
-                
-                NFAState[] ctx = (NFAState[]) ctx_;
-                // XXX - HACK!
-                for (char c = CH_MIN; c <= CH_MAX; ++c) {
-                    if (head.getState("" + c) == tail) {
-                        // skipped
-                    } else {
-                        ctx[0].addTransition(ctx[1], "" + c);
-                    }
-                }
+                CodePoints excluded = new CodePoints();
+                ((NonTerminal) third).execute(excluded);
+                excluded.complement().addTransitions((NFAState[])ctx_);
             }
             
         }));
@@ -202,13 +300,8 @@ public class RegexCompiler {
 
             @Override
             public void handle(Symbol sym_, Object ctx_) {
-                NFAState[] st = (NFAState[])ctx_;
-                
-                // XXX - the characters we recognize
-                for (char c=CH_MIN; c<=CH_MAX; ++c) {
-                    st[0].addTransition(st[1],
-                        new Character(c).toString()); // everything is a string
-                }
+                // any code point, as the complement of none
+                new CodePoints().complement().addTransitions((NFAState[])ctx_);
             }
             
         }));
@@ -253,34 +346,25 @@ public class RegexCompiler {
 
             @Override
             public void handle(Symbol sym_, Object ctx_) {
-                NFAState[] st = (NFAState[])ctx_;
                 NonTerminal sym = (NonTerminal)sym_;
                 int from = Integer.parseInt((String)((Terminal)sym.first()).getData());
                 int to = Integer.parseInt((String)((Terminal)sym.third()).getData());
-                {
-                    if (from > to) {
-                        int t = to; to = from; from = t;
-                    }
-                }
-                // XXX - the characters we recognize
-                for (int i=from; i <= to; ++i) {
-                    char c = Character.forDigit(i, 10);
-                    st[0].addTransition(st[1],
-                        new Character(c).toString()); // everything is a string
-                }
+                // digits are contiguous; CodePoints swaps the bounds if needed
+                ((CodePoints)ctx_).add(Character.forDigit(from, 10), Character.forDigit(to, 10));
             }
 
         }));
         RULE_SET.addRule(new Rule().left(RANGE).right(LOWER, HYPHEN, LOWER).addHandler(RANGE_HANDLER));
         RULE_SET.addRule(new Rule().left(RANGE).right(UPPER, HYPHEN, UPPER).addHandler(RANGE_HANDLER));
+        RULE_SET.addRule(new Rule().left(RANGE).right(CH, HYPHEN, CH).addHandler(RANGE_HANDLER)); // e.g. [#-&]
         
         RULE_SET.addRule(new Rule().left(CLASS_EXPR).right(RANGE).addHandler(DUMMY_HANDLER));
         
         // XXX - to avoid ambiguity, we prohibit HYPHEN alone in the class expr
         for (String s : new String[] {LOWER, UPPER, NUM, STAR, QM, BAR, LP, RP, DOT}) {
-            RULE_SET.addRule(new Rule().left(CLASS_EXPR).right(s).addHandler(LITERAL_HANDLER));
+            RULE_SET.addRule(new Rule().left(CLASS_EXPR).right(s).addHandler(CLASS_CH_HANDLER));
         }
-        RULE_SET.addRule(new Rule().left(CLASS_EXPR).right(CH).addHandler(CH_HANDLER));
+        RULE_SET.addRule(new Rule().left(CLASS_EXPR).right(CH).addHandler(CLASS_CH_HANDLER));
         
         
         RULE_SET.addRule(new Rule().left(CLASS_EXPR).right(CLASS_EXPR, CLASS_EXPR).addHandler(new IRuleHandler() {
@@ -299,6 +383,23 @@ public class RegexCompiler {
     
     
     
+    // the engine only depends on the rule set; its tables are generated by
+    // ParserGenerator, unless the rules changed since; regenerate with:
+    //   ParserGenerator mini.java.RegexCompiler.RULE_SET mini.java.RegexParserTables src
+    private static final Parser PARSER = new Parser(RULE_SET, RegexParserTables.create(RULE_SET));
+    
+    // regex -> compiled DFA; bounded, the least recently used ones go first
+    private static final int CACHE_SIZE = 256;
+    private static final Map<String, NFAState> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, NFAState>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, NFAState> eldest_) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+    
     // singleton
     public static final Tokenizer TOKENIZER;
     
@@ -329,15 +430,23 @@ public class RegexCompiler {
                     return null;
                 }
                             
-                if (input_.length() > 1
-                        && input_.charAt(0) == '\\')
-                {
-                    return input_.substring(0, 2);
+                return input_.substring(0, match(input_, 0));
+            }
+            public int match(CharSequence input_, int offset_) {
+                if (offset_ >= input_.length()) {
+                    return -1;
                 }
-                else
-                {
-                    return "" + input_.charAt(0);
+                
+                int ret = (offset_ + 1 < input_.length()
+                        && input_.charAt(offset_) == '\\')
+                    ? 2 : 1;
+                // a surrogate pair is one char
+                int last = offset_ + ret - 1;
+                if (last + 1 < input_.length() && Character.isHighSurrogate(input_.charAt(last))
+                        && Character.isLowSurrogate(input_.charAt(last + 1))) {
+                    ++ret;
                 }
+                return ret;
             }
             public String getType() {
                 return CH;
@@ -346,17 +455,35 @@ public class RegexCompiler {
     }
     
     
+    /**
+     * Compiles the given regex into a minimal DFA. The results are cached,
+     * so the returned automaton is shared and must not be modified.
+     */
     public static NFAState compile(String regex_) {
+        NFAState ret = CACHE.get(regex_);
+        if (ret == null) {
+            // compiled outside of the lock; a race only costs a duplicate
+            ret = Helper.minimize(Helper.collapse(compileNFA(regex_)));
+            CACHE.put(regex_, ret);
+        }
+        return ret;
+    }
+    
+    /**
+     * Compiles the given regex into an NFA with epsilons, without building
+     * the DFA; e.g. for LazyDFA.
+     */
+    public static NFAState compileNFA(String regex_) {
         NFAState ret = null;
         
         try {
-            Symbol root = new Parser(RULE_SET).parse(
-                    TOKENIZER.tokenize(regex_));
+            Symbol root = PARSER.parse(
+                    TOKENIZER.tokenizeToBuffer(regex_, RULE_SET));
             NFAState head = new NFAState(),
                 tail = new AcceptableNFAState();
             ((NonTerminal)root).execute(new NFAState[] {head, tail});
             
-            ret = Helper.collapse(head);
+            ret = head;
             
             
         } catch (RuntimeException ex_) {
@@ -365,4 +492,4 @@ public class RegexCompiler {
         
         return ret;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+// Generated by mini.java.syntax.ParserGenerator; do not edit.
+package mini.java;
+
+import mini.java.syntax.ParseTable;
+import mini.java.syntax.RuleSet;
+
+public final class RegexParserTables {
+    /**
+     * The fingerprint of the rule set the tables were generated from.
+     */
+    public static final String FINGERPRINT = "a2163995b60275fa97d6d014c059c4d27cfdb992679636c34ee2371f30600653";
+
+    private static final int STATES = 47;
+
+    // [state * terminals + terminal] -> the action, as a short
+    private static final char[] ACTIONS = unpack(
+            "\000\000\002\003\004\005\006\007\010\011\000\000\000\000\012\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\uffff\000\uffff\uffff\uffff\ufffe\ufffe\ufffe\ufffe\ufffe\ufffe\ufffe\ufffe\ufffe\ufffe\ufffe\000\ufffe\ufffe\ufffe\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\ufffd\000\ufffd\ufffd\ufffd\ufffc\ufffc\ufffc\ufffc\ufffc\ufffc\ufffc\ufffc\ufffc\ufffc\ufffc\000\ufffc\ufffc\ufffc\000\020\021\022\023\000\000\024\025\026\027\000\030\031\032\ufffb\ufffb\ufffb\ufffb\ufffb\ufffb\ufffb\ufffb\ufffb\ufffb\ufffb\000\ufffb\ufffb\ufffb\000\000\002\003\004\005\006\007\010\011\000\000\000\000\012\ufffa\ufffa\ufffa\ufffa\ufffa\ufffa\ufffa\ufffa\ufffa\ufffa\ufffa\000\ufffa\ufffa\ufffa\ufff9\ufff9\ufff9\ufff9\ufff9\ufff9\ufff9\ufff9\ufff9\ufff9\ufff9\000\ufff9\ufff9\ufff9\ufff8\ufff8\ufff8\ufff8\ufff8\ufff8\ufff8\ufff8\ufff8\ufff8\036\000\ufff8\037\ufff8\ufff7 \000\000\000\000\000\000\000\000\000\000\000\000\000\ufff6\ufff6\ufff6\ufff6\ufff6\ufff6\ufff6\ufff6\ufff6\ufff6\000\000\ufff6\000\ufff6\ufff5\ufff5\002\003\004\005\006\007\010\011\000\000\ufff5\000\012\ufff4\ufff4\ufff4\ufff4\ufff4\ufff4\ufff4\ufff4\ufff4\ufff4\000\000\ufff4\000\ufff4\000\ufff3\000\ufff3\ufff3\000\000\ufff3\ufff3\ufff3\ufff3\ufff3\ufff3\ufff3\ufff3\000\020\000\022\023\000\000\024\025\026\027\000\030\031\032\000\ufff2\000\ufff2\ufff2#\000\ufff2\ufff2\ufff2\ufff2\ufff2\ufff2\ufff2\ufff2\000\ufff1\000\ufff1\ufff1\000\000\ufff1\ufff1\ufff1\ufff1\ufff1\ufff1\ufff1\ufff1\000\ufff0\000\ufff0\ufff0$\000\ufff0\ufff0\ufff0\ufff0\ufff0\ufff0\ufff0\ufff0\000\uffef\000\uffef\uffef\000\000\uffef\uffef\uffef\uffef\uffef\uffef\uffef\uffef\000\uffee\000\uffee\uffee%\000\uffee\uffee\uffee\uffee\uffee\uffee\uffee\uffee\000\uffed\000\uffed\uffed\000\000\uffed\uffed\uffed\uffed\uffed\uffed\uffed\uffed\000\uffec\000\uffec\uffec\000\000\uffec\uffec\uffec\uffec\uffec\uffec\uffec\uffec\000\uffeb\000\uffeb\uffeb\000\000\uffeb\uffeb\uffeb\uffeb\uffeb\uffeb\uffeb\uffeb\000\uffea\000\uffea\uffea&\000\uffea\uffea\uffea\uffea\uffea\uffea\uffea\uffea\000\020\000\022\023\000\000\024\025\026\027'\030\031\032\000\uffe9\000\uffe9\uffe9\000\000\uffe9\uffe9\uffe9\uffe9\uffe9\uffe9\uffe9\uffe9\000 \000\000\000\000\000\000\000\000\000\000)\000\000\uffe8\uffe8\uffe8\uffe8\uffe8\uffe8\uffe8\uffe8\uffe8\uffe8\000\000\uffe8\000\uffe8\uffe7\uffe7\uffe7\uffe7\uffe7\uffe7\uffe7\uffe7\uffe7\uffe7\000\000\uffe7\000\uffe7\000\000\002\003\004\005\006\007\010\011\000\000\000\000\012\uffe6\uffe6\uffe6\uffe6\uffe6\uffe6\uffe6\uffe6\uffe6\uffe6\000\000\uffe6\000\uffe6\000\020\000\022\023\000\000\024\025\026\027+\030\031\032\000\000\000,\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000-\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000.\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000/\uffe5\uffe5\uffe5\uffe5\uffe5\uffe5\uffe5\uffe5\uffe5\uffe5\uffe5\000\uffe5\uffe5\uffe5\000\uffe4\000\uffe4\uffe4\000\000\uffe4\uffe4\uffe4\uffe4\uffe4\uffe4\uffe4\uffe4\uffe3\uffe3\uffe3\uffe3\uffe3\uffe3\uffe3\uffe3\uffe3\uffe3\uffe3\000\uffe3\uffe3\uffe3\uffe2\uffe2\000\000\000\000\000\000\000\000\000\000\uffe2\000\000\uffe1\uffe1\uffe1\uffe1\uffe1\uffe1\uffe1\uffe1\uffe1\uffe1\uffe1\000\uffe1\uffe1\uffe1\000\uffe0\000\uffe0\uffe0\000\000\uffe0\uffe0\uffe0\uffe0\uffe0\uffe0\uffe0\uffe0\000\uffdf\000\uffdf\uffdf\000\000\uffdf\uffdf\uffdf\uffdf\uffdf\uffdf\uffdf\uffdf\000\uffde\000\uffde\uffde\000\000\uffde\uffde\uffde\uffde\uffde\uffde\uffde\uffde\000\uffdd\000\uffdd\uffdd\000\000\uffdd\uffdd\uffdd\uffdd\uffdd\uffdd\uffdd\uffdd");
+
+    // [state * non-terminals + non-terminal] -> target state + 1; 0 if none
+    private static final char[] GOTOS = unpack(
+            "\013\014\000\015\000\000\016\017\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\033\000\034\000\000\000\000\000\000\000\000\000\000\000\013\035\000\015\000\000\016\017\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\013\000\000\015\000\000!\017\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\"\000\034\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000(\000\034\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\013*\000\015\000\000\016\017\013\000\000\015\000\000!\017\000\000(\000\034\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000(\000\034\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000");
+
+    // by rule: its index in RuleSet.getRules(), the id of its lhs and its length
+    private static final char[] RULES = unpack(
+            "\015\017\001\013\017\001\007\017\001\014\017\001\010\017\001\012\017\001\011\017\001\020\025\001\000\024\001\017\025\001\002\020\001\016\025\001\035\021\001!\021\001 \021\001\030\021\001\036\021\001\032\021\001\034\021\001\037\021\001\033\021\001\031\021\001\027\021\001\022\022\002\021\026\002\003\025\002\004\017\003\"\021\002\006\017\003\001\020\003\005\017\004\026\023\003\024\023\003\023\023\003\025\023\003");
+
+    private RegexParserTables() {
+    }
+
+    /**
+     * Returns the tables of the given rule set; null if it's not the one
+     * they were generated from.
+     */
+    public static ParseTable create(RuleSet rules_) {
+        if (!FINGERPRINT.equals(rules_.getFingerprint())) {
+            return null;
+        }
+        return ParseTable.unpack(rules_, STATES, ACTIONS, GOTOS, RULES);
+    }
+
+    private static char[] unpack(String... chunks_) {
+        StringBuilder sb = new StringBuilder();
+        for (String chunk : chunks_) {
+            sb.append(chunk);
+        }
+        return sb.toString().toCharArray();
+    }
+}
@@ -0,0 +1,176 @@
+package mini.java.fa;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maps chars to the equivalence classes of an automaton. Class 0 is the one
+ * for the chars without any transitions. Chars below ASCII are mapped
+ * through a plain table; the others by the sorted range starts, so the map
+ * stays as small as the number of distinct ranges whatever the alphabet is.
+ */
+final class CharClassMap {
+    // chars below this are mapped through the table
+    static final int ASCII = 128;
+
+    private final short[] _ascii;
+    private final char[]  _starts;       // _starts[0] is always ASCII
+    private final short[] _startClasses;
+
+    /**
+     * Constructor. The atoms are single, sorted and disjoint ranges, e.g. the
+     * output of CharSet.partition(); classes_[k] is the class of atoms_[k].
+     */
+    CharClassMap(List<CharSet> atoms_, int[] classes_) {
+        _ascii = new short[ASCII];
+        List<Character> starts = new ArrayList<Character>();
+        List<Short> startClasses = new ArrayList<Short>();
+        starts.add((char)ASCII);
+        startClasses.add((short)0);
+
+        for (int k = 0; k < atoms_.size(); ++k) {
+            CharSet atom = atoms_.get(k);
+            int from = atom.getFrom(0), to = atom.getTo(0);
+            for (int c = from; c <= to && c < ASCII; ++c) {
+                _ascii[c] = (short)classes_[k];
+            }
+            if (to >= ASCII) {
+                // [from, to] gets the class, and whatever follows is dead
+                // until the next range says otherwise
+                addStart(starts, startClasses, (char)Math.max(from, ASCII), (short)classes_[k]);
+                if (to < Character.MAX_VALUE) {
+                    addStart(starts, startClasses, (char)(to + 1), (short)0);
+                }
+            }
+        }
+
+        _starts = new char[starts.size()];
+        _startClasses = new short[starts.size()];
+        for (int i = 0; i < _starts.length; ++i) {
+            _starts[i] = starts.get(i);
+            _startClasses[i] = startClasses.get(i);
+        }
+    }
+
+    private CharClassMap(short[] ascii_, char[] starts_, short[] startClasses_) {
+        _ascii = ascii_;
+        _starts = starts_;
+        _startClasses = startClasses_;
+    }
+
+    /**
+     * Helper method used to append a range start. Starts come in increasing
+     * order; one at the same position overrides the previous one, and one
+     * that doesn't change the class is dropped.
+     */
+    private static void addStart(List<Character> starts_, List<Short> classes_,
+            char start_, short class_)
+    {
+        int last = starts_.size() - 1;
+        if (starts_.get(last) == start_) {
+            starts_.remove(last);
+            classes_.remove(last--);
+        }
+        if (last < 0 || classes_.get(last) != class_) {
+            starts_.add(start_);
+            classes_.add(class_);
+        }
+    }
+
+    /**
+     * Returns the equivalence class of the given char.
+     */
+    int get(char ch_) {
+        if (ch_ < ASCII) {
+            return _ascii[ch_];
+        }
+        // binary search for the last start at or before ch_
+        int lo = 0, hi = _starts.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (_starts[mid] <= ch_) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return _startClasses[lo];
+    }
+
+    /**
+     * Returns the chars of each of the classes; the dead class included.
+     */
+    CharSet[] getCharSets(int classCount_) {
+        CharSet[] ret = new CharSet[classCount_];
+        Arrays.fill(ret, CharSet.EMPTY);
+        for (int c = 0; c < ASCII; ) {
+            int from = c;
+            while (c < ASCII && _ascii[c] == _ascii[from]) {
+                ++c;
+            }
+            ret[_ascii[from]] = ret[_ascii[from]].union(
+                    CharSet.range((char)from, (char)(c - 1)));
+        }
+        for (int i = 0; i < _starts.length; ++i) {
+            char to = (i + 1 < _starts.length)
+                ? (char)(_starts[i + 1] - 1) : Character.MAX_VALUE;
+            ret[_startClasses[i]] = ret[_startClasses[i]].union(
+                    CharSet.range(_starts[i], to));
+        }
+        return ret;
+    }
+
+    void write(DataOutput out_) throws IOException {
+        for (short cls : _ascii) {
+            out_.writeShort(cls);
+        }
+        out_.writeInt(_starts.length);
+        for (int i = 0; i < _starts.length; ++i) {
+            out_.writeChar(_starts[i]);
+            out_.writeShort(_startClasses[i]);
+        }
+    }
+
+    /**
+     * Reads a map written by write() for the given number of classes. An
+     * IllegalArgumentException is thrown if the values are invalid, and a
+     * BufferUnderflowException if it's cut short.
+     */
+    static CharClassMap read(ByteBuffer in_, int classCount_) {
+        short[] ascii = new short[ASCII];
+        in_.asShortBuffer().get(ascii);
+        in_.position(in_.position() + 2 * ASCII);
+        for (short cls : ascii) {
+            checkClass(cls, classCount_);
+        }
+
+        int count = in_.getInt();
+        if (count <= 0 || count > in_.remaining() / 4) {
+            throw new IllegalArgumentException("Invalid range count: " + count);
+        }
+        char[] starts = new char[count];
+        short[] startClasses = new short[count];
+        for (int i = 0; i < count; ++i) {
+            starts[i] = in_.getChar();
+            startClasses[i] = in_.getShort();
+            if ((i == 0) ? starts[i] != ASCII : starts[i] <= starts[i - 1]) {
+                throw new IllegalArgumentException("Invalid range start: " + (int)starts[i]);
+            }
+            checkClass(startClasses[i], classCount_);
+        }
+        return new CharClassMap(ascii, starts, startClasses);
+    }
+
+    /**
+     * Helper method used to check a class read back.
+     */
+    private static void checkClass(short class_, int classCount_) {
+        if (class_ < 0 || class_ >= classCount_) {
+            throw new IllegalArgumentException("Invalid class: " + class_);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package mini.java.fa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable set of chars, stored as sorted and disjoint ranges. Used as the
+ * input object of char transitions, so that a class like [a-z] costs one
+ * transition instead of one per char.
+ */
+public final class CharSet {
+
+    public static final CharSet EMPTY = new CharSet(new char[0]);
+
+    // [from0, to0, from1, to1, ...]; sorted, disjoint and not adjacent
+    private final char[] _ranges;
+
+    public CharSet(char ch_) {
+        this(new char[] {ch_, ch_});
+    }
+
+    private CharSet(char[] ranges_) {
+        _ranges = ranges_;
+    }
+
+    /**
+     * Creates the set for the given (inclusive) range. The bounds are
+     * swapped if necessary.
+     */
+    public static CharSet range(char from_, char to_) {
+        return (from_ <= to_)
+            ? new CharSet(new char[] {from_, to_})
+            : new CharSet(new char[] {to_, from_});
+    }
+
+    public boolean isEmpty() {
+        return _ranges.length == 0;
+    }
+
+    public boolean contains(char ch_) {
+        // binary search for the last range starting at or before ch_
+        int lo = 0, hi = getRangeCount() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (_ranges[2 * mid] <= ch_) {
+                if (ch_ <= _ranges[2 * mid + 1]) {
+                    return true;
+                }
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return false;
+    }
+
+    public boolean intersects(CharSet other_) {
+        int i = 0, j = 0;
+        while (i < _ranges.length && j < other_._ranges.length) {
+            if (_ranges[i + 1] < other_._ranges[j]) {
+                i += 2;
+            } else if (other_._ranges[j + 1] < _ranges[i]) {
+                j += 2;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public CharSet union(CharSet other_) {
+        char[] all = Arrays.copyOf(_ranges, _ranges.length + other_._ranges.length);
+        System.arraycopy(other_._ranges, 0, all, _ranges.length, other_._ranges.length);
+        return normalize(all);
+    }
+
+    public CharSet intersect(CharSet other_) {
+        return complement().union(other_.complement()).complement();
+    }
+
+    public CharSet minus(CharSet other_) {
+        return intersect(other_.complement());
+    }
+
+    /**
+     * Returns the complement of this set within the whole char range.
+     */
+    public CharSet complement() {
+        List<Character> ret = new ArrayList<Character>();
+        int next = Character.MIN_VALUE;
+        for (int i = 0; i < _ranges.length; i += 2) {
+            if (_ranges[i] > next) {
+                ret.add((char)next);
+                ret.add((char)(_ranges[i] - 1));
+            }
+            next = _ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            ret.add((char)next);
+            ret.add(Character.MAX_VALUE);
+        }
+        char[] ranges = new char[ret.size()];
+        for (int i = 0; i < ranges.length; ++i) {
+            ranges[i] = ret.get(i);
+        }
+        return new CharSet(ranges);
+    }
+
+    public int getRangeCount() {
+        return _ranges.length / 2;
+    }
+
+    public char getFrom(int index_) {
+        return _ranges[2 * index_];
+    }
+
+    public char getTo(int index_) {
+        return _ranges[2 * index_ + 1];
+    }
+
+    /**
+     * Splits the given sets into disjoint ranges, each of which is either
+     * contained in or disjoint from each of the given sets. Chars not in any
+     * of the sets are left out.
+     */
+    public static List<CharSet> partition(Collection<CharSet> sets_) {
+        // the boundaries where the membership may change
+        TreeSet<Integer> bounds = new TreeSet<Integer>();
+        for (CharSet set : sets_) {
+            for (int i = 0; i < set._ranges.length; i += 2) {
+                bounds.add((int)set._ranges[i]);
+                bounds.add(set._ranges[i + 1] + 1);
+            }
+        }
+
+        List<CharSet> ret = new ArrayList<CharSet>();
+        Integer from = null;
+        for (Integer to : bounds) {
+            if (from != null) {
+                for (CharSet set : sets_) {
+                    if (set.contains((char)(int)from)) {
+                        ret.add(range((char)(int)from, (char)(to - 1)));
+                        break;
+                    }
+                }
+            }
+            from = to;
+        }
+        return ret;
+    }
+
+    /**
+     * Helper method used to sort and merge the given ranges.
+     */
+    private static CharSet normalize(char[] ranges_) {
+        int count = ranges_.length / 2;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            order[i] = i;
+        }
+        final char[] ranges = ranges_;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a_, Integer b_) {
+                return ranges[2 * a_] - ranges[2 * b_];
+            }
+        });
+
+        char[] ret = new char[ranges_.length];
+        int size = 0;
+        for (int i : order) {
+            char from = ranges_[2 * i], to = ranges_[2 * i + 1];
+            if (size > 0 && from <= ret[size - 1] + 1) {
+                ret[size - 1] = (char)Math.max(ret[size - 1], to); // merge
+            } else {
+                ret[size++] = from;
+                ret[size++] = to;
+            }
+        }
+        return new CharSet(Arrays.copyOf(ret, size));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(_ranges);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        return Arrays.equals(_ranges, ((CharSet) obj)._ranges);
+    }
+
+    /**
+     * Single chars are represented by themselves, so that dumps of the
+     * simple automata stay readable. Otherwise a regex-like class is used.
+     */
+    @Override
+    public String toString() {
+        if (_ranges.length == 2 && _ranges[0] == _ranges[1]) {
+            return String.valueOf(_ranges[0]);
+        }
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < _ranges.length; i += 2) {
+            append(sb, _ranges[i]);
+            if (_ranges[i] != _ranges[i + 1]) {
+                sb.append('-');
+                append(sb, _ranges[i + 1]);
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    private static void append(StringBuilder sb_, char ch_) {
+        if ("\\[]-^".indexOf(ch_) >= 0) {
+            sb_.append('\\');
+        }
+        sb_.append(ch_);
+    }
+}
@@ -0,0 +1,321 @@
+package mini.java.fa;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mini.java.fa.helper.Helper;
+import mini.java.fa.helper.IFinderCallback;
+import mini.java.fa.helper.NFAStateFinder;
+
+/**
+ * Frozen, table-driven form of a DFA. States are dense ints (the initial
+ * state is always 0) and transitions are looked up in a flat table indexed
+ * by the equivalence class of the input char, so running the DFA doesn't
+ * allocate anything.
+ */
+public final class CompiledDFA {
+    /**
+     * The "no such state" state.
+     */
+    public static final int DEAD = -1;
+
+    // the tag written for the non-acceptable states
+    private static final int NOT_ACCEPTABLE = -2;
+
+    private final CharClassMap _classes;    // class 0 has no transitions
+    private final int          _classCount;
+    private final int[]        _table;      // [state * _classCount + class] -> state
+    private final BitSet       _acceptable;
+    private final int[]        _tags;       // -1 for the untagged states
+
+    private CompiledDFA(CharClassMap classes_, int classCount_, int[] table_,
+            BitSet acceptable_, int[] tags_)
+    {
+        _classes = classes_;
+        _classCount = classCount_;
+        _table = table_;
+        _acceptable = acceptable_;
+        _tags = tags_;
+    }
+
+    /**
+     * Freezes the DFA starting from the given state, e.g. the output of
+     * Helper.collapse(). Only CharSet and single-char String inputs are taken
+     * into account; epsilons and other inputs can never be matched by chars.
+     */
+    public static CompiledDFA freeze(NFAState dfa_) {
+        // number the states in the traversal order; the initial state is 0
+        final Map<NFAState, Integer> ids = new HashMap<NFAState, Integer>();
+        final List<NFAState> states = new ArrayList<NFAState>();
+        ids.put(dfa_, 0);
+        states.add(dfa_);
+
+        Helper.visit(dfa_, new NFAStateFinder(
+                new IFinderCallback<NFAState>() {
+                    public boolean onNext(NFAState src_, NFAState dest_, Object input_) {
+                        if (!isChar(input_)) {
+                            return false;
+                        }
+                        if (!ids.containsKey(dest_)) {
+                            ids.put(dest_, states.size());
+                            states.add(dest_);
+                        }
+                        return true;
+                    }
+                }));
+
+        // the chars are only distinguished by the ranges used in the labels,
+        // so the columns of the table are built per range instead of per char
+        int stateCount = states.size();
+        List<CharSet> labels = new ArrayList<CharSet>();
+        for (NFAState state : states) {
+            for (Object input : state.getInputs()) {
+                if (isChar(input)) {
+                    labels.add(toCharSet(input));
+                }
+            }
+        }
+        List<CharSet> atoms = CharSet.partition(labels);
+        int[][] columns = new int[atoms.size()][stateCount];
+        for (int k = 0; k < atoms.size(); ++k) {
+            char ch = atoms.get(k).getFrom(0);
+            for (int i = 0; i < stateCount; ++i) {
+                NFAState target = states.get(i).getState(ch);
+                columns[k][i] = (target == null) ? DEAD : ids.get(target);
+            }
+        }
+
+        // ranges with the same column are equivalent; class 0 is the dead one
+        Map<List<Integer>, Integer> classIds = new HashMap<List<Integer>, Integer>();
+        List<int[]> classColumns = new ArrayList<int[]>();
+        int[] dead = new int[stateCount];
+        Arrays.fill(dead, DEAD);
+        classIds.put(asList(dead), 0);
+        classColumns.add(dead);
+
+        int[] atomClasses = new int[atoms.size()];
+        for (int k = 0; k < atoms.size(); ++k) {
+            List<Integer> key = asList(columns[k]);
+            Integer id = classIds.get(key);
+            if (id == null) {
+                id = classColumns.size();
+                classIds.put(key, id);
+                classColumns.add(columns[k]);
+            }
+            atomClasses[k] = id;
+        }
+
+        int classCount = classColumns.size();
+        int[] table = new int[stateCount * classCount];
+        BitSet acceptable = new BitSet(stateCount);
+        int[] tags = new int[stateCount];
+        for (int i = 0; i < stateCount; ++i) {
+            for (int k = 0; k < classCount; ++k) {
+                table[i * classCount + k] = classColumns.get(k)[i];
+            }
+            NFAState state = states.get(i);
+            acceptable.set(i, state instanceof AcceptableNFAState);
+            tags[i] = (state instanceof TaggedNFAState)
+                ? ((TaggedNFAState)state).getTag() : -1;
+        }
+
+        return new CompiledDFA(new CharClassMap(atoms, atomClasses), classCount,
+                table, acceptable, tags);
+    }
+
+    static CharSet toCharSet(Object input_) {
+        return (input_ instanceof CharSet)
+            ? (CharSet)input_ : new CharSet(((String)input_).charAt(0));
+    }
+
+    static boolean isChar(Object input_) {
+        return input_ instanceof CharSet
+            || (input_ instanceof String && ((String)input_).length() == 1);
+    }
+
+    private static List<Integer> asList(int[] column_) {
+        List<Integer> ret = new ArrayList<Integer>(column_.length);
+        for (int target : column_) {
+            ret.add(target);
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the target state for the given char. DEAD if no such state.
+     */
+    public int next(int state_, char ch_) {
+        return _table[state_ * _classCount + _classes.get(ch_)];
+    }
+
+    /**
+     * Returns the target state for the given char equivalence class. DEAD if
+     * no such state.
+     */
+    public int getTarget(int state_, int class_) {
+        return _table[state_ * _classCount + class_];
+    }
+
+    /**
+     * Returns the chars of each of the equivalence classes; the class for
+     * chars without any transitions included.
+     */
+    public CharSet[] getCharSets() {
+        return _classes.getCharSets(_classCount);
+    }
+
+    /**
+     * Returns the chars that have a transition from the initial state, i.e.
+     * that a non-empty match can start with.
+     */
+    public CharSet getStartSet() {
+        CharSet[] charSets = getCharSets();
+        CharSet ret = CharSet.EMPTY;
+        for (int cls = 1; cls < _classCount; ++cls) {
+            if (getTarget(0, cls) != DEAD) {
+                ret = ret.union(charSets[cls]);
+            }
+        }
+        return ret;
+    }
+
+    public boolean isAcceptable(int state_) {
+        return _acceptable.get(state_);
+    }
+
+    /**
+     * Returns the tag of the given state. -1 if the state isn't tagged.
+     */
+    public int getTag(int state_) {
+        return _tags[state_];
+    }
+
+    public int getStateCount() {
+        return _tags.length;
+    }
+
+    /**
+     * Returns the number of char equivalence classes, including the
+     * class for chars without any transitions.
+     */
+    public int getClassCount() {
+        return _classCount;
+    }
+
+    /**
+     * Returns the length of the longest match starting at the given
+     * offset of the input. -1 if no matching.
+     */
+    public int match(CharSequence input_, int offset_) {
+        int state = 0;
+        int match = isAcceptable(state) ? 0 : -1;
+
+        for (int i = offset_, len = input_.length(); i < len; ++i) {
+            state = next(state, input_.charAt(i));
+
+            if (state == DEAD) {
+                break;
+            }
+
+            if (_acceptable.get(state)) {
+                match = i - offset_ + 1; // the longest so far
+            }
+        }
+        return match;
+    }
+
+    /**
+     * Thaws the DFA back into NFAStates, e.g. for Helper.dump() or for
+     * building unions. Chars with the same target are merged into one
+     * CharSet transition.
+     */
+    public NFAState toNFAState() {
+        NFAState[] states = new NFAState[getStateCount()];
+        for (int i = 0; i < states.length; ++i) {
+            states[i] = !isAcceptable(i) ? new NFAState()
+                : (_tags[i] >= 0) ? new TaggedNFAState(_tags[i])
+                : new AcceptableNFAState();
+        }
+
+        CharSet[] chars = getCharSets();
+        for (int i = 0; i < states.length; ++i) {
+            Map<Integer, CharSet> targets = new HashMap<Integer, CharSet>();
+            for (int k = 1; k < _classCount; ++k) {
+                int target = _table[i * _classCount + k];
+                if (target != DEAD && !chars[k].isEmpty()) {
+                    CharSet old = targets.get(target);
+                    targets.put(target, (old != null) ? old.union(chars[k]) : chars[k]);
+                }
+            }
+            for (Map.Entry<Integer, CharSet> entry : targets.entrySet()) {
+                states[i].addTransition(states[entry.getKey()], entry.getValue());
+            }
+        }
+        return states[0];
+    }
+
+    /**
+     * Writes the DFA in the binary form read by read().
+     */
+    public void write(DataOutput out_) throws IOException {
+        int stateCount = getStateCount();
+        out_.writeInt(stateCount);
+        out_.writeInt(_classCount);
+        _classes.write(out_);
+        for (int target : _table) {
+            out_.writeInt(target);
+        }
+        for (int i = 0; i < stateCount; ++i) {
+            out_.writeInt(isAcceptable(i) ? _tags[i] : NOT_ACCEPTABLE);
+        }
+    }
+
+    /**
+     * Reads a DFA written by write(), starting at the current position of
+     * the buffer, which is then moved past it. An IllegalArgumentException
+     * is thrown if the values are invalid, and a BufferUnderflowException if
+     * it's cut short.
+     */
+    public static CompiledDFA read(ByteBuffer in_) {
+        int stateCount = in_.getInt();
+        int classCount = in_.getInt();
+        if (stateCount <= 0 || classCount <= 0) {
+            throw new IllegalArgumentException("Invalid DFA size: "
+                    + stateCount + " states, " + classCount + " classes");
+        }
+        CharClassMap classes = CharClassMap.read(in_, classCount);
+
+        // the table and the tags, as ints; checked before allocating anything
+        if ((long)stateCount * classCount + stateCount > in_.remaining() / 4) {
+            throw new IllegalArgumentException("DFA doesn't fit the buffer: "
+                    + stateCount + " states, " + classCount + " classes");
+        }
+        int[] table = new int[stateCount * classCount];
+        in_.asIntBuffer().get(table);
+        in_.position(in_.position() + 4 * table.length);
+        for (int target : table) {
+            if (target < DEAD || target >= stateCount) {
+                throw new IllegalArgumentException("Invalid transition: " + target);
+            }
+        }
+
+        BitSet acceptable = new BitSet(stateCount);
+        int[] tags = new int[stateCount];
+        for (int i = 0; i < stateCount; ++i) {
+            int tag = in_.getInt();
+            if (tag < -1 && tag != NOT_ACCEPTABLE) {
+                throw new IllegalArgumentException("Invalid tag: " + tag);
+            }
+            acceptable.set(i, tag != NOT_ACCEPTABLE);
+            tags[i] = (tag != NOT_ACCEPTABLE) ? tag : -1;
+        }
+        return new CompiledDFA(classes, classCount, table, acceptable, tags);
+    }
+}
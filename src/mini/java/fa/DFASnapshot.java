@@ -0,0 +1,112 @@
+package mini.java.fa;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a set of named CompiledDFAs, so that the automata can
+ * be built once (e.g. at build time) and loaded at startup without
+ * compiling any regex. The layout is:
+ *
+ *   int    MAGIC
+ *   int    VERSION
+ *   int    number of DFAs
+ *   then for each: UTF name, followed by the DFA as in CompiledDFA.write()
+ *
+ * All the numbers are big-endian. Readers reject the other versions, so the
+ * format can change as long as VERSION is bumped.
+ */
+public final class DFASnapshot {
+    public static final int MAGIC   = 0x4D4A4446; // "MJDF"
+    public static final int VERSION = 1;
+
+    private DFASnapshot() {
+    }
+
+    public static void write(Map<String, CompiledDFA> dfas_, OutputStream out_)
+        throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(out_);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dfas_.size());
+        for (Map.Entry<String, CompiledDFA> entry : dfas_.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().write(out);
+        }
+        out.flush();
+    }
+
+    public static void save(Map<String, CompiledDFA> dfas_, File file_)
+        throws IOException
+    {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file_));
+        try {
+            write(dfas_, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the snapshot from the current position of the buffer. The
+     * entries keep the order they were written in. An IOException is thrown
+     * if it's cut short or any of its values is out of range.
+     */
+    public static Map<String, CompiledDFA> read(ByteBuffer in_) throws IOException {
+        try {
+            if (in_.getInt() != MAGIC) {
+                throw new IOException("Not a DFA snapshot");
+            }
+            int version = in_.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported DFA snapshot version: " + version);
+            }
+
+            int count = in_.getInt();
+            Map<String, CompiledDFA> ret = new LinkedHashMap<String, CompiledDFA>();
+            for (int i = 0; i < count; ++i) {
+                String name = readUTF(in_);
+                ret.put(name, CompiledDFA.read(in_));
+            }
+            return ret;
+        } catch (RuntimeException ex_) { // e.g. BufferUnderflowException
+            throw new IOException("Corrupted DFA snapshot", ex_);
+        }
+    }
+
+    /**
+     * Loads the snapshot from the given file, which is memory-mapped rather
+     * than read through a stream.
+     */
+    public static Map<String, CompiledDFA> load(File file_) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(file_, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            file.close(); // the mapping stays valid
+        }
+    }
+
+    /**
+     * Helper method used to read a string written by DataOutput.writeUTF().
+     */
+    private static String readUTF(ByteBuffer in_) throws IOException {
+        // the length included, as DataInputStream.readUTF() expects it
+        byte[] bytes = new byte[2 + (in_.getShort(in_.position()) & 0xFFFF)];
+        in_.get(bytes);
+        return new DataInputStream(new ByteArrayInputStream(bytes)).readUTF();
+    }
+}
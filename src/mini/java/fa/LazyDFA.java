@@ -0,0 +1,353 @@
+package mini.java.fa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mini.java.fa.helper.Helper;
+
+/**
+ * DFA built on demand from an NFA (epsilons allowed). A DFA state, i.e. a
+ * closure of NFA states, is only created the first time the input reaches
+ * it, and the states are kept in a bounded cache. When the cache is full it
+ * is flushed and rebuilt from scratch; if that happens too often for the
+ * amount of input scanned, the current match goes on with a plain NFA
+ * simulation instead. The idea comes from RE2.
+ *
+ * The cache is shared by all the callers, so the matching methods are
+ * synchronized.
+ */
+public final class LazyDFA {
+    public static final int DEFAULT_MAX_STATES = 1000;
+
+    // the cache is thrashing if a flush comes before this many chars per
+    // cached state have been scanned since the previous one
+    private static final int MIN_PROGRESS = 10;
+
+    private static final int NOT_ACCEPTABLE = -2, UNTAGGED = -1;
+
+    // the NFA, with the states numbered in the traversal order
+    private final int[][]      _epsilons;   // state -> targets
+    private final CharSet[][]  _labels;     // state -> char labels
+    private final int[][]      _targets;    // state -> target for each of the labels
+    private final int[]        _tags;       // NOT_ACCEPTABLE, UNTAGGED or the tag
+    private final CharClassMap _classes;    // class 0 has no transitions
+    private final char[]       _samples;    // class -> a char in it
+    private final int[]        _init;       // the initial closure
+
+    private final int                  _maxStates;
+    private final Map<DState, DState>  _cache;
+    private DState                     _start;
+    private int                        _progress; // chars scanned since the last flush
+    private int                        _flushes;
+
+    /**
+     * A DFA state. Equality is the one of the NFA closure.
+     */
+    private static final class DState {
+        final int[]    _nfa;   // sorted
+        final int      _tag;   // NOT_ACCEPTABLE, UNTAGGED or the tag
+        final DState[] _next;  // per class; null until computed
+
+        DState(int[] nfa_, int tag_, int classCount_) {
+            _nfa = nfa_;
+            _tag = tag_;
+            _next = new DState[classCount_];
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(_nfa);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj instanceof DState) && Arrays.equals(_nfa, ((DState)obj)._nfa);
+        }
+    }
+
+    private static final DState DEAD = new DState(new int[0], NOT_ACCEPTABLE, 0);
+
+    public LazyDFA(NFAState nfa_) {
+        this(nfa_, Collections.<NFAState, Integer>emptyMap(), DEFAULT_MAX_STATES);
+    }
+
+    /**
+     * Constructor. Acceptable states found in tags_ (or TaggedNFAStates) are
+     * tagged; the DFA state gets the smallest tag of its closure, as in
+     * Helper.collapse(). At most maxStates_ DFA states are cached at once.
+     */
+    public LazyDFA(NFAState nfa_, Map<NFAState, Integer> tags_, int maxStates_) {
+        if (maxStates_ < 1) {
+            throw new IllegalArgumentException("maxStates must be positive: " + maxStates_);
+        }
+
+        // index the NFA; nothing gets determinized here
+        List<NFAState> states = new ArrayList<NFAState>(Helper.findAll(nfa_));
+        Map<NFAState, Integer> ids = new HashMap<NFAState, Integer>();
+        for (NFAState state : states) {
+            ids.put(state, ids.size());
+        }
+
+        int count = states.size();
+        _epsilons = new int[count][];
+        _labels = new CharSet[count][];
+        _targets = new int[count][];
+        _tags = new int[count];
+        List<CharSet> all = new ArrayList<CharSet>();
+        for (int i = 0; i < count; ++i) {
+            NFAState state = states.get(i);
+
+            int k = 0;
+            _epsilons[i] = new int[state.getEpsilons().size()];
+            for (NFAState target : state.getEpsilons()) {
+                _epsilons[i][k++] = ids.get(target);
+            }
+
+            List<CharSet> labels = new ArrayList<CharSet>();
+            List<Integer> targets = new ArrayList<Integer>();
+            for (Object input : state.getInputs()) {
+                if (CompiledDFA.isChar(input)) {
+                    labels.add(CompiledDFA.toCharSet(input));
+                    targets.add(ids.get(state.getState(input)));
+                }
+            }
+            _labels[i] = labels.toArray(new CharSet[0]);
+            _targets[i] = new int[targets.size()];
+            for (k = 0; k < _targets[i].length; ++k) {
+                _targets[i][k] = targets.get(k);
+            }
+            all.addAll(labels);
+
+            Integer tag = tags_.get(state);
+            _tags[i] = !(state instanceof AcceptableNFAState) ? NOT_ACCEPTABLE
+                : (tag != null) ? tag
+                : (state instanceof TaggedNFAState) ? ((TaggedNFAState)state).getTag()
+                : UNTAGGED;
+        }
+
+        // every atom is a class of its own; class 0 is the dead one
+        List<CharSet> atoms = CharSet.partition(all);
+        int[] atomClasses = new int[atoms.size()];
+        _samples = new char[atoms.size() + 1];
+        for (int k = 0; k < atoms.size(); ++k) {
+            atomClasses[k] = k + 1;
+            _samples[k + 1] = atoms.get(k).getFrom(0);
+        }
+        _classes = new CharClassMap(atoms, atomClasses);
+
+        BitSet init = new BitSet(count);
+        init.set(ids.get(nfa_));
+        _init = close(init);
+
+        _maxStates = maxStates_;
+        _cache = new HashMap<DState, DState>();
+        flush();
+        _flushes = 0;
+    }
+
+    /**
+     * Returns the chars that a non-empty match can start with; from the NFA,
+     * so nothing gets determinized.
+     */
+    public CharSet getStartSet() {
+        CharSet ret = CharSet.EMPTY;
+        for (int state : _init) {
+            for (CharSet label : _labels[state]) {
+                ret = ret.union(label);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Returns the length of the longest match starting at the given
+     * offset of the input. -1 if no matching.
+     */
+    public int match(CharSequence input_, int offset_) {
+        return match(input_, offset_, null);
+    }
+
+    /**
+     * Returns the length of the longest match starting at the given offset
+     * of the input, and stores its tag into tag_[0] (-1 if untagged) unless
+     * tag_ is null. -1 if no matching.
+     */
+    public synchronized int match(CharSequence input_, int offset_, int[] tag_) {
+        DState state = _start;
+        int[] ret = {-1, UNTAGGED}; // the longest match so far and its tag
+        if (state._tag != NOT_ACCEPTABLE) {
+            ret[0] = 0;
+            ret[1] = state._tag;
+        }
+
+        int from = offset_; // the progress since the last flush is counted from here
+        int i = offset_, len = input_.length();
+        for (; i < len; ++i) {
+            int cls = _classes.get(input_.charAt(i));
+            DState next = state._next[cls];
+
+            if (next == null) {
+                int[] nfa = step(state._nfa, _samples[cls]);
+                if (_cache.size() >= _maxStates) {
+                    boolean thrashing = (_progress + i - from) < MIN_PROGRESS * _maxStates;
+                    flush();
+                    from = i;
+
+                    if (thrashing) {
+                        // the cache doesn't help; go on without it
+                        i = simulate(input_, offset_, i, nfa, ret);
+                        break;
+                    }
+                }
+                next = intern(nfa);
+                state._next[cls] = next;
+            }
+
+            if (next == DEAD) {
+                break;
+            }
+            state = next;
+
+            if (state._tag != NOT_ACCEPTABLE) {
+                ret[0] = i - offset_ + 1;
+                ret[1] = state._tag;
+            }
+        }
+        _progress += i - from;
+
+        if (tag_ != null) {
+            tag_[0] = ret[1];
+        }
+        return ret[0];
+    }
+
+    /**
+     * Helper method used to finish a match by simulating the NFA, starting
+     * from the closure reached on the char at index_. The longest match and
+     * its tag are updated in match_. Returns the index where it stopped.
+     */
+    private int simulate(CharSequence input_, int offset_, int index_, int[] nfa_,
+            int[] match_)
+    {
+        int i = index_;
+        int[] nfa = nfa_;
+        while (nfa.length > 0) {
+            int tag = getTag(nfa);
+            if (tag != NOT_ACCEPTABLE) {
+                match_[0] = i - offset_ + 1;
+                match_[1] = tag;
+            }
+            if (++i >= input_.length()) {
+                break;
+            }
+            nfa = step(nfa, input_.charAt(i));
+        }
+        return i;
+    }
+
+    /**
+     * Returns the number of the DFA states currently cached.
+     */
+    public synchronized int getStateCount() {
+        return _cache.size();
+    }
+
+    /**
+     * Returns how many times the cache has been flushed.
+     */
+    public synchronized int getFlushCount() {
+        return _flushes;
+    }
+
+    /**
+     * Helper method used to drop all the cached states.
+     */
+    private void flush() {
+        _cache.clear();
+        _progress = 0;
+        ++_flushes;
+        _start = intern(_init);
+    }
+
+    /**
+     * Helper method used to find the cached state for the given closure,
+     * creating it if necessary.
+     */
+    private DState intern(int[] nfa_) {
+        if (nfa_.length == 0) {
+            return DEAD;
+        }
+        DState key = new DState(nfa_, getTag(nfa_), _samples.length);
+        DState ret = _cache.get(key);
+        if (ret == null) {
+            ret = key;
+            ret._next[0] = DEAD;
+            _cache.put(ret, ret);
+        }
+        return ret;
+    }
+
+    /**
+     * Helper method used to find the closure reached from the given one on
+     * the given char.
+     */
+    private int[] step(int[] nfa_, char ch_) {
+        BitSet next = new BitSet(_tags.length);
+        for (int state : nfa_) {
+            CharSet[] labels = _labels[state];
+            for (int k = 0; k < labels.length; ++k) {
+                if (labels[k].contains(ch_)) {
+                    next.set(_targets[state][k]);
+                }
+            }
+        }
+        return close(next);
+    }
+
+    /**
+     * Helper method used to add the epsilon closure to the given states.
+     */
+    private int[] close(BitSet states_) {
+        int[] stack = new int[_tags.length];
+        int size = 0;
+        for (int i = states_.nextSetBit(0); i >= 0; i = states_.nextSetBit(i + 1)) {
+            stack[size++] = i;
+        }
+        while (size > 0) {
+            for (int target : _epsilons[stack[--size]]) {
+                if (!states_.get(target)) {
+                    states_.set(target);
+                    stack[size++] = target;
+                }
+            }
+        }
+
+        int[] ret = new int[states_.cardinality()];
+        int k = 0;
+        for (int i = states_.nextSetBit(0); i >= 0; i = states_.nextSetBit(i + 1)) {
+            ret[k++] = i;
+        }
+        return ret;
+    }
+
+    /**
+     * Helper method used to find the tag of the given closure.
+     */
+    private int getTag(int[] nfa_) {
+        int ret = NOT_ACCEPTABLE;
+        for (int state : nfa_) {
+            int tag = _tags[state];
+            if (tag == UNTAGGED && ret == NOT_ACCEPTABLE) {
+                ret = UNTAGGED;
+            } else if (tag >= 0 && (ret < 0 || tag < ret)) {
+                ret = tag;
+            }
+        }
+        return ret;
+    }
+}
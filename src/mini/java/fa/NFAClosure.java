@@ -1,81 +1,183 @@
 package mini.java.fa;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
-import mini.java.fa.helper.Helper;
-
 public class NFAClosure {
-    private Set<NFAState> _states;
+    private final NFAIndex _index;
+    private final long[]   _bits;   // the states, as a bitset over _index
+    private final int      _hash;   // cached, as for Set<NFAState>; closures are map keys
+    private Set<NFAState>  _states; // created on demand
     
     /**
      * Constructor. Creates a closure object for a single NFAState.
      */
     public NFAClosure(NFAState state_) {
-        assert(state_ != null);
-        
-        _states = Helper.findClosure(state_);
+        this(Collections.singleton(state_));
     }
     
     /**
      * Constructor. Creates a closure object for a collection of NFAStates.
+     * The states reachable from them are indexed; the closures derived from
+     * this one share the index.
      */
     public NFAClosure(Set<NFAState> states_) {
-//        assert(states_ != null);
-//        assert(!states_.isEmpty());
-//        
-//        _states = new HashSet<NFAState>();
-//        for (NFAState state : states_) {
-//            _states.addAll(Helper.findClosure(state));
-//        }
+        this(new NFAIndex(states_), states_);
+    }
+    
+    private NFAClosure(NFAIndex index_, Set<NFAState> states_) {
+        this(index_, closeAll(index_, states_));
+    }
+    
+    private NFAClosure(NFAIndex index_, long[] bits_) {
+        _index = index_;
+        _bits = bits_;
         
-        _states = Helper.findClosure(states_);
+        int hash = 0;
+        for (int i = nextState(0); i >= 0; i = nextState(i + 1)) {
+            hash += _index.getState(i).hashCode();
+        }
+        _hash = hash;
+    }
+    
+    private static long[] closeAll(NFAIndex index_, Set<NFAState> states_) {
+        long[] ret = index_.newSet();
+        for (NFAState state : states_) {
+            index_.addClosure(ret, state);
+        }
+        return ret;
     }
     
     /**
      * Returns all NFAStates in this closure.
      */
     public Set<NFAState> getStates() {
-        return Collections.unmodifiableSet(_states);
+        if (_states == null) {
+            Set<NFAState> states = new HashSet<NFAState>();
+            for (int i = nextState(0); i >= 0; i = nextState(i + 1)) {
+                states.add(_index.getState(i));
+            }
+            _states = Collections.unmodifiableSet(states);
+        }
+        return _states;
+    }
+    
+    /**
+     * Helper method used to iterate over the states in the bitset. Returns
+     * the index of the first state at or after from_; -1 if none.
+     */
+    private int nextState(int from_) {
+        int k = from_ >>> 6;
+        if (k >= _bits.length) {
+            return -1;
+        }
+        long word = _bits[k] & (-1L << from_);
+        while (word == 0) {
+            if (++k >= _bits.length) {
+                return -1;
+            }
+            word = _bits[k];
+        }
+        return (k << 6) + Long.numberOfTrailingZeros(word);
     }
     
     /**
      * Returns the target closure of this closure for the give input object.
      * Target closure is constructed using the target states from the source states
-     * in this closure. Null will be returned if no such closure.
+     * in this closure. Null will be returned if no such closure. For CharSet
+     * inputs, all the CharSet transitions intersecting the input are followed.
      */
     public NFAClosure getClosure(Object input_) {
-        Set<NFAState> targetStates = new HashSet<NFAState>();
-        for (NFAState state : _states) {
-            if (state.getState(input_) != null) { // needs to be skipped
-                targetStates.add(state.getState(input_));
+        long[] targets = (input_ instanceof CharSet)
+            ? getTargets((CharSet)input_) : _index.newSet();
+        boolean found = (input_ instanceof CharSet) && !isEmpty(targets);
+        for (int i = nextState(0); i >= 0; i = nextState(i + 1)) {
+            NFAState target = _index.getState(i).getState(input_);
+            if (target != null) { // needs to be skipped
+                _index.addClosure(targets, target);
+                found = true;
             }
         }
         
-        return (!targetStates.isEmpty())
-            ? new NFAClosure(targetStates) : null;
+        return found
+            ? new NFAClosure(_index, targets) : null;
+    }
+    
+    private static boolean isEmpty(long[] bits_) {
+        for (long word : bits_) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
      * Helper method used to return all valid inputs for this closure.
+     * CharSet inputs are split into disjoint sets first; the ones leading
+     * to the same target states are then merged, so the returned CharSets
+     * never overlap.
      */
     public Set<Object> getInputs() {
         Set<Object> inputs = new HashSet<Object>();
-        for (NFAState state : _states) {
-            inputs.addAll(state.getInputs());
+        Set<CharSet> charSets = new HashSet<CharSet>();
+        for (int i = nextState(0); i >= 0; i = nextState(i + 1)) {
+            for (Object input : _index.getState(i).getInputs()) {
+                if (input instanceof CharSet) {
+                    charSets.add((CharSet)input);
+                } else {
+                    inputs.add(input);
+                }
+            }
         }
         
+        if (!charSets.isEmpty()) {
+            Map<List<Long>, CharSet> merged = new HashMap<List<Long>, CharSet>();
+            for (CharSet part : CharSet.partition(charSets)) {
+                List<Long> targets = new ArrayList<Long>();
+                for (long word : getTargets(part)) {
+                    targets.add(word);
+                }
+                CharSet old = merged.get(targets);
+                merged.put(targets, (old != null) ? old.union(part) : part);
+            }
+            inputs.addAll(merged.values());
+        }
         return inputs;
     }
     
+    /**
+     * Helper method used to find the closures of the targets of all the
+     * CharSet transitions intersecting the given CharSet.
+     */
+    private long[] getTargets(CharSet input_) {
+        long[] ret = _index.newSet();
+        for (int i = nextState(0); i >= 0; i = nextState(i + 1)) {
+            NFAState state = _index.getState(i);
+            for (Object input : state.getInputs()) {
+                if (input instanceof CharSet
+                        && ((CharSet)input).intersects(input_))
+                {
+                    _index.addClosure(ret, state.getState(input));
+                }
+            }
+        }
+        return ret;
+    }
+    
     /**
      * Helper method used to determining whether this closure contains
      * acceptable NFAState or not.
      */
     public boolean isAcceptable() {
-        for (NFAState state : _states) {
-            if (state instanceof AcceptableNFAState) {
+        for (int i = nextState(0); i >= 0; i = nextState(i + 1)) {
+            if (_index.getState(i) instanceof AcceptableNFAState) {
                 return true;
             }
         }
@@ -84,12 +186,13 @@ public class NFAClosure {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((_states == null) ? 0 : _states.hashCode());
-        return result;
+        return _hash;
     }
 
+    /**
+     * Closures sharing the same index are compared by their bitsets; the
+     * others by their states.
+     */
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
@@ -99,17 +202,15 @@ public class NFAClosure {
         if (getClass() != obj.getClass())
             return false;
         NFAClosure other = (NFAClosure) obj;
-        if (_states == null) {
-            if (other._states != null)
-                return false;
-        } else if (!_states.equals(other._states))
-            return false;
-        return true;
+        if (_index == other._index) {
+            return _hash == other._hash && Arrays.equals(_bits, other._bits);
+        }
+        return getStates().equals(other.getStates());
     }
 
     @Override
     public String toString() {
-        return _states.toString();
+        return getStates().toString();
     }
     
     
@@ -0,0 +1,115 @@
+package mini.java.fa;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import mini.java.fa.helper.Helper;
+
+/**
+ * Dense numbering of the states of one automaton, so that sets of them can
+ * be represented as bitsets (long[], one bit per state). The epsilon
+ * closure of each state is computed once and memoized.
+ *
+ * The numbering is per automaton rather than stored in the NFAStates, since
+ * the same states may be part of several automata, e.g. the combined DFA of
+ * a Tokenizer.
+ */
+public final class NFAIndex {
+    private final Map<NFAState, Integer> _ids;
+    private final NFAState[]             _states;
+    private final long[][]               _closures; // memoized; null until needed
+
+    /**
+     * Constructor. Indexes all the states reachable from the given ones.
+     */
+    public NFAIndex(Collection<NFAState> roots_) {
+        List<NFAState> states = new ArrayList<NFAState>();
+        _ids = new HashMap<NFAState, Integer>();
+        for (NFAState root : roots_) {
+            for (NFAState state : Helper.findAll(root)) {
+                if (!_ids.containsKey(state)) {
+                    _ids.put(state, states.size());
+                    states.add(state);
+                }
+            }
+        }
+        _states = states.toArray(new NFAState[0]);
+        _closures = new long[_states.length][];
+    }
+
+    public int size() {
+        return _states.length;
+    }
+
+    /**
+     * Returns the index of the given state. The state must be reachable
+     * from the roots the index was created with.
+     */
+    public int getId(NFAState state_) {
+        Integer ret = _ids.get(state_);
+        if (ret == null) {
+            throw new IllegalArgumentException("State not indexed: " + state_);
+        }
+        return ret;
+    }
+
+    public NFAState getState(int id_) {
+        return _states[id_];
+    }
+
+    /**
+     * Returns an empty bitset for this index.
+     */
+    public long[] newSet() {
+        return new long[(_states.length + 63) >>> 6];
+    }
+
+    /**
+     * Returns the epsilon closure of the given state as a bitset, including
+     * the state itself. The returned array must not be modified.
+     */
+    public long[] getClosure(int id_) {
+        long[] ret = _closures[id_];
+        if (ret == null) {
+            ret = newSet();
+            int[] stack = new int[_states.length];
+            int size = 0;
+            ret[id_ >>> 6] |= 1L << id_;
+            stack[size++] = id_;
+
+            while (size > 0) {
+                for (NFAState target : _states[stack[--size]].getEpsilons()) {
+                    int id = getId(target);
+                    if ((ret[id >>> 6] & (1L << id)) != 0) {
+                        continue; // already there
+                    }
+                    long[] known = _closures[id];
+                    if (known != null) {
+                        // the closure of a memoized state is already complete
+                        for (int k = 0; k < ret.length; ++k) {
+                            ret[k] |= known[k];
+                        }
+                    } else {
+                        ret[id >>> 6] |= 1L << id;
+                        stack[size++] = id;
+                    }
+                }
+            }
+            _closures[id_] = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Adds the epsilon closure of the given state to the bitset.
+     */
+    public void addClosure(long[] set_, NFAState state_) {
+        long[] closure = getClosure(getId(state_));
+        for (int k = 0; k < set_.length; ++k) {
+            set_[k] |= closure[k];
+        }
+    }
+}
@@ -71,6 +71,26 @@ public class NFAState {
         return _transitions.get(input_);
     }
 
+    /**
+     * Returns the target state for the given char, following either a
+     * CharSet transition containing the char or a single-char String
+     * transition. Null will be returned if no such target state. For NFAs
+     * with overlapping CharSets, any one of the targets may be returned.
+     */
+    public NFAState getState(char ch_) {
+        NFAState ret = _transitions.get(String.valueOf(ch_));
+        if (ret == null) {
+            for (Map.Entry<Object, NFAState> entry : _transitions.entrySet()) {
+                if (entry.getKey() instanceof CharSet
+                        && ((CharSet)entry.getKey()).contains(ch_))
+                {
+                    return entry.getValue();
+                }
+            }
+        }
+        return ret;
+    }
+
     /**
      * Returns all input objects this NFAState can accept.
      */
@@ -0,0 +1,23 @@
+package mini.java.fa;
+
+/**
+ * An acceptable state carrying a tag, used when several automata are
+ * collapsed into one and the accepting states must remember which of them
+ * they came from. Lower tags take precedence.
+ */
+public class TaggedNFAState extends AcceptableNFAState {
+    private final int _tag;
+    
+    public TaggedNFAState(int tag_) {
+        _tag = tag_;
+    }
+    
+    public int getTag() {
+        return _tag;
+    }
+    
+    @Override
+    public String toString() {
+        return super.toString() + "<" + _tag + ">";
+    }
+}
@@ -1,22 +1,32 @@
 package mini.java.fa.helper;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
 import mini.java.fa.AcceptableNFAState;
+import mini.java.fa.CharSet;
 import mini.java.fa.NFAClosure;
 import mini.java.fa.NFAState;
+import mini.java.fa.TaggedNFAState;
 
 
 public final class Helper {
     
+    private static final boolean DEBUG = Boolean.getBoolean("mini.java.fa.debug");
+    
     // Comparison based on object's string representation
     public final static Comparator<Object> STR_CMP = new Comparator<Object>() {
         public int compare(Object s1, Object s2) {
@@ -24,6 +34,32 @@ public final class Helper {
         }
     };
     
+    /**
+     * Sorts the given objects the same way as STR_CMP does, but calls
+     * toString() only once per object instead of once per comparison.
+     * Objects with the same string representation are all kept.
+     */
+    public static <T> List<T> sortByString(Collection<T> objects_) {
+        final String[] keys = new String[objects_.size()];
+        final List<T> values = new ArrayList<T>(objects_);
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < keys.length; ++i) {
+            keys[i] = "" + values.get(i);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a_, Integer b_) {
+                return keys[a_].compareTo(keys[b_]);
+            }
+        });
+        
+        List<T> ret = new ArrayList<T>(keys.length);
+        for (int i : order) {
+            ret.add(values.get(i));
+        }
+        return ret;
+    }
+    
     
     /**
      * (Singleton version)
@@ -109,14 +145,22 @@ public final class Helper {
      * Collapses the epsilons in the given NFA to create a DFA.
      */
     public static NFAState collapse(NFAState root_) {
+        return collapse(root_, Collections.<NFAState, Integer>emptyMap());
+    }
+    
+    /**
+     * Collapses the epsilons in the given NFA to create a DFA. Acceptable
+     * states listed in the tags become TaggedNFAStates in the DFA, tagged
+     * with the lowest tag found in the corresponding closure.
+     */
+    public static NFAState collapse(NFAState root_, final Map<NFAState, Integer> tags_) {
 
         // mapping from closures to new DFA states
         final Map<NFAClosure, NFAState> mapping = new HashMap<NFAClosure, NFAState>();
         
         
         NFAClosure init = root_.getClosure();
-        NFAState dfa = init.isAcceptable()
-            ? new AcceptableNFAState() : new NFAState();
+        NFAState dfa = createState(init, tags_);
         mapping.put(init, dfa);
         
         visit(init, new NFAClosureFinder(
@@ -125,9 +169,7 @@ public final class Helper {
                         assert(input_ != null);
                         
                         if (!mapping.containsKey(dest_)) {
-                            NFAState state = dest_.isAcceptable()
-                                ? new AcceptableNFAState() : new NFAState();
-                            mapping.put(dest_, state);
+                            mapping.put(dest_, createState(dest_, tags_));
                         }
                         // add the corresponding transitions in the newly created DFA
                         NFAState src = mapping.get(src_);
@@ -138,6 +180,275 @@ public final class Helper {
         return dfa;
     }
     
+    /**
+     * Helper method used to create the DFA state for the given closure.
+     */
+    private static NFAState createState(NFAClosure closure_, Map<NFAState, Integer> tags_) {
+        if (!closure_.isAcceptable()) {
+            return new NFAState();
+        }
+        
+        Integer tag = null;
+        for (NFAState state : closure_.getStates()) {
+            Integer t = tags_.get(state);
+            if (t != null && (tag == null || t < tag)) {
+                tag = t;
+            }
+        }
+        return (tag != null)
+            ? new TaggedNFAState(tag) : new AcceptableNFAState();
+    }
+    
+    /**
+     * Minimizes the given DFA, e.g. the output of collapse(), using
+     * Hopcroft's partition refinement, which takes O(n log n) for a fixed
+     * set of inputs. Acceptable states are only merged if they carry the
+     * same tag, and states that cannot lead to an acceptable state are
+     * dropped.
+     */
+    public static NFAState minimize(NFAState dfa_) {
+        return minimize(dfa_, null);
+    }
+    
+    /**
+     * Minimizes the given DFA as minimize(dfa_) does, and fills in the state
+     * counts before and after unless stats_ is null. They're also printed
+     * to System.err if the mini.java.fa.debug property is set.
+     */
+    public static NFAState minimize(NFAState dfa_, MinimizeStats stats_) {
+        // number the states in the traversal order
+        final Map<NFAState, Integer> ids = new HashMap<NFAState, Integer>();
+        final List<NFAState> states = new ArrayList<NFAState>();
+        ids.put(dfa_, 0);
+        states.add(dfa_);
+        
+        visit(dfa_, new NFAStateFinder(
+                new IFinderCallback<NFAState>() {
+                    public boolean onNext(NFAState src_, NFAState dest_, Object input_) {
+                        if (input_ == null) {
+                            throw new IllegalArgumentException("minimize() works on DFAs only");
+                        }
+                        if (!ids.containsKey(dest_)) {
+                            ids.put(dest_, states.size());
+                            states.add(dest_);
+                        }
+                        return true;
+                    }
+                }));
+        
+        // number the inputs; CharSets are split into disjoint parts first
+        Map<Object, Integer> inputIds = new HashMap<Object, Integer>();
+        List<Object> inputs = new ArrayList<Object>();
+        Set<CharSet> charSets = new HashSet<CharSet>();
+        for (NFAState state : states) {
+            for (Object input : state.getInputs()) {
+                if (input instanceof CharSet) {
+                    charSets.add((CharSet)input);
+                } else if (!inputIds.containsKey(input)) {
+                    inputIds.put(input, inputs.size());
+                    inputs.add(input);
+                }
+            }
+        }
+        int firstPart = inputs.size();
+        inputs.addAll(CharSet.partition(charSets));
+        
+        // the transition table; the missing transitions go to an extra sink
+        final int n = states.size() + 1, sink = n - 1, m = inputs.size();
+        int[] delta = new int[n * m];
+        Arrays.fill(delta, sink);
+        for (int s = 0; s < sink; ++s) {
+            NFAState state = states.get(s);
+            for (Object input : state.getInputs()) {
+                int target = ids.get(state.getState(input));
+                if (input instanceof CharSet) {
+                    for (int a = firstPart; a < m; ++a) {
+                        if (((CharSet)input).intersects((CharSet)inputs.get(a))) {
+                            delta[s * m + a] = target;
+                        }
+                    }
+                } else {
+                    delta[s * m + inputIds.get(input)] = target;
+                }
+            }
+        }
+        
+        // the inverse transitions, grouped by (input, target)
+        int[] invStart = new int[m * n + 1];
+        int[] invSources = new int[n * m];
+        for (int s = 0; s < n; ++s) {
+            for (int a = 0; a < m; ++a) {
+                ++invStart[a * n + delta[s * m + a] + 1];
+            }
+        }
+        for (int i = 1; i < invStart.length; ++i) {
+            invStart[i] += invStart[i - 1];
+        }
+        int[] fill = Arrays.copyOf(invStart, invStart.length - 1);
+        for (int s = 0; s < n; ++s) {
+            for (int a = 0; a < m; ++a) {
+                invSources[fill[a * n + delta[s * m + a]]++] = s;
+            }
+        }
+        
+        // the initial partition: by acceptability and tags
+        Map<Object, Integer> signatures = new HashMap<Object, Integer>();
+        int[] blockOf = new int[n];
+        for (int s = 0; s < n; ++s) {
+            Object signature = (s == sink) ? Boolean.FALSE : getSignature(states.get(s));
+            Integer block = signatures.get(signature);
+            if (block == null) {
+                block = signatures.size();
+                signatures.put(signature, block);
+            }
+            blockOf[s] = block;
+        }
+        
+        // each block is a range [first, end) of the elements array; the
+        // marked elements are moved to the front of their block
+        int[] elements = new int[n], location = new int[n];
+        int[] first = new int[n], end = new int[n], marked = new int[n];
+        int blockCount = signatures.size();
+        for (int s = 0; s < n; ++s) {
+            ++end[blockOf[s]];
+        }
+        for (int b = 1; b < blockCount; ++b) {
+            first[b] = end[b - 1];
+            end[b] += first[b];
+        }
+        {
+            int[] next = Arrays.copyOf(first, blockCount);
+            for (int s = 0; s < n; ++s) {
+                location[s] = next[blockOf[s]]++;
+                elements[location[s]] = s;
+            }
+        }
+        
+        // the splitters waiting to be processed, encoded as (block * m + input)
+        Deque<Integer> work = new ArrayDeque<Integer>();
+        BitSet waiting = new BitSet();
+        for (int b = 0; b < blockCount; ++b) {
+            for (int a = 0; a < m; ++a) {
+                work.push(b * m + a);
+                waiting.set(b * m + a);
+            }
+        }
+        
+        int[] splitter = new int[n], touched = new int[n];
+        while (!work.isEmpty()) {
+            int w = work.pop();
+            waiting.clear(w);
+            int block = w / m, a = w % m;
+            
+            // copy the splitter first; its elements may move while marking
+            int size = end[block] - first[block];
+            System.arraycopy(elements, first[block], splitter, 0, size);
+            
+            int touchedCount = 0;
+            for (int i = 0; i < size; ++i) {
+                int t = splitter[i];
+                for (int j = invStart[a * n + t]; j < invStart[a * n + t + 1]; ++j) {
+                    int s = invSources[j], b = blockOf[s];
+                    int pos = first[b] + marked[b];
+                    if (location[s] >= pos) { // not marked yet
+                        int other = elements[pos];
+                        elements[location[s]] = other;
+                        location[other] = location[s];
+                        elements[pos] = s;
+                        location[s] = pos;
+                        if (marked[b]++ == 0) {
+                            touched[touchedCount++] = b;
+                        }
+                    }
+                }
+            }
+            
+            for (int i = 0; i < touchedCount; ++i) {
+                int b = touched[i];
+                if (marked[b] == end[b] - first[b]) {
+                    marked[b] = 0; // nothing to split
+                    continue;
+                }
+                // the marked part becomes a new block
+                int d = blockCount++;
+                first[d] = first[b];
+                end[d] = first[b] + marked[b];
+                first[b] = end[d];
+                marked[b] = 0;
+                for (int k = first[d]; k < end[d]; ++k) {
+                    blockOf[elements[k]] = d;
+                }
+                
+                boolean smaller = (end[d] - first[d]) <= (end[b] - first[b]);
+                for (int c = 0; c < m; ++c) {
+                    int add = (waiting.get(b * m + c) || smaller) ? d : b;
+                    if (!waiting.get(add * m + c)) {
+                        work.push(add * m + c);
+                        waiting.set(add * m + c);
+                    }
+                }
+            }
+        }
+        
+        // the block with the sink is dropped together with its transitions
+        int dead = blockOf[sink];
+        if (stats_ != null || DEBUG) {
+            MinimizeStats stats = (stats_ != null) ? stats_ : new MinimizeStats();
+            stats._statesBefore = n - 1;
+            stats._statesAfter = (blockOf[0] == dead) ? 1 : blockCount - 1;
+            if (DEBUG) {
+                System.err.println("minimize(): " + stats);
+            }
+        }
+        if (blockOf[0] == dead) {
+            return new NFAState(); // accepts nothing
+        }
+        NFAState[] ret = new NFAState[blockCount];
+        for (int b = 0; b < blockCount; ++b) {
+            if (b != dead) {
+                NFAState state = states.get(elements[first[b]]);
+                ret[b] = (state instanceof TaggedNFAState)
+                    ? new TaggedNFAState(((TaggedNFAState)state).getTag())
+                    : (state instanceof AcceptableNFAState)
+                        ? new AcceptableNFAState() : new NFAState();
+            }
+        }
+        for (int b = 0; b < blockCount; ++b) {
+            if (b != dead) {
+                int s = elements[first[b]];
+                // the CharSet parts are merged again per target
+                Map<Integer, CharSet> merged = new HashMap<Integer, CharSet>();
+                for (int a = 0; a < m; ++a) {
+                    int target = blockOf[delta[s * m + a]];
+                    if (target == dead) {
+                        continue;
+                    }
+                    if (a < firstPart) {
+                        ret[b].addTransition(ret[target], inputs.get(a));
+                    } else {
+                        CharSet old = merged.get(target);
+                        CharSet part = (CharSet)inputs.get(a);
+                        merged.put(target, (old != null) ? old.union(part) : part);
+                    }
+                }
+                for (Map.Entry<Integer, CharSet> entry : merged.entrySet()) {
+                    ret[b].addTransition(ret[entry.getKey()], entry.getValue());
+                }
+            }
+        }
+        return ret[blockOf[0]];
+    }
+    
+    /**
+     * Helper method used to group the states for minimize().
+     */
+    private static Object getSignature(NFAState state_) {
+        if (state_ instanceof TaggedNFAState) {
+            return ((TaggedNFAState)state_).getTag();
+        }
+        return (state_ instanceof AcceptableNFAState);
+    }
+    
 //    /**
 //     * Alternative implementation of NFAConvertor.
 //     */
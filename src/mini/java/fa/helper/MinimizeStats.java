@@ -0,0 +1,30 @@
+package mini.java.fa.helper;
+
+/**
+ * The state counts of a run of Helper.minimize(), for the callers that want
+ * to know how much it saved.
+ */
+public final class MinimizeStats {
+    int _statesBefore;
+    int _statesAfter;
+
+    /**
+     * Returns the number of states of the DFA given to minimize().
+     */
+    public int getStatesBefore() {
+        return _statesBefore;
+    }
+
+    /**
+     * Returns the number of states of the minimal DFA, the ones that can't
+     * lead to an acceptable state dropped.
+     */
+    public int getStatesAfter() {
+        return _statesAfter;
+    }
+
+    @Override
+    public String toString() {
+        return _statesBefore + " -> " + _statesAfter + " states";
+    }
+}
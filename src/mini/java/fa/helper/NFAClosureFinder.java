@@ -2,8 +2,6 @@ package mini.java.fa.helper;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 import mini.java.fa.NFAClosure;
 
@@ -22,10 +20,7 @@ public class NFAClosureFinder implements IFinder<NFAClosure> {
         List<NFAClosure> ret = new LinkedList<NFAClosure>();
         
         // sort the closures by inputs
-        Set<Object> inputs = new TreeSet<Object>(Helper.STR_CMP);
-        inputs.addAll(node_.getInputs());
-        
-        for (Object input : inputs) {
+        for (Object input : Helper.sortByString(node_.getInputs())) {
             NFAClosure target = node_.getClosure(input);
             if (_cb.onNext(node_, target, input)) {
                 ret.add(target);
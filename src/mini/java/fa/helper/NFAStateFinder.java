@@ -2,8 +2,6 @@ package mini.java.fa.helper;
 
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 import mini.java.fa.NFAState;
 
@@ -21,18 +19,14 @@ public class NFAStateFinder implements IFinder<NFAState> {
     public List<NFAState> findNext(NFAState node_) {
         List<NFAState> ret = new LinkedList<NFAState>();
         // first the epsilons, ordered according to target states
-        Set<NFAState> epsilons = new TreeSet<NFAState>(Helper.STR_CMP);
-        epsilons.addAll(node_.getEpsilons());
-        for (NFAState s : epsilons) {
+        for (NFAState s : Helper.sortByString(node_.getEpsilons())) {
             if (_cb.onNext(node_, s, null)) {
                 ret.add(s);
             }
         }
         
         // the normal transitions, ordered according to inputs
-        Set<Object> inputs = new TreeSet<Object>(Helper.STR_CMP);
-        inputs.addAll(node_.getInputs());
-        for (Object input : inputs) {
+        for (Object input : Helper.sortByString(node_.getInputs())) {
             NFAState target = node_.getState(input);
             if (_cb.onNext(node_, target, input)) {
                 ret.add(target);
@@ -0,0 +1,87 @@
+package mini.java.lex;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bytes seen as chars, one for one, as long as they are ASCII; reading any
+ * other byte throws a NonAsciiException, so that the caller can fall back
+ * to decoding. Only the text of the tokens is ever copied out.
+ */
+final class AsciiSequence implements CharSequence {
+    /**
+     * Thrown on the first non-ASCII byte read. No stack trace: it's only
+     * used to leave the fast path.
+     */
+    static final class NonAsciiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NonAsciiException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final NonAsciiException NON_ASCII = new NonAsciiException();
+
+    private final ByteBuffer _bytes;
+    private final int        _offset;
+    private final int        _length;
+
+    AsciiSequence(ByteBuffer bytes_) {
+        this(bytes_, 0, bytes_.limit());
+    }
+
+    private AsciiSequence(ByteBuffer bytes_, int offset_, int length_) {
+        _bytes = bytes_;
+        _offset = offset_;
+        _length = length_;
+    }
+
+    /**
+     * Returns whether the ASCII bytes mean the same chars in the given
+     * charset, so that the bytes can be read without decoding.
+     */
+    static boolean isCompatible(Charset charset_) {
+        return StandardCharsets.US_ASCII.equals(charset_)
+            || StandardCharsets.UTF_8.equals(charset_)
+            || StandardCharsets.ISO_8859_1.equals(charset_);
+    }
+
+    @Override
+    public int length() {
+        return _length;
+    }
+
+    @Override
+    public char charAt(int index_) {
+        if (index_ < 0 || index_ >= _length) {
+            throw new IndexOutOfBoundsException("Index: " + index_);
+        }
+        byte b = _bytes.get(_offset + index_);
+        if (b < 0) {
+            throw NON_ASCII;
+        }
+        return (char)b;
+    }
+
+    @Override
+    public CharSequence subSequence(int start_, int end_) {
+        if (start_ < 0 || start_ > end_ || end_ > _length) {
+            throw new IndexOutOfBoundsException("Range: " + start_ + "-" + end_);
+        }
+        return new AsciiSequence(_bytes, _offset + start_, end_ - start_);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[_length];
+        for (int i = 0; i < _length; ++i) {
+            bytes[i] = _bytes.get(_offset + i);
+            if (bytes[i] < 0) {
+                throw NON_ASCII;
+            }
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -1,5 +1,7 @@
 package mini.java.lex;
 
+import mini.java.fa.CharSet;
+
 public class CharLiteralMatcher implements IMatcher {
     
     private final String _type;
@@ -15,21 +17,26 @@ public class CharLiteralMatcher implements IMatcher {
         return _type;
     }
 
+    @Override
+    public CharSet getStartSet() {
+        return new CharSet(_ch);
+    }
+
     @Override
     public String match(String input_) {
-        if (input_.length() <= 0) {
-            return null;
+        int len = match(input_, 0);
+        return (len >= 0)
+            ? input_.substring(0, len) : null;
+    }
+
+    @Override
+    public int match(CharSequence input_, int offset_) {
+        if (offset_ >= input_.length()) {
+            return -1;
         }
         
-        char ch = input_.charAt(0);
-        if (ch == _ch)
-        {
-            return "" + ch;
-        }
-        else
-        {
-            return null;
-        }
+        char ch = input_.charAt(offset_);
+        return (ch == _ch) ? 1 : -1;
     }
 
 }
@@ -1,5 +1,7 @@
 package mini.java.lex;
 
+import mini.java.fa.CharSet;
+
 public class CharRangeMatcher implements IMatcher {
     
     private final String _type;
@@ -17,21 +19,26 @@ public class CharRangeMatcher implements IMatcher {
         return _type;
     }
 
+    @Override
+    public CharSet getStartSet() {
+        return CharSet.range(_start, _end);
+    }
+
     @Override
     public String match(String input_) {
-        if (input_.length() <= 0) {
-            return null;
+        int len = match(input_, 0);
+        return (len >= 0)
+            ? input_.substring(0, len) : null;
+    }
+
+    @Override
+    public int match(CharSequence input_, int offset_) {
+        if (offset_ >= input_.length()) {
+            return -1;
         }
         
-        char ch = input_.charAt(0);
-        if (ch >= _start && ch <= _end)
-        {
-            return "" + ch;
-        }
-        else
-        {
-            return null;
-        }
+        char ch = input_.charAt(offset_);
+        return (ch >= _start && ch <= _end) ? 1 : -1;
     }
 
 }
@@ -1,48 +1,88 @@
 package mini.java.lex;
 
-import mini.java.fa.AcceptableNFAState;
+import mini.java.fa.CharSet;
+import mini.java.fa.CompiledDFA;
+import mini.java.fa.LazyDFA;
 import mini.java.fa.NFAState;
 
 public class FAMatcher implements IMatcher {
     
     private final String _type;
-    private final NFAState _fa;
+    private NFAState _fa;           // thawed on demand if built from a CompiledDFA
+    private final CompiledDFA _dfa; // what we actually run...
+    private final LazyDFA _lazy;    // ...or this one, in lazy mode
     
     
     public FAMatcher(String type_, NFAState fa_) {
+        this(type_, fa_, false);
+    }
+    
+    /**
+     * Constructor. In lazy mode the automaton may be an NFA; its DFA states
+     * are built as the input reaches them instead of all up front.
+     */
+    public FAMatcher(String type_, NFAState fa_, boolean lazy_) {
         _type = type_;
         _fa = fa_;
+        _dfa = lazy_ ? null : CompiledDFA.freeze(fa_);
+        _lazy = lazy_ ? new LazyDFA(fa_) : null;
+    }
+    
+    /**
+     * Constructor. Runs the given DFA as is, e.g. one loaded from a
+     * DFASnapshot.
+     */
+    public FAMatcher(String type_, CompiledDFA dfa_) {
+        _type = type_;
+        _dfa = dfa_;
+        _lazy = null;
     }
 
     @Override
     public String getType() {
         return _type;
     }
+    
+    /**
+     * Returns the automaton the matcher runs on.
+     */
+    public synchronized NFAState getAutomaton() {
+        if (_fa == null) {
+            _fa = _dfa.toNFAState();
+        }
+        return _fa;
+    }
+    
+    /**
+     * Returns the frozen DFA the matcher runs on. Null in lazy mode.
+     */
+    public CompiledDFA getDFA() {
+        return _dfa;
+    }
+    
+    public boolean isLazy() {
+        return _lazy != null;
+    }
+    
+    @Override
+    public CharSet getStartSet() {
+        return (_lazy != null) ? _lazy.getStartSet() : _dfa.getStartSet();
+    }
 
     @Override
     public String match(String input_) {
         if (input_ == null) {
             return null;
         }
-        NFAState curState = _fa;
-        String match =
-            (curState instanceof AcceptableNFAState)
-                ? "" : null;
-        StringBuilder buf = new StringBuilder();
-        
-        for (Character c : input_.toCharArray()) {
-            buf.append(c);
-            curState = curState.getState(c.toString());
-            
-            if (curState == null) {
-                break;
-            }
-            
-            if (curState instanceof AcceptableNFAState) {
-                match = buf.toString();
-            }
-        }
-        return match;
+        int len = match(input_, 0);
+        return (len >= 0)
+            ? input_.substring(0, len) : null;
+    }
+
+    @Override
+    public int match(CharSequence input_, int offset_) {
+        return (_lazy != null)
+            ? _lazy.match(input_, offset_) : _dfa.match(input_, offset_);
     }
 
 }
@@ -1,5 +1,7 @@
 package mini.java.lex;
 
+import mini.java.fa.CharSet;
+
 /**
  * Matchers serve as the actual specifications for tokens. It
  * provides method for extracting tokens from input strings.
@@ -13,6 +15,26 @@ public interface IMatcher {
      */
     public String match(String input_);
     
+    /**
+     * Returns the length of the matching substring starting at the given
+     * offset of the input. -1 if no matching. The default implementation
+     * falls back to match(String), which copies the remaining input;
+     * matchers used on large inputs should override it.
+     */
+    public default int match(CharSequence input_, int offset_) {
+        String match = match(
+                input_.subSequence(offset_, input_.length()).toString());
+        return (match != null) ? match.length() : -1;
+    }
+    
+    /**
+     * Returns the chars that a non-empty match can start with. Null if
+     * unknown, which is the default; such matchers are tried everywhere.
+     */
+    public default CharSet getStartSet() {
+        return null;
+    }
+    
     /**
      * Returns the token type supported by the matcher.
      */
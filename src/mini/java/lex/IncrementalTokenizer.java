@@ -0,0 +1,217 @@
+package mini.java.lex;
+
+import java.util.Arrays;
+
+import mini.java.syntax.TokenBuffer;
+
+/**
+ * Keeps the tokens of a text up to date as it's edited, e.g. in an editor.
+ * For every token it also records how far its matchers read past its start.
+ * An edit therefore only re-lexes from the first token that read into the
+ * edited range, and it stops as soon as a token starts where an old one
+ * after the edit did. From there on the old tokens are still right: a
+ * token only depends on where it starts and on the text it reads.
+ *
+ * All the tokens are kept, the skipped ones included, with the matcher
+ * indexes as their kinds. The text and the TokenBuffer are live: they change
+ * with every edit.
+ *
+ * Only the lexing is incremental. The text is a plain StringBuilder and the
+ * tokens keep absolute starts, so every edit still moves the text after it
+ * and shifts the starts of the tokens after it: a copy linear in the size of
+ * the tail, if a cheap one. That's fine for source files, but no gap buffer
+ * or relative offsets keep large ones from paying it on every keystroke.
+ */
+public final class IncrementalTokenizer {
+    /**
+     * The tokens replaced by an edit: getRemoved() old ones from getIndex()
+     * on were replaced by getInserted() new ones.
+     */
+    public static final class Change {
+        private final int _index;
+        private final int _removed;
+        private final int _inserted;
+
+        Change(int index_, int removed_, int inserted_) {
+            _index = index_;
+            _removed = removed_;
+            _inserted = inserted_;
+        }
+
+        public int getIndex() {
+            return _index;
+        }
+
+        public int getRemoved() {
+            return _removed;
+        }
+
+        public int getInserted() {
+            return _inserted;
+        }
+
+        @Override
+        public String toString() {
+            return "Change<" + _index + ", -" + _removed + ", +" + _inserted + ">";
+        }
+    }
+
+    /**
+     * The text as seen by the matchers. Records the highest index they read.
+     */
+    private final class Tracker implements CharSequence {
+        private int _maxRead;
+
+        @Override
+        public int length() {
+            return _text.length();
+        }
+
+        @Override
+        public char charAt(int index_) {
+            if (index_ > _maxRead) {
+                _maxRead = index_;
+            }
+            return _text.charAt(index_);
+        }
+
+        @Override
+        public CharSequence subSequence(int start_, int end_) {
+            if (end_ - 1 > _maxRead) {
+                _maxRead = end_ - 1;
+            }
+            return _text.subSequence(start_, end_);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    private final Tokenizer     _tokenizer;
+    private final String[]      _types;
+    private final StringBuilder _text = new StringBuilder();
+    private final Tracker       _tracker = new Tracker();
+    private final TokenBuffer   _tokens;
+    private int[]               _reads = new int[16]; // chars read from the start, by token
+    private int                 _maxAhead; // the most any token read past its end
+
+    public IncrementalTokenizer(Tokenizer tokenizer_, CharSequence text_) {
+        _tokenizer = tokenizer_;
+        _types = tokenizer_.getTypes();
+        _tokens = new TokenBuffer(_text, _types);
+        edit(0, 0, text_);
+    }
+
+    public CharSequence getText() {
+        return _text;
+    }
+
+    public TokenBuffer getTokens() {
+        return _tokens;
+    }
+
+    /**
+     * Replaces removed_ chars at the given offset with the inserted text and
+     * re-lexes what it takes. On an invalid token an IllegalArgumentException
+     * is thrown, as by Tokenizer.tokenize(), and nothing is changed.
+     */
+    public Change edit(int offset_, int removed_, CharSequence inserted_) {
+        if (offset_ < 0 || removed_ < 0 || offset_ + removed_ > _text.length()) {
+            throw new IndexOutOfBoundsException(
+                    "Edit: " + offset_ + "+" + removed_ + ", Length: " + _text.length());
+        }
+        int first = findFirst(offset_);
+        int size = _tokens.size();
+        int pos = (first < size) ? _tokens.getStart(first)
+            : (size > 0) ? _tokens.getStart(size - 1) + _tokens.getLength(size - 1) : 0;
+
+        String removed = _text.substring(offset_, offset_ + removed_);
+        _text.replace(offset_, offset_ + removed_, inserted_.toString());
+        int inserted = inserted_.length(), shift = inserted - removed_;
+
+        TokenBuffer fresh = new TokenBuffer(_text, _types);
+        int[] reads = new int[16];
+        int[] index = new int[1];
+        int to;
+        try {
+            while (true) {
+                if (pos >= offset_ + inserted) {
+                    // back in sync with the old tokens?
+                    int j = _tokens.find(pos - shift);
+                    if (j >= first) {
+                        to = j;
+                        break;
+                    }
+                }
+                if (pos >= _text.length()) {
+                    to = size;
+                    break;
+                }
+
+                _tracker._maxRead = -1;
+                int len = _tokenizer.match(_tracker, pos, index);
+                if (len == 0) {
+                    throw new IllegalArgumentException("Invalid token found at: "
+                            + _text.subSequence(pos, _text.length()));
+                }
+                // reaching the end counts as reading past it, as appending
+                // to the text may change the token
+                int read = (_tracker._maxRead >= _text.length() - 1)
+                    ? _text.length() + 1 - pos : Math.max(len, _tracker._maxRead + 1 - pos);
+                if (fresh.size() == reads.length) {
+                    reads = Arrays.copyOf(reads, 2 * reads.length);
+                }
+                reads[fresh.size()] = read;
+                fresh.add(index[0], pos, len);
+                _maxAhead = Math.max(_maxAhead, read - len);
+                pos += len;
+            }
+        } catch (RuntimeException ex_) {
+            _text.replace(offset_, offset_ + inserted, removed);
+            throw ex_;
+        }
+
+        // splice the fresh tokens in, with their reads
+        int count = size - (to - first) + fresh.size();
+        if (count > _reads.length) {
+            _reads = Arrays.copyOf(_reads, Math.max(count, 2 * _reads.length));
+        }
+        System.arraycopy(_reads, to, _reads, first + fresh.size(), size - to);
+        System.arraycopy(reads, 0, _reads, first, fresh.size());
+        _tokens.replace(first, to, fresh, shift);
+
+        return new Change(first, to - first, fresh.size());
+    }
+
+    /**
+     * Helper method used to find the first token that read anything at or
+     * after the given offset. Only the tokens ending within _maxAhead chars
+     * before the offset may have.
+     */
+    private int findFirst(int offset_) {
+        // the last token starting at or before the offset
+        int lo = 0, hi = _tokens.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (_tokens.getStart(mid) <= offset_) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+
+        int ret = lo; // the first one after the offset
+        for (int i = lo - 1; i >= 0; --i) {
+            int start = _tokens.getStart(i);
+            if (start + _tokens.getLength(i) + _maxAhead <= offset_) {
+                break;
+            }
+            if (start + _reads[i] > offset_) {
+                ret = i;
+            }
+        }
+        return ret;
+    }
+}
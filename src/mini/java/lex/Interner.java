@@ -0,0 +1,137 @@
+package mini.java.lex;
+
+import java.util.Arrays;
+
+import mini.java.syntax.TokenBuffer;
+
+/**
+ * Hands out dense int ids for names, e.g. the identifiers of a compilation.
+ * Names can be looked up straight from the source text; a String is only
+ * created the first time a name is seen. Meant to live as long as one
+ * compilation, so it's not thread-safe.
+ */
+public final class Interner {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[]    _table = new int[INITIAL_CAPACITY]; // id + 1; 0 if empty
+    private int[]    _hashes = new int[INITIAL_CAPACITY]; // by id
+    private String[] _names = new String[INITIAL_CAPACITY]; // by id
+    private int      _size;
+
+    /**
+     * Returns the id of the name input_[start_, end_), creating it if new.
+     */
+    public int intern(CharSequence input_, int start_, int end_) {
+        int hash = 0;
+        for (int i = start_; i < end_; ++i) {
+            hash = 31 * hash + input_.charAt(i); // as String.hashCode()
+        }
+        return intern(input_, start_, end_, hash, null);
+    }
+
+    /**
+     * Returns the id of the given name, creating it if new. The hash is the
+     * one the String caches, so looking the same String up again doesn't
+     * go over its chars, and a new name is kept as is rather than copied.
+     */
+    public int intern(String name_) {
+        return intern(name_, 0, name_.length(), name_.hashCode(), name_);
+    }
+
+    /**
+     * Interns the text of the tokens of the given kind, straight from the
+     * source of the buffer. Returns the ids by token index; -1 for the
+     * tokens of the other kinds.
+     */
+    public int[] intern(TokenBuffer tokens_, int kind_) {
+        CharSequence source = tokens_.getSource();
+        int[] ret = new int[tokens_.size()];
+        for (int i = 0; i < ret.length; ++i) {
+            if (tokens_.getKind(i) == kind_) {
+                int start = tokens_.getStart(i);
+                ret[i] = intern(source, start, start + tokens_.getLength(i));
+            } else {
+                ret[i] = -1;
+            }
+        }
+        return ret;
+    }
+
+    public String getName(int id_) {
+        if (id_ < 0 || id_ >= _size) {
+            throw new IndexOutOfBoundsException("Id: " + id_ + ", Size: " + _size);
+        }
+        return _names[id_];
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    /**
+     * Helper method used to look the name up by its hash; name_ is the
+     * String to keep if it's new, null to create it from the input.
+     */
+    private int intern(CharSequence input_, int start_, int end_, int hash_, String name_) {
+        int mask = _table.length - 1;
+        for (int slot = mix(hash_) & mask; ; slot = (slot + 1) & mask) {
+            int id = _table[slot] - 1;
+            if (id < 0) {
+                id = add((name_ != null) ? name_ : input_.subSequence(start_, end_).toString(), hash_);
+                _table[slot] = id + 1;
+                if (2 * _size > _table.length) {
+                    rehash();
+                }
+                return id;
+            }
+            if (_hashes[id] == hash_ && matches(_names[id], input_, start_, end_)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Helper method used to spread the hashes over the slots.
+     */
+    private static int mix(int hash_) {
+        return hash_ ^ (hash_ >>> 16);
+    }
+
+    private static boolean matches(String name_, CharSequence input_, int start_, int end_) {
+        if (name_.length() != end_ - start_) {
+            return false;
+        }
+        for (int i = 0; i < name_.length(); ++i) {
+            if (name_.charAt(i) != input_.charAt(start_ + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Helper method used to append a new name; returns its id.
+     */
+    private int add(String name_, int hash_) {
+        if (_size == _names.length) {
+            _names = Arrays.copyOf(_names, 2 * _size);
+            _hashes = Arrays.copyOf(_hashes, 2 * _size);
+        }
+        _names[_size] = name_;
+        _hashes[_size] = hash_;
+        return _size++;
+    }
+
+    private void rehash() {
+        int[] table = new int[2 * _table.length];
+        int mask = table.length - 1;
+        for (int id = 0; id < _size; ++id) {
+            int slot = mix(_hashes[id]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+        _table = table;
+    }
+}
@@ -1,12 +1,30 @@
 package mini.java.lex;
 
 import mini.java.RegexCompiler;
+import mini.java.fa.CompiledDFA;
 
 public class RegexMatcher extends FAMatcher {    
     private final String _regex;
 
     public RegexMatcher(String type_, String regex_) {
-        super(type_, RegexCompiler.compile(regex_));
+        this(type_, regex_, false);
+    }
+
+    /**
+     * Constructor. In lazy mode the regex is only compiled into an NFA.
+     */
+    public RegexMatcher(String type_, String regex_, boolean lazy_) {
+        super(type_, lazy_ ? RegexCompiler.compileNFA(regex_) : RegexCompiler.compile(regex_),
+                lazy_);
+        _regex = regex_;
+    }
+
+    /**
+     * Constructor. The regex isn't compiled; the given DFA, e.g. one loaded
+     * from a DFASnapshot, is assumed to be its compiled form.
+     */
+    public RegexMatcher(String type_, String regex_, CompiledDFA dfa_) {
+        super(type_, dfa_);
         _regex = regex_;
     }
 
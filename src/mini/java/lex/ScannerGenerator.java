@@ -0,0 +1,376 @@
+package mini.java.lex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mini.java.fa.CharSet;
+import mini.java.fa.CompiledDFA;
+
+/**
+ * Generates the Java source of a standalone scanner class from a Tokenizer
+ * made of RegexMatchers, or from a CompiledDFA. The generated class has no
+ * dependency on this project; its transitions are compiled into
+ * switches, and the other tables are packed into string constants, so no
+ * regex is compiled when the application starts.
+ *
+ * The generated class is used as:
+ *
+ *   Scanner scanner = new Scanner(input);
+ *   while (scanner.next()) {
+ *       ... scanner.getType(), scanner.getText(), scanner.getOffset() ...
+ *   }
+ *
+ * It tokenizes exactly as Tokenizer.tokenize() does: the longest match
+ * wins, ties go to the matcher registered first, the tokens of the skipped
+ * matchers are left out, and an IllegalArgumentException is thrown at the
+ * first invalid token. getTrivia() returns the text of the skipped tokens
+ * before the current one, as Terminal.getTrivia() does in keep-trivia mode.
+ */
+public final class ScannerGenerator {
+    // above this estimated size in bytes, a table is emitted instead of
+    // the switches, which would otherwise hit the 64KB limit of a method
+    private static final int MAX_SWITCH_SIZE = 48 * 1024;
+
+    // chars per string literal; a literal takes at most 64KB in the class file
+    private static final int CHUNK = 16 * 1024;
+
+    private static final int ASCII = 128;
+
+    private ScannerGenerator() {
+    }
+
+    /**
+     * Generates the scanner for the given tokenizer, whose matchers must
+     * all be RegexMatchers. The skipped ones stay skipped.
+     */
+    public static String generate(Tokenizer tokenizer_, String package_, String className_) {
+        IMatcher[] matchers = tokenizer_.getMatchers();
+        if (matchers.length == 0) {
+            throw new IllegalArgumentException("No matchers to generate");
+        }
+        Tokenizer combined = new Tokenizer();
+        String[] types = new String[matchers.length];
+        boolean[] skips = new boolean[matchers.length];
+        for (int i = 0; i < matchers.length; ++i) {
+            if (!(matchers[i] instanceof RegexMatcher)) {
+                throw new IllegalArgumentException(
+                        "Only RegexMatchers can be generated: " + matchers[i].getType());
+            }
+            combined.addMatcher(matchers[i]);
+            types[i] = matchers[i].getType();
+            skips[i] = tokenizer_.isSkipped(i);
+        }
+        combined.setCombined(true); // the tags are the matcher indexes
+        return generate(combined.getCombinedDFA(), types, skips, package_, className_);
+    }
+
+    /**
+     * Generates the scanner for the given DFA. The acceptable states tagged
+     * with i produce tokens of types_[i]; the untagged ones, e.g. from
+     * Helper.collapse(), produce tokens of types_[0]. The package may be
+     * null for the default package.
+     */
+    public static String generate(CompiledDFA dfa_, String[] types_,
+            String package_, String className_)
+    {
+        return generate(dfa_, types_, new boolean[types_.length], package_, className_);
+    }
+
+    /**
+     * Generates the scanner for the given DFA, as above; the tokens of the
+     * types_[i] with skips_[i] set are left out.
+     */
+    public static String generate(CompiledDFA dfa_, String[] types_, boolean[] skips_,
+            String package_, String className_)
+    {
+        if (skips_.length != types_.length) {
+            throw new IllegalArgumentException("One skip flag per type expected");
+        }
+        int stateCount = dfa_.getStateCount();
+        int classCount = dfa_.getClassCount();
+        CharSet[] chars = dfa_.getCharSets();
+
+        // the class map: a table for ASCII, range starts for the rest
+        char[] ascii = new char[ASCII];
+        List<Character> starts = new ArrayList<Character>();
+        List<Character> startClasses = new ArrayList<Character>();
+        int[] classOf = new int[Character.MAX_VALUE + 1];
+        for (int k = 1; k < classCount; ++k) {
+            for (int r = 0; r < chars[k].getRangeCount(); ++r) {
+                for (int c = chars[k].getFrom(r); c <= chars[k].getTo(r); ++c) {
+                    classOf[c] = k;
+                }
+            }
+        }
+        for (int c = 0; c <= Character.MAX_VALUE; ++c) {
+            if (c < ASCII) {
+                ascii[c] = (char)classOf[c];
+            } else if (c == ASCII || classOf[c] != classOf[c - 1]) {
+                starts.add((char)c);
+                startClasses.add((char)classOf[c]);
+            }
+        }
+
+        // state -> index of the type + 1; 0 if not acceptable
+        char[] accept = new char[stateCount];
+        int size = 0; // of the switches: a tableswitch, plus a return per target
+        for (int i = 0; i < stateCount; ++i) {
+            if (dfa_.isAcceptable(i)) {
+                accept[i] = (char)(Math.max(dfa_.getTag(i), 0) + 1);
+            }
+            Set<Integer> targets = new HashSet<Integer>();
+            for (int k = 1; k < classCount; ++k) {
+                if (dfa_.getTarget(i, k) != CompiledDFA.DEAD) {
+                    targets.add(dfa_.getTarget(i, k));
+                }
+            }
+            if (!targets.isEmpty()) {
+                size += 4 * classCount + 8 * targets.size() + 16;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("// Generated by ").append(ScannerGenerator.class.getName())
+            .append("; do not edit.\n");
+        if (package_ != null) {
+            sb.append("package ").append(package_).append(";\n");
+        }
+        sb.append("\n");
+        sb.append("public final class ").append(className_).append(" {\n");
+        sb.append("    /**\n");
+        sb.append("     * The token types.\n");
+        sb.append("     */\n");
+        sb.append("    public static final String[] TYPES = {\n");
+        for (String type : types_) {
+            sb.append("        ").append(quote(type)).append(",\n");
+        }
+        sb.append("    };\n\n");
+        sb.append("    // whether the tokens of the types are left out, by type\n");
+        sb.append("    private static final boolean[] SKIPS = {");
+        for (int i = 0; i < skips_.length; ++i) {
+            sb.append((i % 8 == 0) ? "\n        " : " ").append(skips_[i]).append(",");
+        }
+        sb.append("\n    };\n\n");
+
+        sb.append("    // char -> class, for the ASCII chars\n");
+        appendTable(sb, "ASCII", ascii);
+        sb.append("    // the sorted range starts of the other chars, and their classes\n");
+        appendTable(sb, "STARTS", toArray(starts));
+        appendTable(sb, "START_CLASSES", toArray(startClasses));
+        sb.append("    // state -> index of the accepted type + 1; 0 if not acceptable\n");
+        appendTable(sb, "ACCEPT", accept);
+
+        boolean switches = size <= MAX_SWITCH_SIZE;
+        if (!switches) {
+            char[] table = new char[stateCount * classCount];
+            for (int i = 0; i < stateCount; ++i) {
+                for (int k = 0; k < classCount; ++k) {
+                    table[i * classCount + k] = (char)(dfa_.getTarget(i, k) + 1);
+                }
+            }
+            sb.append("    // [state * CLASSES + class] -> target state + 1; 0 if none\n");
+            sb.append("    private static final int CLASSES = ").append(classCount).append(";\n");
+            appendTable(sb, "TABLE", table);
+        }
+
+        sb.append("    private final CharSequence _input;\n");
+        sb.append("    private int _trivia;\n");
+        sb.append("    private int _offset;\n");
+        sb.append("    private int _end;\n");
+        sb.append("    private int _type = -1;\n");
+        sb.append("\n");
+        sb.append("    public ").append(className_).append("(CharSequence input_) {\n");
+        sb.append("        _input = input_;\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Moves to the next token that isn't skipped. False at the end of\n");
+        sb.append("     * the input.\n");
+        sb.append("     */\n");
+        sb.append("    public boolean next() {\n");
+        sb.append("        int len = _input.length();\n");
+        sb.append("        _trivia = _end;\n");
+        sb.append("        while (true) {\n");
+        sb.append("            _offset = _end;\n");
+        sb.append("            if (_offset >= len) {\n");
+        sb.append("                _type = -1;\n");
+        sb.append("                return false;\n");
+        sb.append("            }\n");
+        sb.append("\n");
+        sb.append("            int state = 0, longest = 0, type = -1;\n");
+        sb.append("            for (int i = _offset; i < len; ++i) {\n");
+        sb.append("                state = next(state, charClass(_input.charAt(i)));\n");
+        sb.append("                if (state < 0) {\n");
+        sb.append("                    break;\n");
+        sb.append("                }\n");
+        sb.append("                if (ACCEPT[state] != 0) {\n");
+        sb.append("                    longest = i - _offset + 1;\n");
+        sb.append("                    type = ACCEPT[state] - 1;\n");
+        sb.append("                }\n");
+        sb.append("            }\n");
+        sb.append("            if (type < 0) {\n");
+        sb.append("                throw new IllegalArgumentException(\"Invalid token found at: \"\n");
+        sb.append("                        + _input.subSequence(_offset, len));\n");
+        sb.append("            }\n");
+        sb.append("            _end = _offset + longest;\n");
+        sb.append("            if (!SKIPS[type]) {\n");
+        sb.append("                _type = type;\n");
+        sb.append("                return true;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    public String getType() {\n");
+        sb.append("        return (_type >= 0) ? TYPES[_type] : null;\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    public String getText() {\n");
+        sb.append("        return (_type >= 0) ? _input.subSequence(_offset, _end).toString() : null;\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Returns the text of the skipped tokens before the current one;\n");
+        sb.append("     * null if none.\n");
+        sb.append("     */\n");
+        sb.append("    public String getTrivia() {\n");
+        sb.append("        return (_type >= 0 && _trivia < _offset)\n");
+        sb.append("            ? _input.subSequence(_trivia, _offset).toString() : null;\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    public int getOffset() {\n");
+        sb.append("        return _offset;\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static int charClass(char ch_) {\n");
+        sb.append("        if (ch_ < ").append(ASCII).append(") {\n");
+        sb.append("            return ASCII[ch_];\n");
+        sb.append("        }\n");
+        sb.append("        int lo = 0, hi = STARTS.length - 1;\n");
+        sb.append("        while (lo < hi) {\n");
+        sb.append("            int mid = (lo + hi + 1) >>> 1;\n");
+        sb.append("            if (STARTS[mid] <= ch_) {\n");
+        sb.append("                lo = mid;\n");
+        sb.append("            } else {\n");
+        sb.append("                hi = mid - 1;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return START_CLASSES[lo];\n");
+        sb.append("    }\n");
+        sb.append("\n");
+
+        if (switches) {
+            appendSwitches(sb, dfa_);
+        } else {
+            sb.append("    private static int next(int state_, int class_) {\n");
+            sb.append("        return TABLE[state_ * CLASSES + class_] - 1;\n");
+            sb.append("    }\n");
+            sb.append("\n");
+        }
+
+        sb.append("    private static char[] unpack(String... chunks_) {\n");
+        sb.append("        StringBuilder sb = new StringBuilder();\n");
+        sb.append("        for (String chunk : chunks_) {\n");
+        sb.append("            sb.append(chunk);\n");
+        sb.append("        }\n");
+        sb.append("        return sb.toString().toCharArray();\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Helper method used to emit the transitions as a switch on the state,
+     * calling a method per state that switches on the class. Classes with
+     * the same target share their case. The methods are kept small, as
+     * the JIT doesn't compile the huge ones.
+     */
+    private static void appendSwitches(StringBuilder sb_, CompiledDFA dfa_) {
+        StringBuilder states = new StringBuilder();
+        sb_.append("    private static int next(int state_, int class_) {\n");
+        sb_.append("        switch (state_) {\n");
+        for (int i = 0; i < dfa_.getStateCount(); ++i) {
+            Map<Integer, List<Integer>> targets = new LinkedHashMap<Integer, List<Integer>>();
+            for (int k = 1; k < dfa_.getClassCount(); ++k) {
+                int target = dfa_.getTarget(i, k);
+                if (target != CompiledDFA.DEAD) {
+                    if (!targets.containsKey(target)) {
+                        targets.put(target, new ArrayList<Integer>());
+                    }
+                    targets.get(target).add(k);
+                }
+            }
+            if (targets.isEmpty()) {
+                continue;
+            }
+
+            sb_.append("        case ").append(i).append(": return state").append(i)
+                .append("(class_);\n");
+
+            states.append("    private static int state").append(i).append("(int class_) {\n");
+            states.append("        switch (class_) {\n");
+            for (Map.Entry<Integer, List<Integer>> entry : targets.entrySet()) {
+                states.append("       ");
+                for (int k : entry.getValue()) {
+                    states.append(" case ").append(k).append(":");
+                }
+                states.append(" return ").append(entry.getKey()).append(";\n");
+            }
+            states.append("        default: return -1;\n");
+            states.append("        }\n");
+            states.append("    }\n");
+            states.append("\n");
+        }
+        sb_.append("        default: return -1;\n");
+        sb_.append("        }\n");
+        sb_.append("    }\n");
+        sb_.append("\n");
+        sb_.append(states);
+    }
+
+    /**
+     * Helper method used to emit a char[] constant packed into strings.
+     */
+    private static void appendTable(StringBuilder sb_, String name_, char[] values_) {
+        sb_.append("    private static final char[] ").append(name_).append(" = unpack(");
+        for (int from = 0; from < values_.length || from == 0; from += CHUNK) {
+            int to = Math.min(values_.length, from + CHUNK);
+            sb_.append((from > 0) ? ",\n            " : "\n            ");
+            sb_.append(quote(new String(values_, from, to - from)));
+        }
+        sb_.append(");\n\n");
+    }
+
+    private static char[] toArray(List<Character> list_) {
+        char[] ret = new char[list_.size()];
+        for (int i = 0; i < ret.length; ++i) {
+            ret[i] = list_.get(i);
+        }
+        return ret;
+    }
+
+    /**
+     * Helper method used to create a Java string literal. Octal escapes are
+     * used for the control chars, since the unicode escapes of the line
+     * terminators are translated before the source is even tokenized.
+     */
+    static String quote(String s_) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s_.length(); ++i) {
+            char ch = s_.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                sb.append('\\').append(ch);
+            } else if (ch >= 0x20 && ch < 0x7f) {
+                sb.append(ch);
+            } else if (ch < 0x100) {
+                sb.append(String.format("\\%03o", (int)ch));
+            } else {
+                sb.append(String.format("\\u%04x", (int)ch));
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,212 @@
+package mini.java.lex;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import mini.java.syntax.Terminal;
+
+/**
+ * Pulls tokens lazily out of a Reader, through a refillable buffer. Only
+ * the unconsumed part of the input is kept, and the buffer only grows when
+ * a single token (plus the chars the matchers looked at past its end)
+ * doesn't fit, so the memory use is bounded by the longest token rather
+ * than by the input.
+ *
+ * The skipped tokens are consumed as by Tokenizer.tokenize(). A token is
+ * only returned once the matchers have stopped before the end of
+ * the buffered input, or the input is exhausted; so a token straddling a
+ * refill is the same as with Tokenizer.tokenize(). Matchers relying on the
+ * default IMatcher.match(CharSequence, int) read the whole remaining input
+ * and therefore defeat the buffering.
+ */
+public final class TokenStream implements Iterator<Terminal> {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Tokenizer _tokenizer;
+    private final Reader    _reader;
+    private final Window    _window = new Window();
+    private char[]          _buffer;
+    private int             _start;  // the unconsumed chars are [_start, _end)
+    private int             _end;
+    private long            _offset; // of _start in the whole input
+    private boolean         _eof;
+    private Terminal        _next;   // peeked by hasNext()
+
+    /**
+     * The unconsumed chars, as seen by the matchers. Records the highest
+     * index they read, to tell whether more input could change the match.
+     */
+    private final class Window implements CharSequence {
+        private int _maxRead;
+
+        @Override
+        public int length() {
+            return _end - _start;
+        }
+
+        @Override
+        public char charAt(int index_) {
+            if (index_ < 0 || index_ >= length()) {
+                throw new IndexOutOfBoundsException("Index: " + index_);
+            }
+            if (index_ > _maxRead) {
+                _maxRead = index_;
+            }
+            return _buffer[_start + index_];
+        }
+
+        @Override
+        public CharSequence subSequence(int start_, int end_) {
+            if (start_ < 0 || start_ > end_ || end_ > length()) {
+                throw new IndexOutOfBoundsException("Range: " + start_ + "-" + end_);
+            }
+            if (end_ - 1 > _maxRead) {
+                _maxRead = end_ - 1;
+            }
+            return new String(_buffer, _start + start_, end_ - start_);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length()).toString();
+        }
+    }
+
+    public TokenStream(Tokenizer tokenizer_, Reader reader_) {
+        this(tokenizer_, reader_, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructor. The buffer starts with the given size and only grows for
+     * the tokens that don't fit.
+     */
+    public TokenStream(Tokenizer tokenizer_, Reader reader_, int bufferSize_) {
+        if (bufferSize_ < 1) {
+            throw new IllegalArgumentException("Invalid buffer size: " + bufferSize_);
+        }
+        _tokenizer = tokenizer_;
+        _reader = reader_;
+        _buffer = new char[bufferSize_];
+    }
+
+    public TokenStream(Tokenizer tokenizer_, ReadableByteChannel channel_, Charset charset_) {
+        this(tokenizer_, Channels.newReader(channel_, charset_.newDecoder(), -1));
+    }
+
+    /**
+     * Returns the next token; null at the end of the input. An
+     * IllegalArgumentException is thrown for the invalid tokens, with the
+     * buffered part of the remaining input.
+     */
+    public Terminal nextToken() throws IOException {
+        if (_next != null) {
+            Terminal ret = _next;
+            _next = null;
+            return ret;
+        }
+        int[] index = new int[1];
+        StringBuilder trivia = null;
+
+        while (true) {
+            if (_start == _end && !fill()) {
+                return null; // trailing skipped tokens are dropped
+            }
+            _window._maxRead = -1;
+            int length = _tokenizer.match(_window, 0, index);
+
+            if (_eof || _window._maxRead < _window.length() - 1) {
+                // the matchers stopped before the end; more input won't matter
+                if (length == 0) {
+                    throw new IllegalArgumentException("Invalid token found at: "
+                            + new String(_buffer, _start, _end - _start));
+                }
+                int start = _start;
+                _start += length;
+                _offset += length;
+                if (!_tokenizer.isSkipped(index[0])) {
+                    return new Terminal(_tokenizer.getType(index[0]),
+                            new String(_buffer, start, length),
+                            (trivia != null) ? trivia.toString() : null);
+                }
+                if (_tokenizer.isKeepTrivia()) {
+                    if (trivia == null) {
+                        trivia = new StringBuilder();
+                    }
+                    trivia.append(_buffer, start, length);
+                }
+            } else {
+                fill();
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the next token in the whole input.
+     */
+    public long getOffset() {
+        return _offset - ((_next != null) ? _next.getData().length() : 0);
+    }
+
+    /**
+     * Returns the current size of the buffer.
+     */
+    int getBufferSize() {
+        return _buffer.length;
+    }
+
+    /**
+     * Helper method used to read more input after the unconsumed chars,
+     * which are moved to the front of the buffer first; the buffer is only
+     * grown if they already fill it. False at the end of the input.
+     */
+    private boolean fill() throws IOException {
+        if (_eof) {
+            return false;
+        }
+        if (_start > 0) {
+            System.arraycopy(_buffer, _start, _buffer, 0, _end - _start);
+            _end -= _start;
+            _start = 0;
+        }
+        if (_end == _buffer.length) {
+            _buffer = Arrays.copyOf(_buffer, 2 * _buffer.length);
+        }
+
+        int count = _reader.read(_buffer, _end, _buffer.length - _end);
+        if (count < 0) {
+            _eof = true;
+            return false;
+        }
+        _end += count;
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (_next == null) {
+            try {
+                _next = nextToken();
+            } catch (IOException ex_) {
+                throw new UncheckedIOException(ex_);
+            }
+        }
+        return _next != null;
+    }
+
+    @Override
+    public Terminal next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Terminal ret = _next;
+        _next = null;
+        return ret;
+    }
+}
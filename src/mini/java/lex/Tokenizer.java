@@ -1,63 +1,714 @@
 package mini.java.lex;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+import mini.java.fa.AcceptableNFAState;
+import mini.java.fa.CharSet;
+import mini.java.fa.CompiledDFA;
+import mini.java.fa.LazyDFA;
+import mini.java.fa.NFAState;
+import mini.java.fa.helper.Helper;
+import mini.java.syntax.RuleSet;
 import mini.java.syntax.Terminal;
+import mini.java.syntax.TokenBuffer;
 
 public final class Tokenizer implements ITokenizer {
+    // chars below this have their own slot in the first-char index
+    private static final int ASCII = 128;
+    
+    /**
+     * The smallest chunk tokenize(CharSequence, ForkJoinPool) splits the
+     * input into; smaller inputs are tokenized sequentially.
+     */
+    public static final int MIN_CHUNK_SIZE = 1 << 16;
+    
+    /**
+     * The size of the windows tokenize(File, Charset) maps files in, as a
+     * mapping can't exceed 2GB.
+     */
+    public static final int WINDOW_SIZE = 1 << 30;
+    
     // fields
-    private final List<IMatcher> _matchers;
+    private IMatcher[]  _matchers; // copy-on-write; never modified in place
+    private String[]    _types;    // of the matchers, by index; the same
+    private boolean[]   _skips;    // whether they are skipped, by index; the same
+    private boolean     _keepTrivia;
+    private long[][]    _firsts;   // first char -> bitmap of the candidate matchers
+    private boolean     _combined;
+    private boolean     _lazy;
+    private CompiledDFA _dfa;     // union of the RegexMatchers; combined mode only
+    private LazyDFA     _lazyDFA; // the same, in lazy mode
     
     public Tokenizer() {
-        _matchers = new LinkedList<IMatcher>();
+        _matchers = new IMatcher[0];
+        _types = new String[0];
+        _skips = new boolean[0];
+        _firsts = index(_matchers);
+    }
+    
+    /**
+     * Switches the combined mode on/off. In combined mode all RegexMatchers
+     * are collapsed into one DFA whose acceptable states are tagged with the
+     * index of the matcher they belong to, so all of them are run in a
+     * single pass per token. Ties are still decided by registration order.
+     */
+    public void setCombined(boolean combined_) {
+        _combined = combined_;
+        combine();
+    }
+    
+    public boolean isCombined() {
+        return _combined;
+    }
+    
+    /**
+     * Switches to the combined mode with the given DFA, e.g. one loaded from
+     * a DFASnapshot, instead of building it. It must have been built from
+     * the current matchers; see getCombinedDFA(). An IllegalArgumentException
+     * is thrown if any of its acceptable states isn't tagged with the index
+     * of a matcher, and nothing is changed.
+     */
+    public void setCombined(CompiledDFA dfa_) {
+        for (int s = 0; s < dfa_.getStateCount(); ++s) {
+            if (dfa_.isAcceptable(s) && (dfa_.getTag(s) < 0 || dfa_.getTag(s) >= _matchers.length)) {
+                throw new IllegalArgumentException("DFA doesn't fit the matchers: state " + s
+                        + " is tagged " + dfa_.getTag(s) + ", " + _matchers.length + " matchers");
+            }
+        }
+        _combined = true;
+        _lazy = false;
+        _dfa = dfa_;
+        _lazyDFA = null;
+    }
+    
+    /**
+     * Returns the DFA of the combined mode. Null if not combined or lazy.
+     */
+    public CompiledDFA getCombinedDFA() {
+        return _dfa;
+    }
+    
+    /**
+     * Switches the lazy mode on/off. In lazy mode the combined DFA is built
+     * on demand by a LazyDFA instead of all up front, so switching to the
+     * combined mode costs next to nothing. Only meaningful in combined mode.
+     */
+    public void setLazy(boolean lazy_) {
+        _lazy = lazy_;
+        combine();
+    }
+    
+    public boolean isLazy() {
+        return _lazy;
     }
 
     @Override
     public Terminal[] tokenize(String input_) {
-        List<Terminal> ret = new LinkedList<Terminal>();
-        Terminal token = null;
+        return tokenize((CharSequence)input_);
+    }
+    
+    /**
+     * Breaks the input into pieces in one linear pass. The input is never
+     * copied; each token only holds its own text.
+     */
+    public Terminal[] tokenize(CharSequence input_) {
+        List<Terminal> ret = new ArrayList<Terminal>();
+        scan(input_, ret, new StringBuilder(), new int[1]);
+        return ret.toArray(new Terminal[0]);
+    }
+    
+    /**
+     * Tokenizes the input in chunks, concurrently on the given pool. The
+     * result is the same as tokenize(input_). The input must be safe to
+     * read from several threads, as Strings are. In lazy mode the chunks
+     * share one LazyDFA, which only matches one at a time.
+     */
+    public Terminal[] tokenize(CharSequence input_, ForkJoinPool pool_) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE,
+                input_.length() / (4 * pool_.getParallelism()) + 1);
+        return tokenize(input_, pool_, chunkSize);
+    }
+    
+    /**
+     * A growable array of Terminals.
+     */
+    private static final class Terminals {
+        Terminal[] items = new Terminal[16];
+        int        size;
+        
+        void add(Terminal terminal_) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+            }
+            items[size++] = terminal_;
+        }
+        
+        void addAll(Terminals terminals_, int from_) {
+            int count = terminals_.size - from_;
+            if (size + count > items.length) {
+                items = Arrays.copyOf(items, Math.max(2 * items.length, size + count));
+            }
+            System.arraycopy(terminals_.items, from_, items, size, count);
+            size += count;
+        }
+    }
+    
+    /**
+     * The starts of the speculative tokens of a chunk and where the last one
+     * ends, and the Terminals of the ones that aren't skipped, with the
+     * indexes of their tokens.
+     */
+    private static final class Chunk {
+        final Terminals terminals = new Terminals();
+        int[]           starts = new int[16];
+        int             count;
+        int             end;
+        int[]           indexes = new int[16];
+        
+        /**
+         * Returns the index of the token starting at the given offset; -1
+         * if none.
+         */
+        int find(int offset_) {
+            int ret = Arrays.binarySearch(starts, 0, count, offset_);
+            return (ret >= 0) ? ret : -1;
+        }
+    }
+    
+    /**
+     * Each chunk is tokenized speculatively, as if a token started right at
+     * its beginning, and its Terminals are created right away by the same
+     * task. Since a token only depends on where it starts, the speculative
+     * tokens are the real ones from the first one that starts where the
+     * previous chunk's real tokens end. Stitching the chunks together thus
+     * only redoes the few tokens before that and copies the references to
+     * the rest; the first Terminal copied may need its trivia redone, as
+     * the skipped tokens before it may start in the previous chunk.
+     */
+    Terminal[] tokenize(final CharSequence input_, ForkJoinPool pool_, final int chunkSize_) {
+        final int length = input_.length();
+        int count = (length + chunkSize_ - 1) / chunkSize_;
+        if (count <= 1) {
+            return tokenize(input_);
+        }
+        final String[] types = _types;
+        final boolean[] skips = _skips;
+        final boolean keepTrivia = _keepTrivia;
         
-        while ((token = getToken(input_)) != null) {
-            ret.add(token);
+        List<ForkJoinTask<Chunk>> chunks = new ArrayList<ForkJoinTask<Chunk>>();
+        for (int k = 0; k < count; ++k) {
+            final int from = k * chunkSize_, to = Math.min(length, from + chunkSize_);
+            chunks.add(pool_.submit(new Callable<Chunk>() {
+                public Chunk call() {
+                    // the tokens starting in [from, to); up to the first
+                    // invalid one, which may well be a wrong guess
+                    Chunk ret = new Chunk();
+                    ret.end = from;
+                    int[] index = new int[1];
+                    int offset = from, trivia = -1, len; // no trivia for the first one
+                    while (offset < to && (len = match(input_, offset, index)) > 0) {
+                        if (!skips[index[0]]) {
+                            if (ret.terminals.size == ret.indexes.length) {
+                                ret.indexes = Arrays.copyOf(ret.indexes, 2 * ret.indexes.length);
+                            }
+                            ret.indexes[ret.terminals.size] = ret.count;
+                            ret.terminals.add(new Terminal(types[index[0]],
+                                    input_.subSequence(offset, offset + len).toString(),
+                                    (keepTrivia && trivia >= 0 && trivia < offset)
+                                        ? input_.subSequence(trivia, offset).toString() : null));
+                            trivia = offset + len;
+                        }
+                        if (ret.count == ret.starts.length) {
+                            ret.starts = Arrays.copyOf(ret.starts, 2 * ret.count);
+                        }
+                        ret.starts[ret.count++] = offset;
+                        offset += len;
+                        ret.end = offset;
+                    }
+                    return ret;
+                }
+            }));
+        }
+        
+        Terminals ret = new Terminals();
+        int[] index = new int[1];
+        int[] trivia = new int[1]; // the end of the last Terminal
+        int offset = 0;
+        for (int k = 0; k < count; ++k) {
+            Chunk chunk = chunks.get(k).join();
+            int to = Math.min(length, (k + 1) * chunkSize_);
+            while (offset < to) {
+                int i = chunk.find(offset);
+                if (i < 0) {
+                    offset = next(input_, offset, ret, trivia, index);
+                    continue;
+                }
+                
+                // in sync: the rest of the chunk is right
+                int terminals = chunk.terminals.size;
+                int j = Arrays.binarySearch(chunk.indexes, 0, terminals, i);
+                j = (j >= 0) ? j : -j - 1;
+                if (j < terminals) {
+                    int first = ret.size;
+                    ret.addAll(chunk.terminals, j);
+                    if (keepTrivia) {
+                        // its trivia in the chunk started before the sync
+                        Terminal terminal = ret.items[first];
+                        int start = chunk.starts[chunk.indexes[j]];
+                        ret.items[first] = new Terminal(terminal.getType(), terminal.getData(),
+                                (trivia[0] < start) ? input_.subSequence(trivia[0], start).toString() : null);
+                    }
+                    int last = chunk.indexes[terminals - 1];
+                    trivia[0] = (last + 1 < chunk.count) ? chunk.starts[last + 1] : chunk.end;
+                }
+                offset = chunk.end;
+                if (offset < to) {
+                    // the speculation stopped on an invalid token
+                    offset = next(input_, offset, ret, trivia, index);
+                }
+            }
+        }
+        return Arrays.copyOf(ret.items, ret.size);
+    }
+    
+    /**
+     * Helper method used to redo the token at the given offset, adding its
+     * Terminal unless it's skipped, and to return the offset after it;
+     * throws if it's invalid. trivia_[0] is kept at the end of the last
+     * Terminal added.
+     */
+    private int next(CharSequence input_, int offset_, Terminals terminals_, int[] trivia_, int[] index_) {
+        int len = match(input_, offset_, index_);
+        if (len == 0) {
+            throw new IllegalArgumentException("Invalid token found at: "
+                    + input_.subSequence(offset_, input_.length()));
+        }
+        if (!_skips[index_[0]]) {
+            terminals_.add(new Terminal(_types[index_[0]],
+                    input_.subSequence(offset_, offset_ + len).toString(),
+                    (_keepTrivia && trivia_[0] < offset_)
+                        ? input_.subSequence(trivia_[0], offset_).toString() : null));
+            trivia_[0] = offset_ + len;
+        }
+        return offset_ + len;
+    }
+    
+    /**
+     * Switches on/off keeping the text of the skipped tokens, as the trivia
+     * of the Terminal following them. Trailing ones are dropped.
+     */
+    public void setKeepTrivia(boolean keepTrivia_) {
+        _keepTrivia = keepTrivia_;
+    }
+    
+    public boolean isKeepTrivia() {
+        return _keepTrivia;
+    }
+    
+    /**
+     * Tokenizes the given file, which is memory-mapped rather than read.
+     * For the ASCII-compatible charsets, the DFAs run straight over the
+     * bytes, and only the text of the tokens is copied; the rest of the file
+     * is only decoded from the token where a non-ASCII byte is first seen.
+     *
+     * The file is mapped in windows of WINDOW_SIZE bytes, so it may be
+     * larger than a single mapping. A token that reaches the end of a
+     * window is redone from its start with the next one. If no token fits
+     * a window, the decoded chars are carried over instead, so a token may
+     * be longer than a window.
+     */
+    public Terminal[] tokenize(File file_, Charset charset_) throws IOException {
+        return tokenize(file_, charset_, WINDOW_SIZE);
+    }
+    
+    Terminal[] tokenize(File file_, Charset charset_, int windowSize_) throws IOException {
+        List<Terminal> ret = new ArrayList<Terminal>();
+        StringBuilder trivia = new StringBuilder(); // the skipped tokens since the last Terminal
+        int[] offset = new int[1];
+        RandomAccessFile file = new RandomAccessFile(file_, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            long size = channel.size(), position = 0;
             
-            input_ = input_.substring(
-                    ((String)token.getData()).length());
+            boolean ascii = AsciiSequence.isCompatible(charset_);
+            while (ascii) {
+                long end = Math.min(size, position + windowSize_);
+                CharSequence window = new AsciiSequence(
+                        channel.map(FileChannel.MapMode.READ_ONLY, position, end - position));
+                offset[0] = 0;
+                try {
+                    scan((end < size) ? new WindowSequence(window) : window, ret, trivia, offset);
+                } catch (AsciiSequence.NonAsciiException ex_) {
+                    // resumed after the last token; ASCII so far, so as many
+                    // bytes as chars
+                    ascii = false;
+                }
+                position += offset[0];
+                if (position == size) {
+                    return ret.toArray(new Terminal[0]);
+                }
+                if (offset[0] == 0) {
+                    ascii = false; // the token doesn't fit the window
+                }
+            }
+            
+            CharsetDecoder decoder = charset_.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharSequence rest = ""; // the chars of the token being carried over
+            long windowSize = windowSize_;
+            while (true) {
+                long end = Math.min(size, position + windowSize);
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, end - position);
+                CharBuffer chars = CharBuffer.allocate(rest.length()
+                        + (int)Math.ceil(bytes.remaining() * (double)decoder.maxCharsPerByte()) + 16);
+                chars.append(rest);
+                decoder.decode(bytes, chars, end == size);
+                if (end == size) {
+                    decoder.flush(chars);
+                }
+                chars.flip();
+                position += bytes.position(); // a char cut in two is left for the next window
+                if (bytes.position() == 0 && end < size) {
+                    windowSize *= 2; // not even one char
+                    continue;
+                }
+                windowSize = windowSize_;
+                
+                offset[0] = 0;
+                scan((end < size) ? new WindowSequence(chars) : chars, ret, trivia, offset);
+                if (end == size) {
+                    return ret.toArray(new Terminal[0]);
+                }
+                rest = chars.subSequence(offset[0], chars.length()).toString();
+            }
+        } finally {
+            file.close(); // the mappings stay valid
+        }
+    }
+    
+    /**
+     * Helper method used to append the tokens of the given input to the
+     * list; throws on the first invalid token. offset_[0] is kept at the end
+     * of the last token, and trivia_ holds the skipped tokens after the last
+     * Terminal added. For a WindowSequence, it stops at the first token that
+     * reads its last char.
+     */
+    private void scan(CharSequence input_, List<Terminal> tokens_, StringBuilder trivia_, int[] offset_) {
+        String[] types = _types;
+        boolean[] skips = _skips;
+        boolean keepTrivia = _keepTrivia;
+        int[] index = new int[1];
+        int offset = offset_[0], len;
+        
+        try {
+            while ((len = match(input_, offset, index)) > 0) {
+                String text = (!skips[index[0]] || keepTrivia)
+                    ? input_.subSequence(offset, offset + len).toString() : null;
+                if (!skips[index[0]]) {
+                    tokens_.add(new Terminal(types[index[0]], text,
+                            (trivia_.length() > 0) ? trivia_.toString() : null));
+                    trivia_.setLength(0);
+                } else if (keepTrivia) {
+                    trivia_.append(text);
+                }
+                offset += len;
+                offset_[0] = offset;
+            }
+        } catch (WindowSequence.EndOfWindowException ex_) {
+            return; // the rest is for the next window
         }
         // finished
-        if (input_.length() > 0) {
-            throw new IllegalArgumentException("Invalid token found at: " + input_);
+        if (offset < input_.length()) {
+            CharSequence input = (input_ instanceof WindowSequence)
+                ? ((WindowSequence)input_).getInput() : input_;
+            throw new IllegalArgumentException("Invalid token found at: "
+                    + input.subSequence(offset, input.length()));
         }
-        return ret.toArray(new Terminal[0]);
+    }
+    
+    /**
+     * Returns the tokens of the given input as they are read.
+     */
+    public TokenStream tokenize(Reader reader_) {
+        return new TokenStream(this, reader_);
     }
     
     /**
      * Returns the first token from the given input.
      */
     public Terminal getToken(String input_) {
-        String longest = "";
-        String type = null;
-        for (IMatcher matcher : getMatchers()) {
-            String token = matcher.match(input_);
-            if (token != null
-                    && token.length() > longest.length())
-            {
-                longest = token;
-                type = matcher.getType();
+        return getToken(input_, 0);
+    }
+    
+    /**
+     * Returns the token starting at the given offset of the input. Null if
+     * no matcher accepts a non-empty token there. Skipped tokens are
+     * returned as well; see isSkipped().
+     */
+    public Terminal getToken(CharSequence input_, int offset_) {
+        int[] index = new int[1];
+        int len = match(input_, offset_, index);
+        return (len > 0)
+            ? new Terminal(_types[index[0]],
+                    input_.subSequence(offset_, offset_ + len).toString())
+            : null;
+    }
+    
+    /**
+     * Tokenizes the given input into a TokenBuffer, whose kinds are the
+     * indexes of the matchers; no Terminal is created. The skipped tokens
+     * are left out, but they can still be found as the trivia of the buffer.
+     */
+    public TokenBuffer tokenizeToBuffer(CharSequence input_) {
+        return tokenizeToBuffer(input_, new TokenBuffer(input_, _types), null);
+    }
+    
+    /**
+     * Tokenizes the given input into a TokenBuffer whose kinds are the
+     * symbol ids of the given rule set, so that the parser can dispatch on
+     * them directly. Every token type must be a symbol of the rule set,
+     * except for the skipped ones.
+     */
+    public TokenBuffer tokenizeToBuffer(CharSequence input_, RuleSet rules_) {
+        String[] types = _types;
+        boolean[] skips = _skips;
+        int[] ids = new int[types.length];
+        for (int i = 0; i < types.length; ++i) {
+            ids[i] = rules_.getSymbolId(types[i]);
+            if (ids[i] < 0 && !skips[i]) {
+                throw new IllegalArgumentException("Token type not in the rule set: " + types[i]);
             }
         }
+        return tokenizeToBuffer(input_, new TokenBuffer(input_, rules_.getSymbolNames()), ids);
+    }
+    
+    /**
+     * Helper method used to fill the buffer; the kinds are mapped through
+     * kinds_ if it's not null.
+     */
+    private TokenBuffer tokenizeToBuffer(CharSequence input_, TokenBuffer ret_, int[] kinds_) {
+        int[] index = new int[1];
+        int offset = 0, len;
+        
+        boolean[] skips = _skips;
         
-        return (type != null)
-            ? new Terminal(type, longest) : null;
+        while ((len = match(input_, offset, index)) > 0) {
+            if (!skips[index[0]]) {
+                ret_.add((kinds_ != null) ? kinds_[index[0]] : index[0], offset, len);
+            }
+            offset += len;
+        }
+        if (offset < input_.length()) {
+            throw new IllegalArgumentException("Invalid token found at: "
+                    + input_.subSequence(offset, input_.length()));
+        }
+        return ret_;
+    }
+    
+    /**
+     * Helper method used to find the longest token at the given offset.
+     * Returns its length, 0 if there's none, with the index of the matcher
+     * in index_[0].
+     */
+    int match(CharSequence input_, int offset_, int[] index_) {
+        long[][] firsts = _firsts;
+        IMatcher[] matchers = _matchers;
+        CompiledDFA dfa = _dfa;
+        LazyDFA lazy = _lazyDFA;
+        int longest = 0;
+        int index = -1;
+        
+        if (lazy != null) {
+            int[] tag = new int[1];
+            int len = lazy.match(input_, offset_, tag);
+            if (len > 0) {
+                longest = len;
+                index = tag[0];
+            }
+        } else if (dfa != null) {
+            // the RegexMatchers in one pass; tags are the matcher indexes
+            int state = 0;
+            for (int i = offset_, len = input_.length(); i < len; ++i) {
+                state = dfa.next(state, input_.charAt(i));
+                
+                if (state == CompiledDFA.DEAD) {
+                    break;
+                }
+                
+                if (dfa.isAcceptable(state)) {
+                    longest = i - offset_ + 1;
+                    index = dfa.getTag(state);
+                }
+            }
+        }
+        
+        if (offset_ < input_.length()) {
+            // only the matchers which can start with the first char
+            char first = input_.charAt(offset_);
+            long[] candidates = firsts[Math.min(first, ASCII)];
+            for (int w = 0; w < candidates.length; ++w) {
+                for (long bits = candidates[w]; bits != 0; bits &= bits - 1) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    if (i >= matchers.length
+                            || ((dfa != null || lazy != null) && matchers[i] instanceof RegexMatcher)) {
+                        continue; // already covered by the combined DFA
+                    }
+                    int len = matchers[i].match(input_, offset_);
+                    if (len > longest || (len == longest && len > 0 && i < index)) {
+                        longest = len;
+                        index = i;
+                    }
+                }
+            }
+        }
+        
+        index_[0] = index;
+        return (index >= 0) ? longest : 0;
+    }
+    
+    /**
+     * Helper method used to build the first-char index of the matchers: a
+     * bitmap of matcher indexes for each ASCII char, plus one shared by all
+     * the other chars. The matchers without a start set are in all of them.
+     */
+    private static long[][] index(IMatcher[] matchers_) {
+        long[][] ret = new long[ASCII + 1][(matchers_.length + 63) >>> 6];
+        CharSet others = CharSet.range((char)ASCII, Character.MAX_VALUE);
+        
+        for (int i = 0; i < matchers_.length; ++i) {
+            CharSet start = matchers_[i].getStartSet();
+            for (int c = 0; c <= ASCII; ++c) {
+                boolean candidate = (start == null)
+                    || ((c < ASCII) ? start.contains((char)c) : start.intersects(others));
+                if (candidate) {
+                    ret[c][i >>> 6] |= 1L << i;
+                }
+            }
+        }
+        return ret;
+    }
+    
+    /**
+     * Helper method used to (re)build the combined DFA for the current mode.
+     */
+    private void combine() {
+        NFAState root = null;
+        Map<NFAState, Integer> tags = new HashMap<NFAState, Integer>();
+        if (_combined) {
+            root = union(_matchers, tags);
+        }
+        _dfa = (root != null && !_lazy)
+            ? CompiledDFA.freeze(Helper.minimize(Helper.collapse(root, tags))) : null;
+        _lazyDFA = (root != null && _lazy)
+            ? new LazyDFA(root, tags, LazyDFA.DEFAULT_MAX_STATES) : null;
+    }
+    
+    /**
+     * Helper method used to join all the RegexMatchers into one NFA, whose
+     * acceptable states are tagged with the matcher indexes into tags_.
+     * Null if there's no RegexMatcher at all.
+     */
+    private static NFAState union(IMatcher[] matchers_, Map<NFAState, Integer> tags_) {
+        NFAState root = new NFAState();
+        
+        for (int i = 0; i < matchers_.length; ++i) {
+            if (matchers_[i] instanceof RegexMatcher) {
+                NFAState fa = ((RegexMatcher)matchers_[i]).getAutomaton();
+                root.addTransition(fa);
+                
+                for (NFAState state : Helper.findAll(fa)) {
+                    if (state instanceof AcceptableNFAState
+                            && !tags_.containsKey(state)) { // the first one wins
+                        tags_.put(state, i);
+                    }
+                }
+            }
+        }
+        return !root.getEpsilons().isEmpty() ? root : null;
     }
 
 //    @Override
     public void addMatcher(IMatcher matcher_) {
-        _matchers.add(matcher_);
+        addMatcher(matcher_, false);
+    }
+    
+    /**
+     * Adds a matcher whose tokens can be marked as skipped (e.g. whitespace
+     * and comments): they still take part in the longest match, but
+     * tokenize() and the TokenStreams consume them without creating any
+     * Terminal.
+     */
+    public void addMatcher(IMatcher matcher_, boolean skip_) {
+        IMatcher[] matchers = Arrays.copyOf(_matchers, _matchers.length + 1);
+        matchers[_matchers.length] = matcher_;
+        String[] types = Arrays.copyOf(_types, _types.length + 1);
+        types[_types.length] = matcher_.getType();
+        boolean[] skips = Arrays.copyOf(_skips, _skips.length + 1);
+        skips[_skips.length] = skip_;
+        _types = types; // only grows, so it covers any index from _matchers
+        _skips = skips;
+        _firsts = index(matchers);
+        _matchers = matchers;
+        
+        if (_combined) {
+            combine();
+        }
     }
 
+    /**
+     * Returns the types of the matchers, by index.
+     */
+    String[] getTypes() {
+        return _types;
+    }
+    
+    /**
+     * Returns the type of the matcher at the given index.
+     */
+    String getType(int index_) {
+        return _types[index_];
+    }
+    
+    /**
+     * Returns whether the matcher at the given index is skipped.
+     */
+    boolean isSkipped(int index_) {
+        return _skips[index_];
+    }
+    
+    /**
+     * Returns whether the tokens of the given type are skipped.
+     */
+    public boolean isSkipped(String type_) {
+        IMatcher[] matchers = _matchers;
+        for (int i = 0; i < matchers.length; ++i) {
+            if (_skips[i] && matchers[i].getType().equals(type_)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
 //    @Override
     public IMatcher getMatcher(String type_) {
         for (IMatcher matcher : _matchers) {
@@ -70,7 +721,7 @@ public final class Tokenizer implements ITokenizer {
 
 //    @Override
     public IMatcher[] getMatchers() {
-        return _matchers.toArray(new IMatcher[0]);
+        return _matchers.clone();
     }
 
 //    @Override
@@ -0,0 +1,77 @@
+package mini.java.lex;
+
+/**
+ * A window of a larger input, whose last char must not be read: a token
+ * reaching it may go on past the window, so reading it throws an
+ * EndOfWindowException and the token is redone with the next window.
+ */
+final class WindowSequence implements CharSequence {
+    /**
+     * Thrown when the last char of the window is read. No stack trace, as
+     * NonAsciiException.
+     */
+    static final class EndOfWindowException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        EndOfWindowException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final EndOfWindowException END_OF_WINDOW = new EndOfWindowException();
+
+    private final CharSequence _input;
+    private final int          _offset;
+    private final int          _length;
+    private final int          _last;   // of _input
+
+    WindowSequence(CharSequence input_) {
+        this(input_, 0, input_.length(), input_.length() - 1);
+    }
+
+    private WindowSequence(CharSequence input_, int offset_, int length_, int last_) {
+        _input = input_;
+        _offset = offset_;
+        _length = length_;
+        _last = last_;
+    }
+
+    /**
+     * Returns the whole window, the last char included.
+     */
+    CharSequence getInput() {
+        return _input;
+    }
+
+    @Override
+    public int length() {
+        return _length;
+    }
+
+    @Override
+    public char charAt(int index_) {
+        if (index_ < 0 || index_ >= _length) {
+            throw new IndexOutOfBoundsException("Index: " + index_);
+        }
+        if (_offset + index_ >= _last) {
+            throw END_OF_WINDOW;
+        }
+        return _input.charAt(_offset + index_);
+    }
+
+    @Override
+    public CharSequence subSequence(int start_, int end_) {
+        if (start_ < 0 || start_ > end_ || end_ > _length) {
+            throw new IndexOutOfBoundsException("Range: " + start_ + "-" + end_);
+        }
+        return new WindowSequence(_input, _offset + start_, end_ - start_, _last);
+    }
+
+    @Override
+    public String toString() {
+        if (_offset + _length > _last) {
+            throw END_OF_WINDOW;
+        }
+        return _input.subSequence(_offset, _offset + _length).toString();
+    }
+}
@@ -2,6 +2,7 @@ package mini.java.semantics;
 
 import java.util.List;
 
+import mini.java.lex.Interner;
 import mini.java.syntax.legacy.Node;
 import mini.java.syntax.legacy.Token;
 import mini.java.syntaxtree.And;
@@ -58,6 +59,7 @@ import mini.java.syntaxtree.While;
  */
 public class Builder {
 	private static Builder theInstance;
+	private Interner names;		// the ids of the identifiers, null if none
 	private Builder() {}
 	
 	/**
@@ -73,6 +75,20 @@ public class Builder {
 		return theInstance;
 	}
 	
+	/**
+	 * Builds the program with the identifiers keyed in the given
+	 * interner, which the symbol table should share; tokens already
+	 * carrying an id are taken to be from the same interner.
+	 */
+	public Program buildProgram(Node<Token> n, Interner names) {
+		this.names = names;
+		try {
+			return buildProgram(n);
+		} finally {
+			this.names = null;
+		}
+	}
+	
 	public Program buildProgram(Node<Token> n) {
 		List<Node<Token>> children = n.getChildren();
 		
@@ -91,11 +107,8 @@ public class Builder {
 	}
 	
 	public MainClass buildMainClass(Node<Token> n) {
-		String className = null;
-		int l1 = -1;
-		
-		String argName = null;
-		int l2 = -1;
+		Token className = null;
+		Token argName = null;
 		
 		Statement stmt = null;
 		
@@ -104,19 +117,17 @@ public class Builder {
 			Token t = node.getData();
 			if(t.getType().equals("id")) {
 				if(className == null) {
-					className = t.getText();
-					l1 = t.getLineNum();
+					className = t;
 				} else {
-					argName = t.getText();
-					l2 = t.getLineNum();
+					argName = t;
 				}
 			} else if(t.getText().equals("Statement*")) {
 				//stmt = buildStatementList(node).elementAt(0);
 				stmt = buildStatement(node.getChildren().get(0));
 			}
 		}
-		Identifier i1 = new Identifier(className, l1);
-		Identifier i2 = new Identifier(argName, l2);		
+		Identifier i1 = new Identifier(className.getText(), className.getLineNum(), getId(className));
+		Identifier i2 = new Identifier(argName.getText(), argName.getLineNum(), getId(argName));
 		
 		return new MainClass(i1, i2, stmt);
 	}
@@ -209,7 +220,7 @@ public class Builder {
 	public Assign buildAssign(Node<Token> n) {
 		List<Node<Token>> children = n.getChildren();
 		Token t0 = children.get(0).getData();
-		Identifier id = new Identifier(t0.getText(), t0.getLineNum());
+		Identifier id = new Identifier(t0.getText(), t0.getLineNum(), getId(t0));
 		Exp exp = buildExp(children.get(2));
 		
 		return new Assign(id, exp);
@@ -218,7 +229,7 @@ public class Builder {
 	public ArrayAssign buildArrayAssign(Node<Token> n) {
 		List<Node<Token>> children = n.getChildren();
 		Token t0 = children.get(0).getData();
-		Identifier id = new Identifier(t0.getText(), t0.getLineNum());
+		Identifier id = new Identifier(t0.getText(), t0.getLineNum(), getId(t0));
 		Exp exp1= buildExp(children.get(2));
 		Exp exp2= buildExp(children.get(5));
 		
@@ -381,7 +392,7 @@ public class Builder {
 		Exp e = buildExp(children.get(0));
 		
 		Token t2 = children.get(2).getData();
-		Identifier id = new Identifier(t2.getText(), t2.getLineNum());
+		Identifier id = new Identifier(t2.getText(), t2.getLineNum(), getId(t2));
 		ExpList el = buildExpList(children.get(4));
 		return new Call(e, id, el);
 	}
@@ -407,7 +418,7 @@ public class Builder {
 		List<Node<Token>> children = n.getChildren();
 		
 		Token t1 = children.get(1).getData();
-		Identifier id = new Identifier(t1.getText(), t1.getLineNum());
+		Identifier id = new Identifier(t1.getText(), t1.getLineNum(), getId(t1));
 		
 		return new NewObject(id);
 	}
@@ -416,7 +427,7 @@ public class Builder {
 		List<Node<Token>> children = n.getChildren();
 		
 		Token t0 = children.get(0).getData();
-		return new IdentifierExp(t0.getText(), t0.getLineNum());
+		return new IdentifierExp(t0.getText(), t0.getLineNum(), getId(t0));
 	}
 	
 	public Not buildNot(Node<Token> n) {
@@ -471,7 +482,7 @@ public class Builder {
 		List<Node<Token>> children = n.getChildren();
 		
 		Token t1 = children.get(1).getData();
-		Identifier id = new Identifier(t1.getText(), t1.getLineNum());
+		Identifier id = new Identifier(t1.getText(), t1.getLineNum(), getId(t1));
 		
 		Node<Token> n3 = children.get(3);
 		Token t3 = n3.getData();
@@ -488,10 +499,10 @@ public class Builder {
 		List<Node<Token>> children = n.getChildren();
 		
 		Token t1 = children.get(1).getData();
-		Identifier i1 = new Identifier(t1.getText(), t1.getLineNum());
+		Identifier i1 = new Identifier(t1.getText(), t1.getLineNum(), getId(t1));
 		
 		Token t3 = children.get(3).getData();
-		Identifier i2 = new Identifier(t3.getText(), t3.getLineNum());
+		Identifier i2 = new Identifier(t3.getText(), t3.getLineNum(), getId(t3));
 		
 		Node<Token> n5 = children.get(5);
 		Token t5 = n5.getData();
@@ -527,7 +538,7 @@ public class Builder {
 		Type type = buildType(children.get(0));
 		
 		Token t3 = children.get(1).getData();
-		Identifier id = new Identifier(t3.getText(), t3.getLineNum());
+		Identifier id = new Identifier(t3.getText(), t3.getLineNum(), getId(t3));
 		
 		return new VarDecl(type, id);
 	}
@@ -577,7 +588,7 @@ public class Builder {
 		Type type = buildType(children.get(1));
 		
 		Token t2 = children.get(2).getData();
-		Identifier id = new Identifier(t2.getText(), t2.getLineNum());
+		Identifier id = new Identifier(t2.getText(), t2.getLineNum(), getId(t2));
 		FormalList fl = new FormalList();
 		VarDeclList vdl = new VarDeclList();
 		StatementList sl = new StatementList();
@@ -628,7 +639,7 @@ public class Builder {
 		List<Node<Token>> children = n.getChildren();
 		Type type = buildType(children.get(0));
 		Token t = children.get(1).getData();
-		Identifier id = new Identifier(t.getText(), t.getLineNum());
+		Identifier id = new Identifier(t.getText(), t.getLineNum(), getId(t));
 		fl.addElement(new Formal(type, id));
 		
 		if(children.size() > 2) {
@@ -661,7 +672,18 @@ public class Builder {
 		List<Node<Token>> children = n.getChildren();
 		Type t = buildType(children.get(1));
 		Token token = children.get(2).getData();
-		Identifier id = new Identifier(token.getText(), token.getLineNum());
+		Identifier id = new Identifier(token.getText(), token.getLineNum(), getId(token));
 		return new Formal(t, id);
 	}
+	
+	/**
+	 * Helper method used to get the interned id of an identifier
+	 * token, -1 if there's no interner.
+	 */
+	private int getId(Token t) {
+		if(t.getId() >= 0) {
+			return t.getId();
+		}
+		return names != null ? names.intern(t.getText()) : -1;
+	}
 }
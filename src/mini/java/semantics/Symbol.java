@@ -1,36 +1,32 @@
 package mini.java.semantics;
 
-import java.util.*;
-
+/**
+ * A name, interned by the SymbolTable of a compilation: there's only one
+ * Symbol per name and table, identified by a dense int id.
+ */
 public class Symbol {
-	// to avoid object over-creation
-	private static Map<String, Symbol> table = new HashMap<String, Symbol>();
 	private String lexeme;
+	private int id;
 	
-	private Symbol(String l) { lexeme = l; }
+	Symbol(String l, int id) {
+		lexeme = l;
+		this.id = id;
+	}
 	
 	public String toString() { return lexeme; }
 	
-	public static Symbol getSymbol(String n) {
-		Symbol s = table.get(n);
-		if(s == null) {
-			s = new Symbol(n);
-			table.put(n, s);
-		}
-		
-		return s;
-	}
+	public int getId() { return id; }
 	
 	public boolean equals(Object o) {
 		if(o == null || !(o instanceof Symbol)) {
 			return false;
 		} else {
 			Symbol s = (Symbol)o;
-			return s.lexeme.equals(this.lexeme);
+			return s.id == this.id && s.lexeme.equals(this.lexeme);
 		}
 	}
 	
 	public int hashCode() {
-		return lexeme.hashCode();
+		return id;
 	}
 }
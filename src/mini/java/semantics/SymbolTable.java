@@ -1,12 +1,52 @@
 package mini.java.semantics;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import mini.java.lex.Interner;
+
 public class SymbolTable {
 	private Scope root;		// root of the scope tree
 	private Scope cur;		// current scopen
+	private Interner names;	// the names of this compilation only
+	private List<Symbol> symbols;	// by id
 	
 	public SymbolTable() {
+		this(new Interner());
+	}
+	
+	/**
+	 * Uses the given interner, e.g. the one the tokenizer filled in.
+	 */
+	public SymbolTable(Interner names) {
 		root = new Scope(null);
 		cur = root;
+		this.names = names;
+		symbols = new ArrayList<Symbol>();
+	}
+	
+	public Symbol getSymbol(String name) {
+		return getSymbol(names.intern(name));
+	}
+	
+	/**
+	 * Takes the id the name was interned under in getNames(), e.g. by
+	 * the Builder, and falls back to the name if it's -1.
+	 */
+	public Symbol getSymbol(String name, int id) {
+		return id >= 0 ? getSymbol(id) : getSymbol(name);
+	}
+	
+	public Symbol getSymbol(int id) {
+		while(symbols.size() <= id) {
+			int i = symbols.size();
+			symbols.add(new Symbol(names.getName(i), i));
+		}
+		return symbols.get(id);
+	}
+	
+	public Interner getNames() {
+		return names;
 	}
 		
 	public void enterScope() {
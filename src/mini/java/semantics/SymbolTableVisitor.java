@@ -76,7 +76,7 @@ public class SymbolTableVisitor implements Visitor {
 	@Override
 	public void visit(MainClass n) {
 		// TODO Auto-generated method stub
-		Symbol s = Symbol.getSymbol(n.i1.s);
+		Symbol s = symtab.getSymbol(n.i1.s, n.i1.id);
 		Record r = new Record(s, new IdentifierType(s.toString()));
 		addSymtabEntry(s, r, n.i1.getLine());
 		
@@ -84,7 +84,7 @@ public class SymbolTableVisitor implements Visitor {
 		// TODO: special measure specific to main
 		symtab.enterScope();
 			// put "this" pointer into symbol table
-			Symbol thisSymbol = Symbol.getSymbol("this");
+			Symbol thisSymbol = symtab.getSymbol("this");
 			Record thisRecord = new Record(thisSymbol, new IdentifierType(n.i1.s));
 			addSymtabEntry(thisSymbol, thisRecord, n.i1.getLine());
 			
@@ -92,7 +92,7 @@ public class SymbolTableVisitor implements Visitor {
 				// MainClass is very special since it has only one
 				// method `main'. So we don't have to enter method
 				// scope. method scope = class scope!
-				Symbol s1 = Symbol.getSymbol(n.i2.s);
+				Symbol s1 = symtab.getSymbol(n.i2.s, n.i2.id);
 				// TODO: tmp solution. this is the only place where String[] is valid
 				Record r1 = new Record(s1, new IdentifierType("StringArray"));				
 				addSymtabEntry(s1, r1, n.i2.getLine());
@@ -104,13 +104,13 @@ public class SymbolTableVisitor implements Visitor {
 
 	@Override
 	public void visit(ClassDeclSimple n) {
-		Symbol s = Symbol.getSymbol(n.i.s);
+		Symbol s = symtab.getSymbol(n.i.s, n.i.id);
 		Record r = new Record(s, new IdentifierType(s.toString()));
 		addSymtabEntry(s, r, n.i.getLine());
 		
 		symtab.enterScope();
 			// put "this" pointer into symbol table
-			Symbol thisSymbol = Symbol.getSymbol("this");
+			Symbol thisSymbol = symtab.getSymbol("this");
 			Record thisRecord = new Record(thisSymbol, new IdentifierType(n.i.s));
 			addSymtabEntry(thisSymbol, thisRecord, n.i.getLine());
 			
@@ -125,13 +125,13 @@ public class SymbolTableVisitor implements Visitor {
 
 	@Override
 	public void visit(ClassDeclExtends n) {
-		Symbol s = Symbol.getSymbol(n.i.s);
+		Symbol s = symtab.getSymbol(n.i.s, n.i.id);
 		Record r = new Record(s, new IdentifierType(s.toString()));
 		addSymtabEntry(s, r, n.i.getLine());
 		
 		symtab.enterScope();
 			// put "this" pointer into symbol table
-			Symbol thisSymbol = Symbol.getSymbol("this");
+			Symbol thisSymbol = symtab.getSymbol("this");
 			Record thisRecord = new Record(thisSymbol, new IdentifierType(n.i.s));
 
 			addSymtabEntry(thisSymbol, thisRecord, n.i.getLine());
@@ -150,7 +150,7 @@ public class SymbolTableVisitor implements Visitor {
 		// TODO n modified?
 		// n.i.s = "v:" + n.i.s;
 		System.err.println("DEBUG: vardecl=" + n);
-		Symbol s = Symbol.getSymbol(n.i.s);
+		Symbol s = symtab.getSymbol(n.i.s, n.i.id);
 		Record r = new Record(s, n.t);
 		addSymtabEntry(s, r, n.i.getLine());
 	}
@@ -159,7 +159,7 @@ public class SymbolTableVisitor implements Visitor {
 	public void visit(MethodDecl n) {
 		// TODO n modified?
 		//n.i.s = "m:" + n.i.s;
-		Symbol s = Symbol.getSymbol(":" + n.i.s);
+		Symbol s = symtab.getSymbol(":" + n.i.s);
 		Record r = new Record(s, n.t);
 		addSymtabEntry(s, r, n.i.getLine());
 		symtab.enterScope();
@@ -177,7 +177,7 @@ public class SymbolTableVisitor implements Visitor {
 		// TODO modify n?
 		//n.i.s = "p:" + n.i.s;
 		System.err.println("DEBUG: formal=" + n);
-		Symbol s = Symbol.getSymbol(n.i.s);
+		Symbol s = symtab.getSymbol(n.i.s, n.i.id);
 		Record r = new Record(s, n.t);
 		addSymtabEntry(s, r, n.i.getLine());
 	}
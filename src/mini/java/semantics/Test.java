@@ -9,6 +9,7 @@ import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 
+import mini.java.lex.Interner;
 import mini.java.lex.Tokenizer;
 import mini.java.syntax.legacy.Node;
 import mini.java.syntax.legacy.Parser;
@@ -24,11 +25,12 @@ public class Test {
 		//root.dump();
 		
 		Builder builder = Builder.newInstance();
-		Program p = builder.buildProgram(root.getChildren().get(0));
+		Interner names = new Interner();
+		Program p = builder.buildProgram(root.getChildren().get(0), names);
 		//System.out.println(p);
 		
 		List<ErrorMsg> errors = new ArrayList<ErrorMsg>();
-		SymbolTable tbl = new SymbolTable();
+		SymbolTable tbl = new SymbolTable(names);
 		SymbolTableVisitor visi = new SymbolTableVisitor(tbl, errors);
 		p.accept(visi);
 		tbl.dump();
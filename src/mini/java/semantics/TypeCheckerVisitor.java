@@ -211,7 +211,7 @@ public class TypeCheckerVisitor implements TypeVisitor {
 	@Override
 	public Type visit(Identifier n) {
 		// TODO Auto-generated method stub
-		Symbol s = Symbol.getSymbol(n.s);
+		Symbol s = symtab.getSymbol(n.s, n.id);
 		Record r = symtab.lookup(s);
 		if(r != null) {			
 			return r.getType();
@@ -711,7 +711,7 @@ public class TypeCheckerVisitor implements TypeVisitor {
 	@Override
 	public Type visit(IdentifierExp n) {
 		// TODO Auto-generated method stub
-		Record r = symtab.lookup(Symbol.getSymbol(n.s));
+		Record r = symtab.lookup(symtab.getSymbol(n.s, n.id));
 		if(r == null) {
 			Type type = checkClassField(n.s);
 			if(type != null) return type;
@@ -0,0 +1,173 @@
+package mini.java.syntax;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * The NULLABLE, FIRST and FOLLOW sets of a growing rule set, as bitsets
+ * over ids of its own. Unlike the ids of RuleSet, these never change: a
+ * symbol keeps the one it got when first seen. Whether a symbol is a
+ * terminal isn't known until all the rules are in, so every symbol is in
+ * its own FIRST set and the sets hold non-terminals too; the caller drops
+ * them.
+ *
+ * All the sets only grow as rules are added, so the previous solution is
+ * where the next one starts from: addRule() only queues the rule, and the
+ * sets are brought up to date by the first query after it.
+ */
+final class FirstFollowSets {
+    private final Map<String, Integer> _ids = new HashMap<String, Integer>();
+    private final List<String>         _names = new ArrayList<String>();
+    private final List<int[]>          _rules = new ArrayList<int[]>(); // {lhs, rhs...}
+    private final BitSet               _nullable = new BitSet();
+    private final List<BitSet>         _firsts = new ArrayList<BitSet>();  // by id
+    private final List<BitSet>         _follows = new ArrayList<BitSet>(); // by id
+    // the rules to go over again when a set grows, by id: the ones with the
+    // symbol in their rhs when its FIRST or NULLABLE does, the ones with it
+    // as their lhs when its FOLLOW does
+    private final List<List<Integer>>  _readers = new ArrayList<List<Integer>>();
+    private final List<List<Integer>>  _owners = new ArrayList<List<Integer>>();
+    private final Queue<Integer>       _queue = new ArrayDeque<Integer>();
+    private final BitSet               _queued = new BitSet();
+
+    /**
+     * Returns the id of the given symbol, creating it if new.
+     */
+    int getId(String symbol_) {
+        Integer ret = _ids.get(symbol_);
+        if (ret == null) {
+            ret = _names.size();
+            _ids.put(symbol_, ret);
+            _names.add(symbol_);
+            BitSet first = new BitSet();
+            first.set(ret);
+            _firsts.add(first);
+            _follows.add(new BitSet());
+            _readers.add(new ArrayList<Integer>());
+            _owners.add(new ArrayList<Integer>());
+        }
+        return ret;
+    }
+
+    String getName(int id_) {
+        return _names.get(id_);
+    }
+
+    void addRule(String lhs_, List<String> rhs_) {
+        int[] rule = new int[1 + rhs_.size()];
+        rule[0] = getId(lhs_);
+        for (int i = 0; i < rhs_.size(); ++i) {
+            rule[1 + i] = getId(rhs_.get(i));
+        }
+        int r = _rules.size();
+        _rules.add(rule);
+        _owners.get(rule[0]).add(r);
+        for (int i = 1; i < rule.length; ++i) {
+            if (!_readers.get(rule[i]).contains(r)) {
+                _readers.get(rule[i]).add(r);
+            }
+        }
+        enqueue(Collections.singletonList(r));
+    }
+
+    /**
+     * Adds a follow of the given symbol that no rule gives, e.g. END for
+     * START.
+     */
+    void addFollow(String symbol_, String follow_) {
+        int id = getId(symbol_);
+        _follows.get(id).set(getId(follow_));
+        enqueue(_owners.get(id));
+    }
+
+    boolean isNullable(String symbol_) {
+        solve();
+        return _nullable.get(getId(symbol_));
+    }
+
+    /**
+     * Returns the FIRST set of the given symbol, itself included; not to be
+     * modified.
+     */
+    BitSet getFirsts(String symbol_) {
+        solve();
+        return _firsts.get(getId(symbol_));
+    }
+
+    /**
+     * Returns the FOLLOW set of the given symbol; not to be modified.
+     */
+    BitSet getFollows(String symbol_) {
+        solve();
+        return _follows.get(getId(symbol_));
+    }
+
+    /**
+     * Helper method used to bring the sets up to date. Only the new rules
+     * are gone over at first; after that, a rule is only gone over again
+     * if a set it reads from has grown.
+     */
+    private void solve() {
+        while (!_queue.isEmpty()) {
+            int r = _queue.poll();
+            _queued.clear(r);
+            int[] rule = _rules.get(r);
+            int lhs = rule[0];
+
+            // NULLABLE and FIRST, over the nullable prefix of the rhs
+            boolean nullable = true;
+            boolean grown = false;
+            for (int i = 1; i < rule.length && nullable; ++i) {
+                grown |= merge(_firsts.get(rule[i]), _firsts.get(lhs));
+                nullable = _nullable.get(rule[i]);
+            }
+            if (nullable && !_nullable.get(lhs)) {
+                _nullable.set(lhs);
+                grown = true;
+            }
+            if (grown) {
+                enqueue(_readers.get(lhs));
+            }
+
+            // FOLLOW, from the end of the rhs backwards
+            BitSet trailer = (BitSet)_follows.get(lhs).clone();
+            for (int i = rule.length - 1; i >= 1; --i) {
+                if (merge(trailer, _follows.get(rule[i]))) {
+                    enqueue(_owners.get(rule[i]));
+                }
+                if (!_nullable.get(rule[i])) {
+                    trailer.clear();
+                }
+                trailer.or(_firsts.get(rule[i]));
+            }
+        }
+    }
+
+    /**
+     * Helper method used to queue the given rules to be gone over again.
+     */
+    private void enqueue(List<Integer> rules_) {
+        for (int r : rules_) {
+            if (!_queued.get(r)) {
+                _queued.set(r);
+                _queue.add(r);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to add the bits of from_ to to_; true if any was
+     * new.
+     */
+    private static boolean merge(BitSet from_, BitSet to_) {
+        int before = to_.cardinality();
+        to_.or(from_);
+        return to_.cardinality() != before;
+    }
+}
@@ -0,0 +1,239 @@
+package mini.java.syntax;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the LALR(1) lookaheads of the reductions of an LR(0) engine, as
+ * by DeRemer and Pennello: the lookaheads of a rule in a state are the
+ * follows of the non-terminal transitions it looks back to, which are
+ * found with two passes of the digraph algorithm over the transitions
+ * rather than from the global follows of the lhs. Sets are bitsets over
+ * the terminal ids of the rule set.
+ */
+final class Lookaheads {
+    private final RuleSet             _ruleSet;
+    private final int                 _terminals;
+    private final int                 _symbols;
+    private final List<ParserState>   _states = new ArrayList<ParserState>();
+    private final Map<ParserState, Integer> _ids = new HashMap<ParserState, Integer>();
+    private final boolean[]           _nullable; // by symbol id
+
+    // the non-terminal transitions (state, symbol), by index
+    private final Map<Long, Integer>  _transitions = new HashMap<Long, Integer>();
+    private final List<ParserState>   _froms = new ArrayList<ParserState>();
+    private final List<Integer>       _ons = new ArrayList<Integer>();
+
+    private Lookaheads(ParserState engine_, RuleSet ruleSet_) {
+        _ruleSet = ruleSet_;
+        _terminals = ruleSet_.getTerminalCount();
+        _symbols = ruleSet_.getSymbolCount();
+
+        _states.add(engine_);
+        _ids.put(engine_, 0);
+        for (int s = 0; s < _states.size(); ++s) {
+            ParserState state = _states.get(s);
+            state.index(ruleSet_);
+            for (int id = 0; id < _symbols; ++id) {
+                ParserState target = state.getGoto(id);
+                if (target != null && !_ids.containsKey(target)) {
+                    _ids.put(target, _states.size());
+                    _states.add(target);
+                }
+            }
+        }
+
+        _nullable = new boolean[_symbols];
+        for (int id = 0; id < _symbols; ++id) {
+            String symbol = ruleSet_.getSymbolName(id);
+            _nullable[id] = ruleSet_.getSymbols().contains(symbol) && ruleSet_.isNullable(symbol);
+        }
+    }
+
+    /**
+     * Adds the rules that can be reduced in the states of the engine, with
+     * their LALR(1) lookaheads. A RuntimeException is thrown on a
+     * reduce/reduce conflict, as by ParserState.addRule().
+     */
+    static void attach(ParserState engine_, RuleSet ruleSet_) {
+        new Lookaheads(engine_, ruleSet_).attach();
+    }
+
+    private void attach() {
+        int start = _ruleSet.getSymbolId(RuleSet.START);
+        ParserState root = _states.get(0);
+        transition(root, start); // the accepting one; START is followed by END
+        for (ParserState state : _states) {
+            for (int id = _terminals; id < _symbols; ++id) {
+                if (state.getGoto(id) != null) {
+                    transition(state, id);
+                }
+            }
+        }
+
+        Map<Integer, List<Rule>> byLeft = new HashMap<Integer, List<Rule>>();
+        for (Rule rule : _ruleSet.getRules()) {
+            int lhs = _ruleSet.getSymbolId(rule.getLeftSymbol());
+            if (!byLeft.containsKey(lhs)) {
+                byLeft.put(lhs, new ArrayList<Rule>());
+            }
+            byLeft.get(lhs).add(rule);
+        }
+
+        // DR: the terminals shifted right after the transition; reads: the
+        // nullable non-terminals that may come first
+        int count = _froms.size();
+        BitSet[] follows = new BitSet[count];
+        List<List<Integer>> reads = new ArrayList<List<Integer>>();
+        for (int t = 0; t < count; ++t) {
+            follows[t] = new BitSet(_terminals);
+            reads.add(new ArrayList<Integer>());
+            ParserState target = _froms.get(t).getGoto(_ons.get(t));
+            if (target == null) {
+                continue; // the accepting transition
+            }
+            for (int id = 0; id < _symbols; ++id) {
+                if (target.getGoto(id) != null) {
+                    if (id < _terminals) {
+                        follows[t].set(id);
+                    } else if (_nullable[id]) {
+                        reads.get(t).add(_transitions.get(key(target, id)));
+                    }
+                }
+            }
+        }
+        follows[_transitions.get(key(root, start))].set(0); // END
+
+        // includes and lookbacks, walking every rule of the transition's
+        // non-terminal from its state
+        List<List<Integer>> includes = new ArrayList<List<Integer>>();
+        for (int t = 0; t < count; ++t) {
+            includes.add(new ArrayList<Integer>());
+        }
+        Map<ParserState, Map<Rule, BitSet>> lookaheads = new LinkedHashMap<ParserState, Map<Rule, BitSet>>();
+        List<int[]> lookbacks = new ArrayList<int[]>(); // {state, rule, transition}
+        List<Rule> rules = new ArrayList<Rule>();
+        for (int t = 0; t < count; ++t) {
+            List<Rule> alternatives = byLeft.get(_ons.get(t));
+            if (alternatives == null) {
+                continue;
+            }
+            for (Rule rule : alternatives) {
+                List<String> rhs = rule.getRightSymbols();
+                ParserState state = _froms.get(t);
+                for (int i = 0; i < rhs.size() && state != null; ++i) {
+                    int id = _ruleSet.getSymbolId(rhs.get(i));
+                    ParserState next = state.getGoto(id);
+                    if (next != null && id >= _terminals && isNullable(rhs, i + 1)) {
+                        includes.get(_transitions.get(key(state, id))).add(t);
+                    }
+                    state = next;
+                }
+                if (state != null) {
+                    lookbacks.add(new int[] {_ids.get(state), rules.size(), t});
+                    rules.add(rule);
+                }
+            }
+        }
+
+        digraph(follows, reads);    // Read
+        digraph(follows, includes); // Follow
+
+        for (int[] lookback : lookbacks) {
+            ParserState state = _states.get(lookback[0]);
+            Rule rule = rules.get(lookback[1]);
+            if (!lookaheads.containsKey(state)) {
+                lookaheads.put(state, new LinkedHashMap<Rule, BitSet>());
+            }
+            Map<Rule, BitSet> byRule = lookaheads.get(state);
+            if (!byRule.containsKey(rule)) {
+                byRule.put(rule, new BitSet(_terminals));
+            }
+            byRule.get(rule).or(follows[lookback[2]]);
+        }
+        for (Map.Entry<ParserState, Map<Rule, BitSet>> entry : lookaheads.entrySet()) {
+            for (Map.Entry<Rule, BitSet> reduce : entry.getValue().entrySet()) {
+                List<String> names = new ArrayList<String>();
+                BitSet set = reduce.getValue();
+                for (int id = set.nextSetBit(0); id >= 0; id = set.nextSetBit(id + 1)) {
+                    names.add(_ruleSet.getSymbolName(id));
+                }
+                entry.getKey().addRule(reduce.getKey(), names);
+            }
+        }
+    }
+
+    /**
+     * Helper method used to tell whether the symbols from the given index on
+     * can all derive the empty string.
+     */
+    private boolean isNullable(List<String> symbols_, int from_) {
+        for (String symbol : symbols_.subList(from_, symbols_.size())) {
+            if (!_nullable[_ruleSet.getSymbolId(symbol)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long key(ParserState state_, int symbol_) {
+        return (long)_ids.get(state_) * _symbols + symbol_;
+    }
+
+    /**
+     * Helper method used to register a non-terminal transition, if new.
+     */
+    private void transition(ParserState state_, int symbol_) {
+        Long key = key(state_, symbol_);
+        if (!_transitions.containsKey(key)) {
+            _transitions.put(key, _froms.size());
+            _froms.add(state_);
+            _ons.add(symbol_);
+        }
+    }
+
+    /**
+     * Helper method used to close the sets over the relation, in place: a
+     * set ends up with the sets of all the nodes it reaches. The nodes of
+     * a cycle share the same set.
+     */
+    private static void digraph(BitSet[] sets_, List<List<Integer>> edges_) {
+        int[] depths = new int[sets_.length];
+        int[] stack = new int[sets_.length];
+        int[] top = new int[1];
+        for (int x = 0; x < sets_.length; ++x) {
+            if (depths[x] == 0) {
+                traverse(x, sets_, edges_, depths, stack, top);
+            }
+        }
+    }
+
+    private static void traverse(int x_, BitSet[] sets_, List<List<Integer>> edges_,
+            int[] depths_, int[] stack_, int[] top_) {
+        stack_[top_[0]++] = x_;
+        int depth = top_[0];
+        depths_[x_] = depth;
+        for (int y : edges_.get(x_)) {
+            if (depths_[y] == 0) {
+                traverse(y, sets_, edges_, depths_, stack_, top_);
+            }
+            depths_[x_] = Math.min(depths_[x_], depths_[y]);
+            sets_[x_].or(sets_[y]);
+        }
+        if (depths_[x_] == depth) {
+            // the root of a cycle; pop it
+            while (true) {
+                int y = stack_[--top_[0]];
+                depths_[y] = Integer.MAX_VALUE;
+                if (y == x_) {
+                    break;
+                }
+                sets_[y] = (BitSet)sets_[x_].clone();
+            }
+        }
+    }
+}
@@ -123,8 +123,10 @@ public final class NonTerminal extends Symbol {
             builder.append(child);
             builder.append(',');
         }
-        // remove the tailing comma
-        builder.deleteCharAt(builder.length() - 1);
+        // remove the tailing comma; none for an empty rule
+        if (builder.length() > 0) {
+            builder.deleteCharAt(builder.length() - 1);
+        }
         return String.format("%s(%s)", super.toString(), builder);
     }
 
@@ -0,0 +1,279 @@
+package mini.java.syntax;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parser engine frozen into dense ACTION and GOTO tables over the
+ * symbol ids of its rule set. States are numbered breadth-first from the
+ * initial one (state 0), following the transitions in the order of the
+ * symbol ids, so the same rule set always gives the same tables.
+ *
+ * An action is ERROR (0), a shift to state s (s + 1) or a reduction by rule
+ * r (-r - 1). As in the engine, reducing wins over shifting.
+ */
+public final class ParseTable {
+    public static final int ERROR = 0;
+
+    private final RuleSet _ruleSet;
+    private final int     _stateCount;
+    private final int     _terminalCount;
+    private final int     _nonTerminalCount;
+    private final int[]   _actions;    // state * terminals + terminal
+    private final int[]   _gotos;      // state * non-terminals + (id - terminals); -1 if none
+    private final Rule[]  _rules;
+    private final int[]   _ruleLefts;   // by rule
+    private final int[]   _ruleLengths; // by rule
+
+    ParseTable(RuleSet ruleSet_, int stateCount_, int[] actions_, int[] gotos_, Rule[] rules_) {
+        _ruleSet = ruleSet_;
+        _stateCount = stateCount_;
+        _terminalCount = ruleSet_.getTerminalCount();
+        _nonTerminalCount = ruleSet_.getSymbolCount() - _terminalCount;
+        _actions = actions_;
+        _gotos = gotos_;
+        _rules = rules_;
+        _ruleLefts = new int[rules_.length];
+        _ruleLengths = new int[rules_.length];
+        for (int r = 0; r < rules_.length; ++r) {
+            _ruleLefts[r] = ruleSet_.getSymbolId(rules_[r].getLeftSymbol());
+            _ruleLengths[r] = rules_[r].getRightSymbols().size();
+        }
+    }
+
+    /**
+     * Freezes the engine built by Parser.buildEngine() for the given rule
+     * set.
+     */
+    public static ParseTable freeze(ParserState engine_, RuleSet ruleSet_) {
+        int terminals = ruleSet_.getTerminalCount();
+        int symbols = ruleSet_.getSymbolCount();
+
+        // number the states
+        List<ParserState> states = new ArrayList<ParserState>();
+        Map<ParserState, Integer> ids = new HashMap<ParserState, Integer>();
+        states.add(engine_);
+        ids.put(engine_, 0);
+        for (int s = 0; s < states.size(); ++s) {
+            ParserState state = states.get(s);
+            state.index(ruleSet_);
+            for (int id = 0; id < symbols; ++id) {
+                ParserState target = state.getGoto(id);
+                if (target != null && !ids.containsKey(target)) {
+                    ids.put(target, states.size());
+                    states.add(target);
+                }
+            }
+        }
+
+        int[] actions = new int[states.size() * terminals];
+        int[] gotos = new int[states.size() * (symbols - terminals)];
+        Arrays.fill(gotos, -1);
+        List<Rule> rules = new ArrayList<Rule>();
+        Map<Rule, Integer> ruleIds = new HashMap<Rule, Integer>();
+        for (int s = 0; s < states.size(); ++s) {
+            ParserState state = states.get(s);
+            for (int id = 0; id < terminals; ++id) {
+                Rule rule = state.getRule(id);
+                ParserState target = state.getGoto(id);
+                if (rule != null) {
+                    Integer r = ruleIds.get(rule);
+                    if (r == null) {
+                        r = rules.size();
+                        ruleIds.put(rule, r);
+                        rules.add(rule);
+                    }
+                    actions[s * terminals + id] = -r - 1;
+                } else if (target != null) {
+                    actions[s * terminals + id] = ids.get(target) + 1;
+                }
+            }
+            for (int id = terminals; id < symbols; ++id) {
+                ParserState target = state.getGoto(id);
+                if (target != null) {
+                    gotos[s * (symbols - terminals) + id - terminals] = ids.get(target);
+                }
+            }
+        }
+        return new ParseTable(ruleSet_, states.size(), actions, gotos, rules.toArray(new Rule[0]));
+    }
+
+    /**
+     * Writes the table out as ints: the sizes, the actions, the gotos and
+     * the indexes of the rules in RuleSet.getRules().
+     */
+    void write(DataOutput out_) throws IOException {
+        out_.writeInt(_stateCount);
+        out_.writeInt(_terminalCount);
+        out_.writeInt(_nonTerminalCount);
+        out_.writeInt(_rules.length);
+        for (int action : _actions) {
+            out_.writeInt(action);
+        }
+        for (int target : _gotos) {
+            out_.writeInt(target);
+        }
+        for (int index : getRuleIndexes()) {
+            out_.writeInt(index);
+        }
+    }
+
+    /**
+     * Reads a table written by write() for the same rule set back. An
+     * IllegalArgumentException is thrown if it doesn't fit the rule set or
+     * the rest of the buffer.
+     */
+    static ParseTable read(IntBuffer in_, RuleSet ruleSet_) {
+        int stateCount = in_.get();
+        int terminals = in_.get();
+        int nonTerminals = in_.get();
+        int ruleCount = in_.get();
+        if (stateCount <= 0 || terminals != ruleSet_.getTerminalCount()
+                || nonTerminals != ruleSet_.getSymbolCount() - terminals
+                || ruleCount < 0 || ruleCount > ruleSet_.getRules().length) {
+            throw new IllegalArgumentException("Table doesn't fit the rule set");
+        }
+        // checked before allocating anything, in long so it can't overflow
+        if ((long)stateCount * (terminals + nonTerminals) + ruleCount > in_.remaining()) {
+            throw new IllegalArgumentException("Table doesn't fit the buffer: " + stateCount + " states");
+        }
+
+        int[] actions = new int[stateCount * terminals];
+        in_.get(actions);
+        int[] gotos = new int[stateCount * nonTerminals];
+        in_.get(gotos);
+        int[] indexes = new int[ruleCount];
+        in_.get(indexes);
+        return create(ruleSet_, stateCount, actions, gotos, indexes);
+    }
+
+    /**
+     * Creates the table out of the constants of a class generated by
+     * ParserGenerator for the same rule set: the actions as shorts, the
+     * gotos plus one, and for every rule its index in RuleSet.getRules(),
+     * the id of its lhs and its length. An IllegalArgumentException is
+     * thrown if they don't fit the rule set.
+     */
+    public static ParseTable unpack(RuleSet ruleSet_, int stateCount_,
+            char[] actions_, char[] gotos_, char[] rules_)
+    {
+        int terminals = ruleSet_.getTerminalCount();
+        int nonTerminals = ruleSet_.getSymbolCount() - terminals;
+        if (stateCount_ <= 0 || actions_.length != stateCount_ * terminals
+                || gotos_.length != stateCount_ * nonTerminals || rules_.length % 3 != 0) {
+            throw new IllegalArgumentException("Table doesn't fit the rule set");
+        }
+
+        int[] actions = new int[actions_.length];
+        for (int i = 0; i < actions.length; ++i) {
+            actions[i] = (short)actions_[i];
+        }
+        int[] gotos = new int[gotos_.length];
+        for (int i = 0; i < gotos.length; ++i) {
+            gotos[i] = gotos_[i] - 1;
+        }
+        int[] indexes = new int[rules_.length / 3];
+        for (int r = 0; r < indexes.length; ++r) {
+            indexes[r] = rules_[3 * r];
+        }
+        ParseTable ret = create(ruleSet_, stateCount_, actions, gotos, indexes);
+        for (int r = 0; r < indexes.length; ++r) {
+            if (ret._ruleLefts[r] != rules_[3 * r + 1] || ret._ruleLengths[r] != rules_[3 * r + 2]) {
+                throw new IllegalArgumentException("Rule doesn't fit: " + ret._rules[r]);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Helper method used to check the values of a table read back, and to
+     * find its rules by index.
+     */
+    private static ParseTable create(RuleSet ruleSet_, int stateCount_,
+            int[] actions_, int[] gotos_, int[] indexes_)
+    {
+        for (int action : actions_) {
+            if (action > stateCount_ || -action > indexes_.length) {
+                throw new IllegalArgumentException("Invalid action: " + action);
+            }
+        }
+        for (int target : gotos_) {
+            if (target < -1 || target >= stateCount_) {
+                throw new IllegalArgumentException("Invalid goto: " + target);
+            }
+        }
+        Rule[] order = ruleSet_.getRules();
+        Rule[] rules = new Rule[indexes_.length];
+        for (int r = 0; r < rules.length; ++r) {
+            if (indexes_[r] < 0 || indexes_[r] >= order.length) {
+                throw new IllegalArgumentException("Invalid rule index: " + indexes_[r]);
+            }
+            rules[r] = order[indexes_[r]];
+        }
+        return new ParseTable(ruleSet_, stateCount_, actions_, gotos_, rules);
+    }
+
+    /**
+     * Returns the indexes of the rules in RuleSet.getRules(), by rule.
+     */
+    int[] getRuleIndexes() {
+        List<Rule> order = Arrays.asList(_ruleSet.getRules());
+        int[] ret = new int[_rules.length];
+        for (int r = 0; r < ret.length; ++r) {
+            ret[r] = order.indexOf(_rules[r]);
+        }
+        return ret;
+    }
+
+    public RuleSet getRuleSet() {
+        return _ruleSet;
+    }
+
+    public int getStateCount() {
+        return _stateCount;
+    }
+
+    /**
+     * Returns the action of the given state on the given terminal id; ERROR
+     * for the ids of no terminal.
+     */
+    public int getAction(int state_, int terminal_) {
+        if (terminal_ < 0 || terminal_ >= _terminalCount) {
+            return ERROR;
+        }
+        return _actions[state_ * _terminalCount + terminal_];
+    }
+
+    /**
+     * Returns the state to go to from the given one after a reduction to the
+     * given non-terminal id; -1 if none.
+     */
+    public int getGoto(int state_, int nonTerminal_) {
+        return _gotos[state_ * _nonTerminalCount + nonTerminal_ - _terminalCount];
+    }
+
+    public Rule getRule(int rule_) {
+        return _rules[rule_];
+    }
+
+    public int getRuleCount() {
+        return _rules.length;
+    }
+
+    /**
+     * Returns the symbol id of the lhs of the given rule.
+     */
+    public int getRuleLeft(int rule_) {
+        return _ruleLefts[rule_];
+    }
+
+    public int getRuleLength(int rule_) {
+        return _ruleLengths[rule_];
+    }
+}
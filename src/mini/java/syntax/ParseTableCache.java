@@ -0,0 +1,133 @@
+package mini.java.syntax;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the parse tables of rule sets in a directory, one file per
+ * RuleSet.getFingerprint(), so a rule set seen before doesn't have its
+ * engine rebuilt. Changing a rule changes the fingerprint, and so the file
+ * looked for. The files are memory-mapped to be read.
+ *
+ * The cache is only a shortcut: a file that can't be read or doesn't fit
+ * is rebuilt, and a table that can't be written is still returned.
+ */
+public final class ParseTableCache {
+    /**
+     * The system property naming the directory of the default cache.
+     */
+    public static final String DIRECTORY_PROPERTY = "mini.java.syntax.cache";
+
+    private static final int MAGIC = 0x4d4a5054; // "MJPT"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".table";
+
+    private final File _directory;
+
+    public ParseTableCache(File directory_) {
+        _directory = directory_;
+    }
+
+    /**
+     * Returns the cache in the directory given by DIRECTORY_PROPERTY; null
+     * if it's not set.
+     */
+    public static ParseTableCache getDefault() {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        return (directory != null && !directory.isEmpty())
+            ? new ParseTableCache(new File(directory)) : null;
+    }
+
+    public File getDirectory() {
+        return _directory;
+    }
+
+    /**
+     * Returns the file the table of the given rule set is kept in.
+     */
+    public File getFile(RuleSet rules_) {
+        return new File(_directory, rules_.getFingerprint() + SUFFIX);
+    }
+
+    /**
+     * Returns the table of the given rule set, loading it if it's in the
+     * cache, or else building and storing it.
+     */
+    public ParseTable get(RuleSet rules_) {
+        File file = getFile(rules_);
+        if (file.isFile()) {
+            try {
+                return load(file, rules_);
+            } catch (IOException ex_) {
+                // fall through and rebuild
+            } catch (RuntimeException ex_) {
+                // a broken file: an IllegalArgumentException or a
+                // BufferUnderflowException; rebuild as well
+            }
+        }
+
+        ParseTable ret = ParseTable.freeze(Parser.buildEngine(rules_), rules_);
+        try {
+            store(file, ret);
+        } catch (IOException ex_) {
+            // not cached this time
+        }
+        return ret;
+    }
+
+    /**
+     * Helper method used to map the given file and read the table in it.
+     */
+    private static ParseTable load(File file_, RuleSet rules_) throws IOException {
+        FileChannel channel = FileChannel.open(file_.toPath(), StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IntBuffer in = buffer.asIntBuffer();
+            if (in.get() != MAGIC || in.get() != VERSION) {
+                throw new IllegalArgumentException("Not a table: " + file_);
+            }
+            return ParseTable.read(in, rules_);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Helper method used to write the table to a temporary file first, then
+     * move it in place; so a reader never sees half a table.
+     */
+    private void store(File file_, ParseTable table_) throws IOException {
+        Files.createDirectories(_directory.toPath());
+        File temp = File.createTempFile(file_.getName(), ".tmp", _directory);
+        try {
+            OutputStream stream = new BufferedOutputStream(new FileOutputStream(temp));
+            try {
+                DataOutputStream out = new DataOutputStream(stream);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                table_.write(out);
+                out.flush();
+            } finally {
+                stream.close();
+            }
+            try {
+                Files.move(temp.toPath(), file_.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex_) {
+                Files.move(temp.toPath(), file_.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            temp.delete(); // if still there
+        }
+    }
+}
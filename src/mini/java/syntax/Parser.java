@@ -3,8 +3,6 @@ package mini.java.syntax;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -19,17 +17,64 @@ public class Parser {
     
     private static boolean DEBUG = false;
     
-    private final ParserState _engine;
+    private ParserState _engine; // built on demand
     private final RuleSet _rules;
-    private final static Terminal END = new Terminal(RuleSet.END);
+    private final static int END_ID = 0; // see RuleSet.getSymbolId()
+    private final int _start; // the id of START
+    private final ParseTable _table;
 
     
+    /**
+     * Constructor. The tables come from ParseTableCache.getDefault(), if
+     * it's set.
+     */
     public Parser(RuleSet rules_) {
+        this(rules_, ParseTableCache.getDefault());
+    }
+    
+    /**
+     * Constructor. The tables are looked up in the given cache, or built if
+     * it's null.
+     */
+    public Parser(RuleSet rules_, ParseTableCache cache_) {
         _rules = rules_;
-        _engine = buildEngine(rules_);
+        _start = rules_.getSymbolId(RuleSet.START);
+        _table = lookUp(cache_);
+    }
+    
+    /**
+     * Constructor. Takes the given tables, e.g. from a class generated by
+     * ParserGenerator; if null, as for a stale generated class, they're
+     * obtained as by Parser(RuleSet).
+     */
+    public Parser(RuleSet rules_, ParseTable table_) {
+        _rules = rules_;
+        _start = rules_.getSymbolId(RuleSet.START);
+        if (table_ != null && table_.getRuleSet() != rules_) {
+            throw new IllegalArgumentException("The tables are for another rule set");
+        }
+        _table = (table_ != null) ? table_ : lookUp(ParseTableCache.getDefault());
+    }
+    
+    /**
+     * Helper method used to get the tables out of the given cache, or to
+     * build them if it's null.
+     */
+    private ParseTable lookUp(ParseTableCache cache_) {
+        return (cache_ != null) ? cache_.get(_rules) : ParseTable.freeze(getEngine(), _rules);
     }
     
+    /**
+     * Returns the engine the tables were built from; built now if the tables
+     * came from a cache or a generated class.
+     */
     public ParserState getEngine() {
+        if (_engine == null) {
+            _engine = buildEngine(_rules);
+            for (NFAState state : Helper.findAll(_engine)) {
+                ((ParserState)state).index(_rules);
+            }
+        }
         return _engine;
     }
 
@@ -38,76 +83,119 @@ public class Parser {
         return _rules; 
     }
 
+    public ParseTable getTable() {
+        return _table;
+    }
+
     /**
      * New interface.
      */
-    public NonTerminal parse(Terminal... tokens_) {
-        
-        List<Symbol> in = new LinkedList<Symbol>();
-        in.addAll(Arrays.asList(tokens_));
-        in.add(END); // as the end
-        
-        List<Symbol> out = new LinkedList<Symbol>();
-        List<ParserState> stack = new LinkedList<ParserState>();
-        
-        
-        stack.add(_engine);
-        
-        while (!in.isEmpty()) { // should never be empty
-            Symbol nextSymbol = in.remove(0);
-            if (RuleSet.START.equals(nextSymbol.getType())) {
-                if (in.size() != 1 && in.get(0) != END) {
-                    throw new RuntimeException("Parsing error: Extra trailing symbols.");
-                }
-                
-                return (NonTerminal)nextSymbol;
+    public NonTerminal parse(final Terminal... tokens_) {
+        return parse(new Input() {
+            int size() {
+                return tokens_.length;
             }
-            if (nextSymbol == END) {
-                throw new RuntimeException("Parsing error: END symbol encountered.");
+            int getId(int index_) {
+                return _rules.getSymbolId(tokens_[index_].getType());
             }
-            ParserState currState = stack.get(stack.size() - 1);
-            ParserState nextState = (ParserState)currState.getState(nextSymbol.getType());
-            
-            if (nextState == null) {
-                throw new RuntimeException("Parsing error: Illegal syntax at <" + nextSymbol + ">");
+            Terminal getToken(int index_) {
+                return tokens_[index_];
             }
+        });
+    }
+    
+    /**
+     * Parses the tokens straight out of the buffer; only the shifted ones
+     * become Terminals, the lookaheads are read by kind.
+     */
+    public NonTerminal parse(final TokenBuffer tokens_) {
+        // kind -> symbol id, once per kind rather than per token
+        final int[] ids = new int[tokens_.getKindCount()];
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = _rules.getSymbolId(tokens_.getKindType(i));
+        }
+        return parse(new Input() {
+            int size() {
+                return tokens_.size();
+            }
+            int getId(int index_) {
+                return ids[tokens_.getKind(index_)];
+            }
+            Terminal getToken(int index_) {
+                return tokens_.getToken(index_);
+            }
+        });
+    }
+    
+    /**
+     * The tokens to be parsed, by index.
+     */
+    private static abstract class Input {
+        abstract int size();
+        abstract int getId(int index_); // the symbol id of the token's type
+        abstract Terminal getToken(int index_);
+    }
+    
+    /**
+     * Helper method used to run the tables over the input. The states are
+     * kept on an int stack, next to the symbols pushed for them; only the
+     * names are used in the tree and in the error messages.
+     */
+    private NonTerminal parse(Input in_) {
+        int next = 0; // index of the next token
+        int[] states = new int[64];
+        Symbol[] symbols = new Symbol[64];
+        int top = 0; // states[top] is the current state
+        // looked up once per token, not again for each reduction before its shift
+        int lookahead = (next < in_.size()) ? in_.getId(next) : END_ID;
+        
+        while (true) {
+            int action = _table.getAction(states[top], lookahead);
             
-            out.add(nextSymbol);
-            stack.add(nextState);
-            
-            if (nextState.canReduce()) {
-                Symbol lookahead = in.get(0); // peek
-                Rule rule = nextState.getRule(lookahead.getType());
-                if (rule != null)
-                {
-                    {
-                        // we should reduce
-                        int toIndex = out.size();
-                        int fromIndex = toIndex - rule.getRightSymbols().size();
-                        List<Symbol> children = out.subList(fromIndex, toIndex);
-                        
-                        NonTerminal node = new NonTerminal(rule.getLeftSymbol(), rule).addChildren(children);
-                        in.add(0, node); // puch the new NonTerminal back to the input queue
-                        
-                        children.clear();
+            if (action < 0) {
+                // reduce, then go to the state for its lhs directly
+                int rule = -action - 1;
+                int length = _table.getRuleLength(rule);
+                Rule r = _table.getRule(rule);
+                NonTerminal node = new NonTerminal(r.getLeftSymbol(), r).addChildren(
+                        Arrays.asList(symbols).subList(top + 1 - length, top + 1));
+                Arrays.fill(symbols, top + 1 - length, top + 1, null);
+                top -= length;
+                
+                int left = _table.getRuleLeft(rule);
+                if (left == _start) {
+                    if (next < in_.size()) {
+                        throw new RuntimeException("Parsing error: Extra trailing symbols.");
                     }
-                    int toIndex = stack.size();
-                    int fromIndex = toIndex - rule.getRightSymbols().size();
-                    stack.subList(fromIndex, toIndex).clear();   
+                    return node;
                 }
-                else
-                {
-                    // otherwise we should shift...
+                int state = _table.getGoto(states[top], left);
+                if (state < 0) {
+                    throw new RuntimeException("Parsing error: Illegal syntax at <" + node + ">");
                 }
-                
-             
+                if (++top == states.length) {
+                    states = Arrays.copyOf(states, 2 * top);
+                    symbols = Arrays.copyOf(symbols, 2 * top);
+                }
+                states[top] = state;
+                symbols[top] = node;
+            } else if (lookahead == END_ID) {
+                throw new RuntimeException("Parsing error: END symbol encountered.");
+            } else if (action == ParseTable.ERROR) {
+                throw new RuntimeException("Parsing error: Illegal syntax at <" + in_.getToken(next) + ">");
+            } else {
+                // shift
+                if (++top == states.length) {
+                    states = Arrays.copyOf(states, 2 * top);
+                    symbols = Arrays.copyOf(symbols, 2 * top);
+                }
+                states[top] = action - 1;
+                symbols[top] = in_.getToken(next++);
+                lookahead = (next < in_.size()) ? in_.getId(next) : END_ID;
             }
         }
-        
-        throw new RuntimeException("Parsing error: Reaching the end of input queue.");
     }
     
-    
     protected static ParserState buildEngine(RuleSet rules_) {
         if (rules_ == null || rules_.getRules().length <= 0) {
             throw new IllegalArgumentException("Invalid rule set: null/empty");
@@ -144,8 +232,6 @@ public class Parser {
                 }
                 prev = curr;
             }            
-            
-            prev.addRule(rule); // add the rule to the final state
         }
         
         __dumpEngine(nfaRoot);
@@ -163,18 +249,7 @@ public class Parser {
                         assert(input_ != null);
                         
                         if (!mapping.containsKey(dest_)) { // new mapping
-                            ParserState engineState = new ParserState(engine);
-                            // copy the rules from the NFA to the engine
-                            for (NFAState state : dest_.getStates()) {
-                                // XXX - hack
-                                if (state instanceof ParserState) {
-                                    ParserState st = (ParserState)state;
-                                    if (st.canReduce()) {
-                                        engineState.addRules(st.getRules());
-                                    }
-                                }
-                            }
-                            mapping.put(dest_, engineState);
+                            mapping.put(dest_, new ParserState(engine));
                         }
                         
                         // add the corresponding transitions in the newly created DFA
@@ -186,6 +261,9 @@ public class Parser {
                 }));
         
         
+        // **Attaches the reductions, with their LALR(1) lookaheads
+        Lookaheads.attach(engine, rules_);
+        
         __dumpEngine(engine);
         
         return engine;
@@ -0,0 +1,179 @@
+package mini.java.syntax;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Generates the Java source of a class holding the parse tables of a rule
+ * set, so they don't have to be built when the application starts. The
+ * tables are packed into string constants, as by the ScannerGenerator of
+ * the lex package, and the generated class is used as:
+ *
+ *   Parser parser = new Parser(RULE_SET, Tables.create(RULE_SET));
+ *
+ * create() returns null if the rule set isn't the one the tables were
+ * generated from, in which case the Parser builds them itself.
+ */
+public final class ParserGenerator {
+    // chars per string literal; a literal takes at most 64KB in the class file
+    private static final int CHUNK = 16 * 1024;
+
+    private ParserGenerator() {
+    }
+
+    /**
+     * Generates the tables of the given rule set. The package may be null
+     * for the default package.
+     */
+    public static String generate(RuleSet rules_, String package_, String className_) {
+        ParseTable table = ParseTable.freeze(Parser.buildEngine(rules_), rules_);
+        int stateCount = table.getStateCount();
+        int terminals = rules_.getTerminalCount();
+        int symbols = rules_.getSymbolCount();
+        if (stateCount >= Short.MAX_VALUE || table.getRuleCount() >= Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many states to generate: " + stateCount);
+        }
+
+        char[] actions = new char[stateCount * terminals];
+        char[] gotos = new char[stateCount * (symbols - terminals)];
+        for (int s = 0; s < stateCount; ++s) {
+            for (int id = 0; id < terminals; ++id) {
+                actions[s * terminals + id] = (char)table.getAction(s, id);
+            }
+            for (int id = terminals; id < symbols; ++id) {
+                gotos[s * (symbols - terminals) + id - terminals] = (char)(table.getGoto(s, id) + 1);
+            }
+        }
+        int[] indexes = table.getRuleIndexes();
+        char[] rules = new char[3 * indexes.length];
+        for (int r = 0; r < indexes.length; ++r) {
+            rules[3 * r] = (char)indexes[r];
+            rules[3 * r + 1] = (char)table.getRuleLeft(r);
+            rules[3 * r + 2] = (char)table.getRuleLength(r);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("// Generated by ").append(ParserGenerator.class.getName())
+            .append("; do not edit.\n");
+        if (package_ != null) {
+            sb.append("package ").append(package_).append(";\n");
+        }
+        sb.append("\n");
+        sb.append("import mini.java.syntax.ParseTable;\n");
+        sb.append("import mini.java.syntax.RuleSet;\n");
+        sb.append("\n");
+        sb.append("public final class ").append(className_).append(" {\n");
+        sb.append("    /**\n");
+        sb.append("     * The fingerprint of the rule set the tables were generated from.\n");
+        sb.append("     */\n");
+        sb.append("    public static final String FINGERPRINT = ")
+            .append(quote(rules_.getFingerprint())).append(";\n\n");
+        sb.append("    private static final int STATES = ").append(stateCount).append(";\n\n");
+        sb.append("    // [state * terminals + terminal] -> the action, as a short\n");
+        appendTable(sb, "ACTIONS", actions);
+        sb.append("    // [state * non-terminals + non-terminal] -> target state + 1; 0 if none\n");
+        appendTable(sb, "GOTOS", gotos);
+        sb.append("    // by rule: its index in RuleSet.getRules(), the id of its lhs and its length\n");
+        appendTable(sb, "RULES", rules);
+
+        sb.append("    private ").append(className_).append("() {\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    /**\n");
+        sb.append("     * Returns the tables of the given rule set; null if it's not the one\n");
+        sb.append("     * they were generated from.\n");
+        sb.append("     */\n");
+        sb.append("    public static ParseTable create(RuleSet rules_) {\n");
+        sb.append("        if (!FINGERPRINT.equals(rules_.getFingerprint())) {\n");
+        sb.append("            return null;\n");
+        sb.append("        }\n");
+        sb.append("        return ParseTable.unpack(rules_, STATES, ACTIONS, GOTOS, RULES);\n");
+        sb.append("    }\n");
+        sb.append("\n");
+        sb.append("    private static char[] unpack(String... chunks_) {\n");
+        sb.append("        StringBuilder sb = new StringBuilder();\n");
+        sb.append("        for (String chunk : chunks_) {\n");
+        sb.append("            sb.append(chunk);\n");
+        sb.append("        }\n");
+        sb.append("        return sb.toString().toCharArray();\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Generates the tables of the rule set in the given static field into
+     * a source file under the given directory. Meant to be run as a build
+     * step, e.g.:
+     *
+     *   ParserGenerator mini.java.MJCompiler.RULE_SET mini.java.MJParserTables src
+     */
+    public static void main(String[] args_) throws Exception {
+        if (args_.length != 3) {
+            System.err.println("Usage: ParserGenerator <class>.<rule set field> <class to generate> <source dir>");
+            System.exit(1);
+        }
+
+        int dot = args_[0].lastIndexOf('.');
+        RuleSet rules = (RuleSet)Class.forName(args_[0].substring(0, dot))
+            .getField(args_[0].substring(dot + 1)).get(null);
+
+        dot = args_[1].lastIndexOf('.');
+        String packageName = (dot >= 0) ? args_[1].substring(0, dot) : null;
+        String className = args_[1].substring(dot + 1);
+        File dir = (packageName != null)
+            ? new File(args_[2], packageName.replace('.', File.separatorChar)) : new File(args_[2]);
+        write(new File(dir, className + ".java"), generate(rules, packageName, className));
+    }
+
+    /**
+     * Helper method used to write the source out, creating its directory.
+     */
+    private static void write(File file_, String source_) throws IOException {
+        file_.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file_);
+        try {
+            out.write(source_.getBytes("US-ASCII")); // quote() escapes the rest
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Helper method used to emit a char[] constant packed into strings.
+     */
+    private static void appendTable(StringBuilder sb_, String name_, char[] values_) {
+        sb_.append("    private static final char[] ").append(name_).append(" = unpack(");
+        for (int from = 0; from < values_.length || from == 0; from += CHUNK) {
+            int to = Math.min(values_.length, from + CHUNK);
+            sb_.append((from > 0) ? ",\n            " : "\n            ");
+            sb_.append(quote(new String(values_, from, to - from)));
+        }
+        sb_.append(");\n\n");
+    }
+
+    /**
+     * Helper method used to create a Java string literal, as the one of
+     * ScannerGenerator: octal escapes for the control chars, since the
+     * unicode escapes of the line terminators are translated before the
+     * source is even tokenized.
+     */
+    private static String quote(String s_) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < s_.length(); ++i) {
+            char ch = s_.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                sb.append('\\').append(ch);
+            } else if (ch >= 0x20 && ch < 0x7f) {
+                sb.append(ch);
+            } else if (ch < 0x100) {
+                sb.append(String.format("\\%03o", (int)ch));
+            } else {
+                sb.append(String.format("\\u%04x", (int)ch));
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
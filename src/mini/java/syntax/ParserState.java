@@ -1,5 +1,6 @@
 package mini.java.syntax;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -20,6 +21,10 @@ public class ParserState extends NFAState {
     // fields
     private final NFAState          _root;
     private final Map<String, Rule> _rules = new HashMap<String, Rule>();
+    // by symbol id; see index()
+    private ParserState[]           _gotos;
+    private Rule[]                  _reduces;
+    private int[]                   _reduceLefts; // the ids of their lhs
 //    private RuleSet           _ruleSet;
     
     private ParserState() {
@@ -38,8 +43,14 @@ public class ParserState extends NFAState {
     }
     
     public ParserState addRule(Rule rule_) {
-
-        for (String lookahead : rule_.getFollows()) {
+        return addRule(rule_, rule_.getFollows());
+    }
+    
+    /**
+     * Adds a rule to be reduced by on the given lookaheads.
+     */
+    public ParserState addRule(Rule rule_, Collection<String> lookaheads_) {
+        for (String lookahead : lookaheads_) {
             Rule old = _rules.put(lookahead, rule_);
             if (old != null) {
                 throw new RuntimeException(
@@ -118,6 +129,54 @@ public class ParserState extends NFAState {
         return _rules.get(lookahead_);
     }
     
+    /**
+     * Indexes the transitions and the rules by the symbol ids of the given
+     * rule set, for getGoto() and getRule(int). To be called again if the
+     * state or the ids change.
+     */
+    public void index(RuleSet rules_) {
+        ParserState[] gotos = new ParserState[rules_.getSymbolCount()];
+        for (Object input : getInputs()) {
+            int id = rules_.getSymbolId((String)input);
+            if (id >= 0) {
+                gotos[id] = (ParserState)getState(input);
+            }
+        }
+        Rule[] reduces = new Rule[rules_.getTerminalCount()];
+        int[] reduceLefts = new int[reduces.length];
+        for (Map.Entry<String, Rule> entry : _rules.entrySet()) {
+            int id = rules_.getSymbolId(entry.getKey());
+            if (id >= 0 && id < reduces.length) {
+                reduces[id] = entry.getValue();
+                reduceLefts[id] = rules_.getSymbolId(entry.getValue().getLeftSymbol());
+            }
+        }
+        _gotos = gotos;
+        _reduces = reduces;
+        _reduceLefts = reduceLefts;
+    }
+    
+    /**
+     * Returns the state to go to on the given symbol id; null if none.
+     */
+    public ParserState getGoto(int symbol_) {
+        return (symbol_ >= 0 && symbol_ < _gotos.length) ? _gotos[symbol_] : null;
+    }
+    
+    /**
+     * Returns the rule to reduce by on the given lookahead id; null if none.
+     */
+    public Rule getRule(int lookahead_) {
+        return (lookahead_ >= 0 && lookahead_ < _reduces.length) ? _reduces[lookahead_] : null;
+    }
+    
+    /**
+     * Returns the id of the lhs of getRule(lookahead_).
+     */
+    int getReduceLeft(int lookahead_) {
+        return _reduceLefts[lookahead_];
+    }
+    
     public Rule[] getRules() {
         // getRules() shouldn't return duplicate rules
         return new HashSet<Rule>(_rules.values()).toArray(new Rule[0]);
@@ -1,16 +1,18 @@
 package mini.java.syntax;
 
-import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
-import mini.java.fa.helper.Helper;
-import mini.java.fa.helper.IFinder;
+import java.util.TreeSet;
 
 public class RuleSet {
     
@@ -18,14 +20,22 @@ public class RuleSet {
     public final static String END = "END";
     
     // fields
-    private final Set<Rule> _rules = new HashSet<Rule>();
+    private final Set<Rule> _rules = new LinkedHashSet<Rule>(); // in order
     private final Set<String> _symbols = new HashSet<String>();
     private final Set<String> _nonTerminals = new HashSet<String>();
     
     private Rule _start;
     private Set<String> _terminals; // cached
     private Map<String, Set<String>> _follows; // cached
+    private Map<String, Integer> _ids; // cached; see getSymbolId()
+    private String[] _names; // cached; by id
+    private String _fingerprint; // cached
+    private final FirstFollowSets _sets = new FirstFollowSets();
+    
     
+    public RuleSet() {
+        _sets.addFollow(START, END); // an extra follower for START
+    }
     
     public RuleSet addRule(Rule rule_) {
         rule_.setParent(this); // a rule can be in only one rule set?
@@ -50,18 +60,54 @@ public class RuleSet {
         
         _symbols.add(lhs);
         _symbols.addAll(rule_.getRightSymbols());       
+        _sets.addRule(lhs, rule_.getRightSymbols());
         // clear the cache; need to recalc
         _terminals = null;
         _follows = null;
+        _ids = null;
+        _names = null;
+        _fingerprint = null;
 
         
         return this;
     }
     
+    /**
+     * Returns the rules, in the order they were added.
+     */
     public Rule[] getRules() {
         return _rules.toArray(new Rule[0]);
     }
     
+    /**
+     * Returns a hex digest of the rules and their order; the same for equal
+     * rule sets, e.g. across runs, and different once a rule changes.
+     */
+    public String getFingerprint() {
+        if (_fingerprint == null) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex_) {
+                throw new IllegalStateException(ex_); // every JRE has SHA-256
+            }
+            for (Rule rule : _rules) {
+                // the symbols, each ended by a NUL, and the rules by a newline
+                StringBuilder sb = new StringBuilder(rule.getLeftSymbol()).append('\0');
+                for (String symbol : rule.getRightSymbols()) {
+                    sb.append(symbol).append('\0');
+                }
+                digest.update(sb.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            _fingerprint = hex.toString();
+        }
+        return _fingerprint;
+    }
+    
     public Set<String> getSymbols() {
         return Collections.unmodifiableSet(_symbols);
     }
@@ -79,6 +125,64 @@ public class RuleSet {
         return Collections.unmodifiableSet(_nonTerminals);
     }
     
+    /**
+     * Returns the dense id of the given symbol; -1 if it's not in the rule
+     * set. END is 0, followed by the other terminals and then by the
+     * non-terminals, each in alphabetical order; so a symbol is a terminal
+     * iff its id is below getTerminalCount(). The ids stay the same until
+     * the next addRule().
+     */
+    public int getSymbolId(String symbol_) {
+        Integer ret = getIds().get(symbol_);
+        return (ret != null) ? ret : -1;
+    }
+    
+    public String getSymbolName(int id_) {
+        getIds();
+        return _names[id_];
+    }
+    
+    /**
+     * Returns the names of all the symbols, by id.
+     */
+    public String[] getSymbolNames() {
+        getIds();
+        return _names.clone();
+    }
+    
+    public int getSymbolCount() {
+        return getIds().size();
+    }
+    
+    /**
+     * Returns the number of terminals; END included.
+     */
+    public int getTerminalCount() {
+        return getTerminals().size() + (_symbols.contains(END) ? 0 : 1);
+    }
+    
+    /**
+     * Helper method used to assign the symbol ids, if not yet.
+     */
+    private Map<String, Integer> getIds() {
+        if (_ids == null) {
+            List<String> names = new ArrayList<String>();
+            names.add(END);
+            Set<String> terminals = new TreeSet<String>(getTerminals());
+            terminals.remove(END);
+            names.addAll(terminals);
+            names.addAll(new TreeSet<String>(_nonTerminals));
+            
+            Map<String, Integer> ids = new HashMap<String, Integer>();
+            for (int i = 0; i < names.size(); ++i) {
+                ids.put(names.get(i), i);
+            }
+            _names = names.toArray(new String[0]);
+            _ids = ids;
+        }
+        return _ids;
+    }
+    
     public Rule getStart() {
         if (!_nonTerminals.contains(START)) {
             throw new IllegalArgumentException("The rule set must contain one and only one START symbol");
@@ -87,7 +191,9 @@ public class RuleSet {
     }
     
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Returns the terminals that can follow the given symbol; END for START.
+     */
     public Set<String> getFollows(String symbol_) {
         if (!_symbols.contains(symbol_)) {
             throw new IllegalArgumentException("Unknown symbol: " + symbol_);
@@ -95,83 +201,49 @@ public class RuleSet {
         
         if (_follows == null) {
             _follows = new HashMap<String, Set<String>>();
-            
-            // we have three pieces info to store for each symbol
-            // info[0] - the direct follows
-            // info[1] - if it's the last one of a rule, the rule's lhs
-            // info[2] - if it's a lhs itself, the rule's first rhs
-            Map<String, Set<String>>[] __info =
-                (Map<String, Set<String>>[])Array.newInstance(Map.class, 3);
-            for (int i=0; i<__info.length; ++i) {
-                __info[i] = new HashMap<String, Set<String>>();
-            }
-            for (String symbol : getSymbols()) {
-                for (int i=0; i<__info.length; ++i) {
-                    __info[i].put(symbol, new HashSet<String>());
-                }
-            }
-            final Map<String, Set<String>>
-                __follows = __info[0],
-                __tails = __info[1],
-                __heads = __info[2];
-            
-            
-            for (Rule rule : getRules()) {
-                String lhs = rule.getLeftSymbol();
-                
-                String prev = null;
-                for (String symbol : rule.getRightSymbols()) {
-                    if (prev == null) {
-                        __heads.get(lhs).add(symbol); 
-                    } else {
-                        __follows.get(prev).add(symbol);                        
-                    }
-                    prev = symbol;
-                }                
-                __tails.get(prev).add(lhs); // finally the tail
-            }            
-            __follows.get(START).add(END); // an extra follower for START
-            __heads.put(END, new HashSet<String>());
-            
-            // now for each symbol we find its real follows
-            for (String symbol : getSymbols()) {
-                final Set<String> ret = new HashSet<String>();                
-                
-                Helper.visit(symbol, new IFinder<String>(){    
-                    @Override
-                    public List<String> findNext(String node_) {
-                        ret.addAll(__follows.get(node_)); // add direct follows
-                        return
-                            // we also need to check if it is a "tail"
-                            new LinkedList<String>(__tails.get(node_)); 
-                    }                    
-                });
-                
-                __expand(ret, __heads);
-                _follows.put(symbol, ret);
-            }            
-            
         }
-        return _follows.get(symbol_);
+        Set<String> ret = _follows.get(symbol_);
+        if (ret == null) {
+            ret = getTerminals(_sets.getFollows(symbol_));
+            _follows.put(symbol_, ret);
+        }
+        return ret;
+    }
+    
+    /**
+     * Returns the terminals the given symbol can start with; just itself
+     * for a terminal.
+     */
+    public Set<String> getFirsts(String symbol_) {
+        if (!_symbols.contains(symbol_)) {
+            throw new IllegalArgumentException("Unknown symbol: " + symbol_);
+        }
+        return getTerminals(_sets.getFirsts(symbol_));
     }
     
+    /**
+     * Returns whether the given symbol can derive the empty string.
+     */
+    public boolean isNullable(String symbol_) {
+        if (!_symbols.contains(symbol_)) {
+            throw new IllegalArgumentException("Unknown symbol: " + symbol_);
+        }
+        return _sets.isNullable(symbol_);
+    }
     
-    private void __expand(Set<String> ret_, Map<String, Set<String>> heads_) {
-        final Set<String> ret = ret_;
-        final Map<String, Set<String>> heads = heads_;
-        
-        Helper.visit(ret, new IFinder<String>(){
-            @Override
-            public List<String> findNext(String node_) {
-                ret.addAll( heads.get(node_));
-                return new LinkedList<String>(ret); // next...
+    /**
+     * Helper method used to turn a set of FirstFollowSets into the terminals
+     * in it.
+     */
+    private Set<String> getTerminals(BitSet set_) {
+        Set<String> ret = new HashSet<String>();
+        for (int id = set_.nextSetBit(0); id >= 0; id = set_.nextSetBit(id + 1)) {
+            String symbol = _sets.getName(id);
+            if (!_nonTerminals.contains(symbol)) {
+                ret.add(symbol);
             }
-            
-        });
-        // all the non-terminals should be wiped out since we have already
-        // expanded then into their first element(s)
-        ret.removeAll(getNonTerminals());
-        
+        }
+        return ret;
     }
 
 }
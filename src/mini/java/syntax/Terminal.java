@@ -2,11 +2,21 @@ package mini.java.syntax;
 
 public final class Terminal extends Symbol {
     private String _data;
+    private String _trivia;
     
     // Constructor.
     public Terminal(String type_, String data_) {
+        this(type_, data_, null);
+    }
+    
+    /**
+     * Constructor. The trivia is the text of the skipped tokens right
+     * before this one; it's not part of the identity of the token.
+     */
+    public Terminal(String type_, String data_, String trivia_) {
         super(type_);
         _data = data_;
+        _trivia = trivia_;
     }
     
     // Constructor.
@@ -17,6 +27,10 @@ public final class Terminal extends Symbol {
     public String getData() {
         return _data;
     }
+    
+    public String getTrivia() {
+        return _trivia;
+    }
 
     @Override
     public void accept(SymbolVisitor visitor_) {
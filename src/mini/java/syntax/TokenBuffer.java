@@ -0,0 +1,171 @@
+package mini.java.syntax;
+
+import java.util.Arrays;
+
+/**
+ * Tokens stored as parallel arrays of kind, start and length over the
+ * source they were read from, i.e. 12 bytes per token. The kinds index
+ * the token types; Terminals and their text are only created on demand.
+ */
+public final class TokenBuffer {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final CharSequence _source;
+    private final String[]     _types;
+    private int[]              _kinds   = new int[INITIAL_CAPACITY];
+    private int[]              _starts  = new int[INITIAL_CAPACITY];
+    private int[]              _lengths = new int[INITIAL_CAPACITY];
+    private int                _size;
+
+    /**
+     * Constructor. types_[k] is the type of the tokens of kind k.
+     */
+    public TokenBuffer(CharSequence source_, String[] types_) {
+        _source = source_;
+        _types = types_;
+    }
+
+    public void add(int kind_, int start_, int length_) {
+        if (_size == _kinds.length) {
+            int capacity = 2 * _size;
+            _kinds = Arrays.copyOf(_kinds, capacity);
+            _starts = Arrays.copyOf(_starts, capacity);
+            _lengths = Arrays.copyOf(_lengths, capacity);
+        }
+        _kinds[_size] = kind_;
+        _starts[_size] = start_;
+        _lengths[_size] = length_;
+        ++_size;
+    }
+
+    /**
+     * Replaces the tokens [from_, to_) with all the tokens of the given
+     * buffer, and shifts the starts of the tokens after them by shift_,
+     * e.g. after an edit of the source. Linear in the tokens after to_.
+     */
+    public void replace(int from_, int to_, TokenBuffer tokens_, int shift_) {
+        if (from_ < 0 || from_ > to_ || to_ > _size) {
+            throw new IndexOutOfBoundsException("Range: " + from_ + "-" + to_ + ", Size: " + _size);
+        }
+        int size = _size - (to_ - from_) + tokens_._size;
+        if (size > _kinds.length) {
+            int capacity = Math.max(size, 2 * _kinds.length);
+            _kinds = Arrays.copyOf(_kinds, capacity);
+            _starts = Arrays.copyOf(_starts, capacity);
+            _lengths = Arrays.copyOf(_lengths, capacity);
+        }
+        int tail = from_ + tokens_._size;
+        System.arraycopy(_kinds, to_, _kinds, tail, _size - to_);
+        System.arraycopy(_starts, to_, _starts, tail, _size - to_);
+        System.arraycopy(_lengths, to_, _lengths, tail, _size - to_);
+        System.arraycopy(tokens_._kinds, 0, _kinds, from_, tokens_._size);
+        System.arraycopy(tokens_._starts, 0, _starts, from_, tokens_._size);
+        System.arraycopy(tokens_._lengths, 0, _lengths, from_, tokens_._size);
+        for (int i = tail; i < size; ++i) {
+            _starts[i] += shift_;
+        }
+        _size = size;
+    }
+
+    public int size() {
+        return _size;
+    }
+
+    public CharSequence getSource() {
+        return _source;
+    }
+
+    /**
+     * Returns the number of kinds, i.e. of token types.
+     */
+    public int getKindCount() {
+        return _types.length;
+    }
+
+    public String getKindType(int kind_) {
+        return _types[kind_];
+    }
+
+    public int getKind(int index_) {
+        return _kinds[check(index_)];
+    }
+
+    public String getType(int index_) {
+        return _types[_kinds[check(index_)]];
+    }
+
+    public int getStart(int index_) {
+        return _starts[check(index_)];
+    }
+
+    public int getLength(int index_) {
+        return _lengths[check(index_)];
+    }
+
+    /**
+     * Returns the index of the token starting at the given offset of the
+     * source; -1 if none. The tokens are expected in the order of their
+     * offsets, as a tokenizer adds them.
+     */
+    public int find(int start_) {
+        int lo = 0, hi = _size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (_starts[mid] < start_) {
+                lo = mid + 1;
+            } else if (_starts[mid] > start_) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the text of the given token, copied out of the source.
+     */
+    public String getText(int index_) {
+        int start = _starts[check(index_)];
+        return _source.subSequence(start, start + _lengths[index_]).toString();
+    }
+
+    /**
+     * Returns the text between the given token and the previous one, e.g.
+     * the skipped tokens; at size(), the text after the last token.
+     */
+    public String getTrivia(int index_) {
+        if (index_ < 0 || index_ > _size) {
+            throw new IndexOutOfBoundsException("Index: " + index_ + ", Size: " + _size);
+        }
+        int from = (index_ > 0) ? _starts[index_ - 1] + _lengths[index_ - 1] : 0;
+        int to = (index_ < _size) ? _starts[index_] : _source.length();
+        return _source.subSequence(from, to).toString();
+    }
+
+    /**
+     * Returns the given token as a new Terminal.
+     */
+    public Terminal getToken(int index_) {
+        return new Terminal(getType(index_), getText(index_));
+    }
+
+    public Terminal[] toArray() {
+        Terminal[] ret = new Terminal[_size];
+        for (int i = 0; i < _size; ++i) {
+            ret[i] = getToken(i);
+        }
+        return ret;
+    }
+
+    /**
+     * Helper method used to check the index against the size rather than
+     * the capacity of the arrays.
+     */
+    private int check(int index_) {
+        if (index_ < 0 || index_ >= _size) {
+            throw new IndexOutOfBoundsException("Index: " + index_ + ", Size: " + _size);
+        }
+        return index_;
+    }
+}
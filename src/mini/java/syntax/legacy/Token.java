@@ -4,14 +4,23 @@ public class Token {
     
     private final String _type;
     private final String _data;
+    private final int _id;
     
     public Token(String type_) {
         this(type_, null);
     }
     
     public Token(String type_, String data_) {
+        this(type_, data_, -1);
+    }
+    
+    /**
+     * Takes the id the tokenizer interned the data under, -1 if none.
+     */
+    public Token(String type_, String data_, int id_) {
         _type = type_;
         _data = data_;
+        _id = id_;
     }
     
     public Token(String type_, String data_, int i_, int j_) {
@@ -25,6 +34,10 @@ public class Token {
     public String getType() {
         return _type;
     }
+    
+    public int getId() {
+        return _id;
+    }
 
     @Override
     public String toString() {
@@ -5,6 +5,7 @@ import mini.java.semantics.Visitor;
 
 public class Identifier {
 	public String s;
+	public int id = -1;	// interned name of s, -1 if none
 	private int line;
 
 	public Identifier(String as, int line) {
@@ -12,6 +13,11 @@ public class Identifier {
 		this.line = line;
 	}
 
+	public Identifier(String as, int line, int id) {
+		this(as, line);
+		this.id = id;
+	}
+
 	public void accept(Visitor v) {
 		v.visit(this);
 	}
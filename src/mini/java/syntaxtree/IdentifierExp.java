@@ -5,12 +5,18 @@ import mini.java.semantics.Visitor;
 
 public class IdentifierExp extends Exp {
 	public String s;
+	public int id = -1;	// interned name of s, -1 if none
 
 	public IdentifierExp(String as, int line) {
 		super(line);
 		s = as;
 	}
 
+	public IdentifierExp(String as, int line, int id) {
+		this(as, line);
+		this.id = id;
+	}
+
 	public void accept(Visitor v) {
 		v.visit(this);
 	}
@@ -4,6 +4,8 @@ package mini.java;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.util.LinkedList;
@@ -11,8 +13,10 @@ import java.util.List;
 
 import mini.java.RegexCompiler;
 import mini.java.fa.AcceptableNFAState;
+import mini.java.fa.CharSet;
 import mini.java.fa.NFAState;
 import mini.java.fa.helper.Helper;
+import mini.java.lex.RegexMatcher;
 import mini.java.lex.Tokenizer;
 import mini.java.syntax.NonTerminal;
 import mini.java.syntax.Parser;
@@ -26,6 +30,8 @@ public class RegexCompilerTest {
 
     private static final Parser parser = new Parser(RegexCompiler.RULE_SET);
     private static final Tokenizer tokenizer = RegexCompiler.TOKENIZER;
+    private static final CharSet   BMP = CharSet.range(RegexCompiler.CH_MIN, RegexCompiler.CH_MAX)
+        .minus(CharSet.range(Character.MIN_HIGH_SURROGATE, Character.MAX_HIGH_SURROGATE));
     
     @Test
     public void testTokenizer() {
@@ -54,6 +60,14 @@ public class RegexCompilerTest {
                     tokens.toArray(new Terminal[0]),
                     target.tokenize("123aA*.?()[]|-^\\*\\"));
         }
+        // a surrogate pair is one char, escaped or not
+        assertArrayEquals(
+                new Terminal[] {
+                        new Terminal(RegexCompiler.CH, "\ud83d\ude00"),
+                        new Terminal(RegexCompiler.CH, "\\\ud83d\ude00"),
+                        new Terminal(RegexCompiler.CH, "\ud83d"),
+                },
+                target.tokenize("\ud83d\ude00\\\ud83d\ude00\ud83d"));
     }
     
     
@@ -117,9 +131,11 @@ public class RegexCompilerTest {
     
     @Test
     public void testRegexBar() {
+        // the chars leading to the same state share one transition
         __testRegex("a|b",
-                "0 =>(a) 1\n" 
-              + "0 =>(b) 1\n");
+                "0 =>([a-b]) 1\n");
+        __testRegex("a|c",
+                "0 =>([ac]) 1\n");
     }
     
     @Test
@@ -132,15 +148,13 @@ public class RegexCompilerTest {
     @Test
     public void testRegexClass() {
         __testRegex("[a-b1-1*]",
-                "0 =>(*) 1\n" +
-                "0 =>(1) 1\n" +
-                "0 =>(a) 1\n" +
-                "0 =>(b) 1\n");
+                "0 =>([*1a-b]) 1\n");
         __testRegex("[b-a2-1]",
-                "0 =>(1) 1\n" +
-                "0 =>(2) 1\n" +
-                "0 =>(a) 1\n" +
-                "0 =>(b) 1\n");
+                "0 =>([1-2a-b]) 1\n");
+        __testRegex("[a-z]|[d-f]x",
+                "0 =>([a-cg-z]) 1\n" +
+                "0 =>([d-f]) 2\n" +
+                "2 =>(x) 1\n");
         
         __testRegex("[\\*]", "0 =>(*) 1\n");
                 
@@ -162,8 +176,8 @@ public class RegexCompilerTest {
 //                "1 =>(a) 1\n", Helper.dump(dfa));
         assertEquals("0 =>(a) 0\n", Helper.dump(dfa));
         assertEquals(AcceptableNFAState.class, dfa.getClass());
-        assertNotNull(dfa.getState("a"));
-        assertEquals(AcceptableNFAState.class, dfa.getState("a").getClass());
+        assertNotNull(dfa.getState('a'));
+        assertEquals(AcceptableNFAState.class, dfa.getState('a').getClass());
         
     }
     
@@ -179,8 +193,8 @@ public class RegexCompilerTest {
         assertEquals(
                 "0 =>(a) 1\n", Helper.dump(dfa));
         assertEquals(AcceptableNFAState.class, dfa.getClass());
-        assertNotNull(dfa.getState("a"));
-        assertEquals(AcceptableNFAState.class, dfa.getState("a").getClass());
+        assertNotNull(dfa.getState('a'));
+        assertEquals(AcceptableNFAState.class, dfa.getState('a').getClass());
         
     }
     
@@ -196,30 +210,61 @@ public class RegexCompilerTest {
     
     @Test
     public void testRegexDot() {
-        StringBuilder sb = new StringBuilder();
-        for (char ch=0; ch<128; ++ch) {
-            sb.append("0 =>(" + ch + ") 1\n");
-        }
-        __testRegex("a|.", sb.toString());
+        // one transition for the BMP, and one pair of them for the rest
+        String pairs = "0 =>([\ud800-\udbff]) 2\n2 =>([\udc00-\udfff]) 1\n";
+        __testRegex("a|.", "0 =>(" + BMP + ") 1\n" + pairs);
+        __testRegex(".", "0 =>([\u0000-\ud7ff\udc00-\uffff]) 1\n" + pairs);
     }
     
     @Test
     public void testRegexCaret() {
-        StringBuilder sb = new StringBuilder();
-        for (char ch=RegexCompiler.CH_MIN; ch <= RegexCompiler.CH_MAX; ++ch) {
-            if ((ch >= 'a' && ch <= 'z')
-                    || (ch >= 'A' && ch <= 'Z')
-                    || (ch >= '0' && ch <= '9')
-                    || (ch == '_'))
-            {
-              // continue  
-            }
-            else
-            {
-              sb.append("0 =>(" + ch + ") 1\n");
-            }
-        }
-        __testRegex("[^0-9A-Za-z_]", sb.toString());
+        CharSet excluded = CharSet.range('0', '9')
+            .union(CharSet.range('A', 'Z'))
+            .union(CharSet.range('a', 'z'))
+            .union(new CharSet('_'));
+        String pairs = "0 =>([\ud800-\udbff]) 2\n2 =>([\udc00-\udfff]) 1\n";
+        __testRegex("[^0-9A-Za-z_]", "0 =>(" + BMP.minus(excluded) + ") 1\n" + pairs);
+        __testRegex("[^aa]", "0 =>([\u0000-`b-\ud7ff\udc00-\uffff]) 1\n" + pairs); // duplicates
+    }
+    
+    @Test
+    public void testRegexUnicode() {
+        __testRegex("\u00e9t\u00e9", "0 =>(\u00e9) 1\n1 =>(t) 2\n2 =>(\u00e9) 3\n");
+        __testRegex("[\u0391-\u03a9]", "0 =>([\u0391-\u03a9]) 1\n");
+        __testRegex("[#-&x]", "0 =>([#-&x]) 1\n");
+        // supplementary chars are surrogate pairs
+        __testRegex("\ud83d\ude00", "0 =>(\ud83d) 1\n1 =>(\ude00) 2\n");
+        
+        // the negation doesn't grow with the alphabet
+        NFAState dfa = RegexCompiler.compile("[^\u4e2d]*");
+        assertEquals(2, dfa.getInputs().size());
+    }
+    
+    @Test
+    public void testRegexSupplementary() {
+        // U+1F600 and U+1F601, U+1F801
+        String grinning = "\ud83d\ude00", beaming = "\ud83d\ude01", arrow = "\ud83e\udc01";
+        __testRegex("[" + grinning + "]", "0 =>(\ud83d) 1\n1 =>(\ude00) 2\n");
+        __testRegex("[\\" + grinning + "]", "0 =>(\ud83d) 1\n1 =>(\ude00) 2\n");
+        // the highs sharing the same lows share a state
+        __testRegex("[" + grinning + "-" + arrow + "a]",
+                "0 =>(a) 1\n" +
+                "0 =>(\ud83d) 2\n" +
+                "0 =>(\ud83e) 3\n" +
+                "2 =>([\ude00-\udfff]) 1\n" +
+                "3 =>([\udc00-\udc01]) 1\n");
+        
+        RegexMatcher chars = new RegexMatcher("X", "[" + grinning + "x]*");
+        assertEquals(grinning + "x" + grinning, chars.match(grinning + "x" + grinning + beaming));
+        
+        // the pairs are never matched by halves
+        assertEquals(beaming, new RegexMatcher("X", ".").match(beaming + "x"));
+        assertEquals(beaming, new RegexMatcher("X", "[^a]").match(beaming));
+        assertEquals(-1, new RegexMatcher("X", "[^" + beaming + "]").match(beaming, 0));
+        assertEquals(-1, new RegexMatcher("X", "..").match(beaming, 0));
+        assertEquals(2, new RegexMatcher("X", "[^" + grinning + "]").match(beaming, 0));
+        // lone low surrogates are chars of their own
+        assertEquals(1, new RegexMatcher("X", ".").match("\ude01", 0));
     }
     
     @Test
@@ -254,6 +299,24 @@ public class RegexCompilerTest {
     
     
     
+    @Test
+    public void testCompileMinimized() {
+        // the two middle states are equivalent
+        assertEquals(
+                "0 =>([ac]) 1\n" +
+                "1 =>(b) 2\n", Helper.dump(RegexCompiler.compile("ab|cb")));
+    }
+    
+    @Test
+    public void testCompileCached() {
+        NFAState dfa = RegexCompiler.compile("[0-9][0-9]*");
+        assertSame(dfa, RegexCompiler.compile("[0-9][0-9]*"));
+        // a new NFA every time, though
+        assertNotSame(RegexCompiler.compileNFA("x"), RegexCompiler.compileNFA("x"));
+    }
+    
+    
+    
     private static void __testSyntax(String input_, String expected_) {
         NonTerminal root = (NonTerminal)parser.parse(RegexCompiler.TOKENIZER.tokenize(input_));
         assertEquals(expected_, root.toString());
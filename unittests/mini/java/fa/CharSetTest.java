@@ -0,0 +1,69 @@
+package mini.java.fa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+
+public class CharSetTest {
+    
+    @Test
+    public void testUnion() {
+        CharSet set = CharSet.range('d', 'f')
+            .union(new CharSet('a'))
+            .union(CharSet.range('e', 'h'))
+            .union(new CharSet('b'));
+        assertEquals("[a-bd-h]", set.toString());
+        assertEquals(2, set.getRangeCount());
+        assertTrue(set.contains('a'));
+        assertTrue(set.contains('h'));
+        assertFalse(set.contains('c'));
+        assertFalse(set.contains('i'));
+        
+        assertEquals(CharSet.range('a', 'z'), CharSet.range('z', 'a'));
+    }
+    
+    @Test
+    public void testMinus() {
+        CharSet set = CharSet.range('a', 'z').minus(CharSet.range('c', 'x'));
+        assertEquals("[a-by-z]", set.toString());
+        assertTrue(CharSet.range('a', 'b').minus(CharSet.range('a', 'c')).isEmpty());
+        
+        CharSet all = CharSet.EMPTY.complement();
+        assertEquals(1, all.getRangeCount());
+        assertEquals(Character.MIN_VALUE, all.getFrom(0));
+        assertEquals(Character.MAX_VALUE, all.getTo(0));
+        assertTrue(all.complement().isEmpty());
+    }
+    
+    @Test
+    public void testIntersects() {
+        assertTrue(CharSet.range('a', 'c').intersects(CharSet.range('c', 'd')));
+        assertFalse(CharSet.range('a', 'c').intersects(CharSet.range('d', 'e')));
+        assertEquals(new CharSet('c'),
+                CharSet.range('a', 'c').intersect(CharSet.range('c', 'd')));
+    }
+    
+    @Test
+    public void testPartition() {
+        assertEquals(
+                Arrays.asList(
+                        CharSet.range('a', 'c'),
+                        CharSet.range('d', 'f'),
+                        CharSet.range('g', 'z'),
+                        new CharSet('~')),
+                CharSet.partition(Arrays.asList(
+                        CharSet.range('a', 'z'),
+                        CharSet.range('d', 'f').union(new CharSet('~')))));
+    }
+    
+    @Test
+    public void testToString() {
+        assertEquals("a", new CharSet('a').toString());
+        assertEquals("[\\-\\]]", new CharSet('-').union(new CharSet(']')).toString());
+    }
+}
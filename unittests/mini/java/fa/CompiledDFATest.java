@@ -0,0 +1,86 @@
+package mini.java.fa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import mini.java.RegexCompiler;
+import mini.java.fa.helper.Helper;
+
+import org.junit.Test;
+
+
+public class CompiledDFATest {
+    
+    @Test
+    public void testFreeze() {
+        NFAState A = new AcceptableNFAState(),
+            B = new NFAState();
+        A.addTransition(A, "a");
+        A.addTransition(B, "b");
+        B.addTransition(A, "a");
+        B.addTransition(B, new Object()); // never matched by chars
+        
+        CompiledDFA dfa = CompiledDFA.freeze(A);
+        assertEquals(2, dfa.getStateCount());
+        assertEquals(3, dfa.getClassCount()); // dead, "a" and "b"
+        assertTrue(dfa.isAcceptable(0));
+        assertFalse(dfa.isAcceptable(1));
+        assertEquals(1, dfa.next(0, 'b'));
+        assertEquals(0, dfa.next(1, 'a'));
+        assertEquals(CompiledDFA.DEAD, dfa.next(1, 'b'));
+        assertEquals(CompiledDFA.DEAD, dfa.next(0, '\u4e2d'));
+        
+        assertEquals(2, dfa.match("aab", 0));
+        assertEquals(0, dfa.match("xaba", 0)); // empty
+        assertEquals(3, dfa.match("xaba", 1));
+    }
+    
+    @Test
+    public void testEquivalentChars() {
+        CompiledDFA dfa = CompiledDFA.freeze(RegexCompiler.compile("[a-z][a-z0-9]*"));
+        // dead, [a-z] and [0-9]
+        assertEquals(3, dfa.getClassCount());
+        assertEquals(5, dfa.match("abc12+", 0));
+        assertEquals(-1, dfa.match("1abc", 0));
+    }
+    
+    @Test
+    public void testUnicode() {
+        CompiledDFA dfa = CompiledDFA.freeze(
+                RegexCompiler.compile("[a-z\u00e0-\u00ff\u4e00-\u9fff]*"));
+        // dead and the letters, whatever the size of the ranges
+        assertEquals(2, dfa.getClassCount());
+        assertEquals(4, dfa.match("a\u00e9\u4e2dz!", 0));
+        assertEquals(0, dfa.match("\u00df", 0));
+        assertEquals(0, dfa.match("\ua000", 0));
+        assertEquals(0, dfa.match("\uffff", 0));
+        
+        dfa = CompiledDFA.freeze(RegexCompiler.compile("[^\n]*"));
+        assertEquals(1, dfa.match("\uffff\n", 0));
+        assertEquals(0, dfa.match("\n", 0));
+    }
+    
+    @Test
+    public void testToNFAState() {
+        NFAState dfa = RegexCompiler.compile("(ab|cb)[^b]*");
+        assertEquals(Helper.dump(dfa), Helper.dump(CompiledDFA.freeze(dfa).toNFAState()));
+        
+        NFAState A = new NFAState();
+        A.addTransition(new TaggedNFAState(7), "a");
+        NFAState thawed = CompiledDFA.freeze(A).toNFAState();
+        assertEquals(7, ((TaggedNFAState)thawed.getState('a')).getTag());
+    }
+    
+    @Test
+    public void testTags() {
+        NFAState A = new NFAState();
+        A.addTransition(new TaggedNFAState(7), "a");
+        A.addTransition(new AcceptableNFAState(), "b");
+        
+        CompiledDFA dfa = CompiledDFA.freeze(A);
+        assertEquals(-1, dfa.getTag(0));
+        assertEquals(7, dfa.getTag(dfa.next(0, 'a')));
+        assertEquals(-1, dfa.getTag(dfa.next(0, 'b')));
+    }
+}
@@ -0,0 +1,165 @@
+package mini.java.fa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mini.java.RegexCompiler;
+
+import org.junit.Test;
+
+
+public class DFASnapshotTest {
+    
+    private static Map<String, CompiledDFA> __createDFAs() {
+        Map<String, CompiledDFA> ret = new LinkedHashMap<String, CompiledDFA>();
+        for (String regex : new String[] {"[a-z][a-z0-9]*", "//[^\n]*\n", "\u00e9t\u00e9"}) {
+            ret.put(regex, CompiledDFA.freeze(RegexCompiler.compile(regex)));
+        }
+        return ret;
+    }
+    
+    private static void __testSame(CompiledDFA expected_, CompiledDFA got_) {
+        assertEquals(expected_.getStateCount(), got_.getStateCount());
+        assertEquals(expected_.getClassCount(), got_.getClassCount());
+        for (int i = 0; i < expected_.getStateCount(); ++i) {
+            assertEquals(expected_.isAcceptable(i), got_.isAcceptable(i));
+            assertEquals(expected_.getTag(i), got_.getTag(i));
+            for (char ch : "az09/\n\u00e9t\uffff".toCharArray()) {
+                assertEquals(expected_.next(i, ch), got_.next(i, ch));
+            }
+        }
+    }
+    
+    @Test
+    public void testReadWrite() throws IOException {
+        Map<String, CompiledDFA> dfas = __createDFAs();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DFASnapshot.write(dfas, out);
+        
+        Map<String, CompiledDFA> got = DFASnapshot.read(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(Arrays.asList(dfas.keySet().toArray()), Arrays.asList(got.keySet().toArray()));
+        for (String regex : dfas.keySet()) {
+            __testSame(dfas.get(regex), got.get(regex));
+        }
+    }
+    
+    @Test
+    public void testSaveLoad() throws IOException {
+        Map<String, CompiledDFA> dfas = __createDFAs();
+        File file = File.createTempFile("dfa", ".snapshot");
+        try {
+            DFASnapshot.save(dfas, file);
+            Map<String, CompiledDFA> got = DFASnapshot.load(file);
+            assertEquals(dfas.keySet(), got.keySet());
+            assertEquals(5, got.get("[a-z][a-z0-9]*").match("abc12+", 0));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    @Test
+    public void testInvalid() {
+        byte[] bytes = {0, 0, 0, 0};
+        try {
+            DFASnapshot.read(ByteBuffer.wrap(bytes));
+            fail();
+        } catch (IOException ex_) {
+            assertEquals("Not a DFA snapshot", ex_.getMessage());
+        }
+        
+        ByteBuffer buf = ByteBuffer.allocate(8);
+        buf.putInt(DFASnapshot.MAGIC).putInt(DFASnapshot.VERSION + 1).flip();
+        try {
+            DFASnapshot.read(buf);
+            fail();
+        } catch (IOException ex_) {
+            assertEquals("Unsupported DFA snapshot version: " + (DFASnapshot.VERSION + 1),
+                    ex_.getMessage());
+        }
+        
+        buf = ByteBuffer.allocate(12);
+        buf.putInt(DFASnapshot.MAGIC).putInt(DFASnapshot.VERSION).putInt(1).flip();
+        try {
+            DFASnapshot.read(buf); // truncated
+            fail();
+        } catch (IOException ex_) {
+            assertEquals("Corrupted DFA snapshot", ex_.getMessage());
+        }
+    }
+    
+    @Test
+    public void testCorrupted() throws IOException {
+        CompiledDFA dfa = CompiledDFA.freeze(RegexCompiler.compile("[a-z][a-z0-9]*"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DFASnapshot.write(Collections.singletonMap("x", dfa), out);
+        byte[] bytes = out.toByteArray();
+        
+        // the header, the name, the sizes, the ASCII classes and the ranges
+        int sizes = 12 + 3, ascii = sizes + 8, ranges = ascii + 2 * 128 + 4;
+        int table = ranges + 4 * ByteBuffer.wrap(bytes).getInt(ranges - 4);
+        int tags = table + 4 * dfa.getStateCount() * dfa.getClassCount();
+        assertEquals(bytes.length, tags + 4 * dfa.getStateCount());
+        
+        ByteBuffer buf = __corrupt(bytes);
+        buf.putInt(sizes, 0);
+        __testCorrupted(buf, "Invalid DFA size: 0 states, " + dfa.getClassCount() + " classes");
+        // the table would overflow an int
+        buf = __corrupt(bytes);
+        buf.putInt(sizes, 0x10000).putInt(sizes + 4, 0x10000);
+        __testCorrupted(buf, "DFA doesn't fit the buffer: 65536 states, 65536 classes");
+        buf = __corrupt(bytes);
+        buf.putInt(sizes, 1000);
+        __testCorrupted(buf, "DFA doesn't fit the buffer: 1000 states, " + dfa.getClassCount() + " classes");
+        
+        buf = __corrupt(bytes);
+        buf.putShort(ascii + 2 * 'a', (short)dfa.getClassCount());
+        __testCorrupted(buf, "Invalid class: " + dfa.getClassCount());
+        buf = __corrupt(bytes);
+        buf.putInt(ranges - 4, Integer.MAX_VALUE);
+        __testCorrupted(buf, "Invalid range count: " + Integer.MAX_VALUE);
+        buf = __corrupt(bytes);
+        buf.putChar(ranges, 'x');
+        __testCorrupted(buf, "Invalid range start: " + (int)'x');
+        buf = __corrupt(bytes);
+        buf.putShort(ranges + 2, (short)-1);
+        __testCorrupted(buf, "Invalid class: -1");
+        
+        buf = __corrupt(bytes);
+        buf.putInt(table, dfa.getStateCount());
+        __testCorrupted(buf, "Invalid transition: " + dfa.getStateCount());
+        buf = __corrupt(bytes);
+        buf.putInt(table, -2);
+        __testCorrupted(buf, "Invalid transition: -2");
+        buf = __corrupt(bytes);
+        buf.putInt(tags, -3);
+        __testCorrupted(buf, "Invalid tag: -3");
+        
+        // untouched, it reads back fine
+        __testSame(dfa, DFASnapshot.read(__corrupt(bytes)).get("x"));
+    }
+    
+    private static ByteBuffer __corrupt(byte[] bytes_) {
+        return ByteBuffer.wrap(bytes_.clone());
+    }
+    
+    private static void __testCorrupted(ByteBuffer buf_, String message_) {
+        try {
+            DFASnapshot.read(buf_);
+            fail(message_);
+        } catch (IOException ex_) {
+            assertEquals("Corrupted DFA snapshot", ex_.getMessage());
+            assertTrue(ex_.getCause() instanceof IllegalArgumentException);
+            assertEquals(message_, ex_.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package mini.java.fa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import mini.java.RegexCompiler;
+import mini.java.fa.helper.Helper;
+
+import org.junit.Test;
+
+
+public class LazyDFATest {
+
+    @Test
+    public void testMatch() {
+        // a*b with epsilons
+        NFAState A = new NFAState(),
+            B = new NFAState(),
+            C = new AcceptableNFAState();
+        A.addTransition(B);
+        B.addTransition(A, "a");
+        B.addTransition(C, new CharSet('b'));
+
+        LazyDFA dfa = new LazyDFA(A);
+        assertEquals(1, dfa.getStateCount()); // only the initial state so far
+        assertEquals(3, dfa.match("aab", 0));
+        assertEquals(1, dfa.match("xb", 1));
+        assertEquals(-1, dfa.match("aac", 0));
+        assertEquals(-1, dfa.match("", 0));
+        assertEquals(2, dfa.getStateCount()); // the b state only
+    }
+
+    @Test
+    public void testTags() {
+        NFAState root = new NFAState(),
+            IF = RegexCompiler.compileNFA("if"),
+            ID = RegexCompiler.compileNFA("[a-z][a-z]*");
+        root.addTransition(IF);
+        root.addTransition(ID);
+        Map<NFAState, Integer> tags = new HashMap<NFAState, Integer>();
+        for (NFAState state : Helper.findAll(IF)) {
+            tags.put(state, 0);
+        }
+        for (NFAState state : Helper.findAll(ID)) {
+            tags.put(state, 1);
+        }
+
+        LazyDFA dfa = new LazyDFA(root, tags, LazyDFA.DEFAULT_MAX_STATES);
+        int[] tag = new int[1];
+        assertEquals(2, dfa.match("if(", 0, tag));
+        assertEquals(0, tag[0]); // the smallest one
+        assertEquals(3, dfa.match("iff", 0, tag));
+        assertEquals(1, tag[0]);
+    }
+
+    @Test
+    public void testBoundedCache() {
+        // the DFA of this one has 2^6 states
+        String regex = "(a|b)*a(a|b)(a|b)(a|b)(a|b)(a|b)";
+        CompiledDFA expected = CompiledDFA.freeze(RegexCompiler.compile(regex));
+        LazyDFA dfa = new LazyDFA(RegexCompiler.compileNFA(regex),
+                new HashMap<NFAState, Integer>(), 8);
+
+        StringBuilder input = new StringBuilder();
+        long seed = 42;
+        for (int i = 0; i < 2000; ++i) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            input.append((seed >>> 33) % 2 == 0 ? 'a' : 'b');
+        }
+        for (int i = 0; i < input.length(); i += 97) {
+            assertEquals(expected.match(input, i), dfa.match(input, i));
+        }
+        assertTrue(dfa.getStateCount() <= 8 + 1);
+        assertTrue(dfa.getFlushCount() > 0);
+    }
+}
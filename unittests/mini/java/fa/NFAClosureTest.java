@@ -117,4 +117,17 @@ public class NFAClosureTest {
         assertNotNull(closure);
         assertEquals(true, closure.isAcceptable());
     }
+    
+    @Test
+    public void testEquals() {
+        // TEST:        Same States, Different Indexes
+        // INPUTS:      (S0,S1,O1)
+        S0.addTransition(S1, O1);
+        
+        NFAClosure closure = new NFAClosure(S0).getClosure(O1);
+        NFAClosure expected = new NFAClosure(S1);
+        assertEquals(expected, closure);
+        assertEquals(expected.hashCode(), closure.hashCode());
+        assertEquals(closure, new NFAClosure(S0).getClosure(O1));
+    }
 }
@@ -0,0 +1,47 @@
+package mini.java.fa;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+
+public class NFAIndexTest {
+    
+    @Test
+    public void testGetClosure() {
+        // A -> B -> C -> A (epsilons), C -a-> D
+        NFAState A = new NFAState(),
+            B = new NFAState(),
+            C = new NFAState(),
+            D = new NFAState();
+        A.addTransition(B);
+        B.addTransition(C);
+        C.addTransition(A);
+        C.addTransition(D, "a");
+        
+        NFAIndex index = new NFAIndex(Collections.singleton(A));
+        assertEquals(4, index.size());
+        
+        long[] all = index.newSet();
+        for (NFAState state : Arrays.asList(A, B, C)) {
+            all[index.getId(state) >>> 6] |= 1L << index.getId(state);
+        }
+        // memoized closures of the other states in the cycle are reused
+        assertArrayEquals(all, index.getClosure(index.getId(B)));
+        assertArrayEquals(all, index.getClosure(index.getId(A)));
+        assertArrayEquals(all, index.getClosure(index.getId(C)));
+        
+        long[] d = index.newSet();
+        d[index.getId(D) >>> 6] |= 1L << index.getId(D);
+        assertArrayEquals(d, index.getClosure(index.getId(D)));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotIndexed() {
+        new NFAIndex(Collections.singleton(new NFAState())).getId(new NFAState());
+    }
+}
@@ -46,4 +46,34 @@ public class NFAStateTest {
         assertEquals(B, A.getState("a"));
         assertEquals("0 =>(a) 1\n", Helper.dump(Helper.collapse(A)));
     }
+    
+    @Test
+    public void testGetStateChar() {
+        NFAState A = new NFAState(),
+            B = new NFAState(), C = new NFAState();
+        A.addTransition(B, CharSet.range('a', 'z'));
+        A.addTransition(C, "0");
+        
+        assertEquals(B, A.getState('x'));
+        assertEquals(C, A.getState('0'));
+        assertEquals(null, A.getState('A'));
+        assertEquals(null, A.getState("x")); // no conversion for objects
+    }
+    
+    @Test
+    public void testCollapseCharSets() {
+        // [a-z]|[0-9a]b: "a" leads to a different closure
+        NFAState A = new NFAState(),
+            B = new AcceptableNFAState(), C = new NFAState();
+        A.addTransition(B, CharSet.range('a', 'z'));
+        A.addTransition(C, CharSet.range('0', '9').union(new CharSet('a')));
+        C.addTransition(B, new CharSet('b'));
+        
+        assertEquals(
+                "0 =>([0-9]) 1\n" +
+                "0 =>([b-z]) 2\n" +
+                "0 =>(a) 3\n" +
+                "1 =>(b) 2\n" +
+                "3 =>(b) 2\n", Helper.dump(Helper.collapse(A)));
+    }
 }
@@ -5,12 +5,15 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import mini.java.fa.AcceptableNFAState;
 import mini.java.fa.NFAState;
+import mini.java.fa.TaggedNFAState;
 
 import org.junit.Test;
 
@@ -96,4 +99,95 @@ public class HelperTest {
         root.addTransition(root, "A");
         assertEquals("0 =>(A) 0\n", Helper.dump(root));
     }
+    
+    @Test
+    public void testCollapseTags() {
+        NFAState root = new NFAState();
+        NFAState A = new NFAState(), B = new NFAState();
+        NFAState tailA = new AcceptableNFAState(), tailB = new AcceptableNFAState();
+        root.addTransition(A);
+        root.addTransition(B);
+        A.addTransition(tailA, "x");
+        B.addTransition(tailB, "x");
+        B.addTransition(tailB, "y");
+        
+        Map<NFAState, Integer> tags = new HashMap<NFAState, Integer>();
+        tags.put(tailA, 1);
+        tags.put(tailB, 0);
+        NFAState dfa = Helper.collapse(root, tags);
+        
+        assertEquals(0, ((TaggedNFAState)dfa.getState("x")).getTag());
+        assertEquals(0, ((TaggedNFAState)dfa.getState("y")).getTag());
+        
+        tags.put(tailA, -1);
+        dfa = Helper.collapse(root, tags);
+        assertEquals(-1, ((TaggedNFAState)dfa.getState("x")).getTag());
+        assertEquals(0, ((TaggedNFAState)dfa.getState("y")).getTag());
+    }
+    
+    @Test
+    public void testMinimize() {
+        NFAState A = new NFAState(),
+            B = new AcceptableNFAState(),
+            C = new AcceptableNFAState(),
+            D = new NFAState(); // can never be accepted
+        A.addTransition(B, "a");
+        A.addTransition(C, "b");
+        A.addTransition(D, "c");
+        B.addTransition(B, "a");
+        C.addTransition(C, "a");
+        
+        MinimizeStats stats = new MinimizeStats();
+        NFAState dfa = Helper.minimize(A, stats);
+        assertEquals(
+                "0 =>(a) 1\n" +
+                "0 =>(b) 1\n" +
+                "1 =>(a) 1\n", Helper.dump(dfa));
+        assertEquals(2, Helper.findAll(dfa).size());
+        assertEquals(4, stats.getStatesBefore());
+        assertEquals(2, stats.getStatesAfter());
+        
+        // nothing to accept: a single state is left
+        NFAState none = new NFAState();
+        none.addTransition(new NFAState(), "a");
+        assertEquals(1, Helper.findAll(Helper.minimize(none, stats)).size());
+        assertEquals(2, stats.getStatesBefore());
+        assertEquals(1, stats.getStatesAfter());
+        assertEquals("2 -> 1 states", stats.toString());
+    }
+    
+    @Test
+    public void testMinimizeTags() {
+        NFAState A = new NFAState();
+        A.addTransition(new TaggedNFAState(0), "a");
+        A.addTransition(new TaggedNFAState(1), "b");
+        A.addTransition(new TaggedNFAState(1), "c");
+        
+        NFAState dfa = Helper.minimize(A);
+        assertEquals(3, Helper.findAll(dfa).size());
+        assertEquals(0, ((TaggedNFAState)dfa.getState("a")).getTag());
+        assertEquals(1, ((TaggedNFAState)dfa.getState("b")).getTag());
+        assertTrue(dfa.getState("b") == dfa.getState("c"));
+    }
+    
+    @Test
+    public void testMinimizeCollapsed() {
+        // (a|b)*c|(a|b)*d
+        NFAState head = new NFAState(), loop = new NFAState(),
+            tail = new AcceptableNFAState();
+        head.addTransition(loop);
+        loop.addTransition(head, "a");
+        loop.addTransition(new NFAState(), "b");
+        loop.getState("b").addTransition(head);
+        loop.addTransition(tail, "c");
+        loop.addTransition(tail, "d");
+        
+        NFAState dfa = Helper.collapse(head);
+        assertTrue(Helper.findAll(dfa).size() > 2);
+        assertEquals(
+                "0 =>(a) 0\n" +
+                "0 =>(b) 0\n" +
+                "0 =>(c) 1\n" +
+                "0 =>(d) 1\n", Helper.dump(Helper.minimize(dfa)));
+    }
 }
@@ -3,6 +3,7 @@ package mini.java.lex;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import mini.java.fa.AcceptableNFAState;
+import mini.java.fa.CharSet;
 import mini.java.fa.NFAState;
 
 import org.junit.Test;
@@ -24,5 +25,27 @@ public class FAMatcherTest {
         assertEquals("", matcher.match("b")); // empty
         assertNull(matcher.match(null)); // null
     }
-
+    
+    @Test
+    public void testMatchOffset() {
+        NFAState A = new AcceptableNFAState(),
+            B = new NFAState();
+        A.addTransition(A, "a");
+        A.addTransition(B, "b");
+        B.addTransition(A, "a");
+        
+        FAMatcher matcher = new FAMatcher(null, A);
+        assertEquals(2, matcher.match("baab", 1));
+        assertEquals(3, matcher.match(new StringBuilder("xaba"), 1));
+        assertEquals(0, matcher.match("aa", 2)); // empty at the end
+    }
+    
+    @Test
+    public void testGetStartSet() {
+        CharSet expected = CharSet.range('a', 'd');
+        assertEquals(expected, new RegexMatcher("X", "[a-c]x|d").getStartSet());
+        assertEquals(expected, new RegexMatcher("X", "[a-c]x|d", true).getStartSet());
+        assertEquals(new CharSet('a'), new CharLiteralMatcher("A", 'a').getStartSet());
+        assertEquals(CharSet.range('0', '9'), new CharRangeMatcher("D", '0', '9').getStartSet());
+    }
 }
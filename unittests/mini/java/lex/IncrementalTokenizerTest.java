@@ -0,0 +1,118 @@
+package mini.java.lex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import mini.java.MJCompiler;
+import mini.java.syntax.TokenBuffer;
+
+import org.junit.Test;
+
+
+public class IncrementalTokenizerTest {
+
+    private static final String PROGRAM =
+        "class Fac {\n" +
+        "    public int ComputeFac(int num){\n" +
+        "        int num_aux ;\n" +
+        "        // comment\n" +
+        "        if (num < 1) num_aux = 1 ;\n" +
+        "        else num_aux = num * (this.ComputeFac(num-1)) ;\n" +
+        "        return num_aux ;\n" +
+        "    }\n" +
+        "}\n";
+
+    /**
+     * Helper method used to check the tokens against a full re-lex.
+     */
+    private static void __assertTokens(Tokenizer tokenizer_, IncrementalTokenizer target_) {
+        TokenBuffer expected = new IncrementalTokenizer(tokenizer_, target_.getText().toString()).getTokens();
+        TokenBuffer actual = target_.getTokens();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); ++i) {
+            assertEquals(expected.getKind(i), actual.getKind(i));
+            assertEquals(expected.getStart(i), actual.getStart(i));
+            assertEquals(expected.getLength(i), actual.getLength(i));
+        }
+    }
+
+    @Test
+    public void testEdit() {
+        IncrementalTokenizer target = new IncrementalTokenizer(MJCompiler.TOKENIZER, "int num ;");
+        TokenBuffer tokens = target.getTokens();
+        assertEquals(5, tokens.size());
+
+        // "num" -> "numb": only that token
+        IncrementalTokenizer.Change change = target.edit(7, 0, "b");
+        assertEquals(2, change.getIndex());
+        assertEquals(1, change.getRemoved());
+        assertEquals(1, change.getInserted());
+        assertEquals("numb", tokens.getText(2));
+        assertEquals(";", tokens.getText(4));
+        assertEquals(9, tokens.getStart(4));
+
+        // joining two tokens
+        change = target.edit(3, 1, "");
+        assertEquals("intnumb", tokens.getText(0));
+        assertEquals(0, change.getIndex());
+        assertEquals(3, change.getRemoved());
+        assertEquals(1, change.getInserted());
+        __assertTokens(MJCompiler.TOKENIZER, target);
+    }
+
+    @Test
+    public void testInvalid() {
+        IncrementalTokenizer target = new IncrementalTokenizer(MJCompiler.TOKENIZER, "a = b;");
+        try {
+            target.edit(2, 1, "#");
+            fail();
+        } catch (IllegalArgumentException ex_) {
+            assertEquals("Invalid token found at: # b;", ex_.getMessage());
+        }
+        // unchanged
+        assertEquals("a = b;", target.getText().toString());
+        __assertTokens(MJCompiler.TOKENIZER, target);
+    }
+
+    @Test
+    public void testRandomEdits() {
+        IncrementalTokenizer target = new IncrementalTokenizer(MJCompiler.TOKENIZER, PROGRAM);
+        String alphabet = "abint_019;=<(){}/ \n";
+        Random random = new Random(11);
+        for (int i = 0; i < 500; ++i) {
+            int length = target.getText().length();
+            int offset = random.nextInt(length + 1);
+            int removed = random.nextInt(Math.min(4, length - offset) + 1);
+            StringBuilder inserted = new StringBuilder();
+            for (int j = random.nextInt(4); j > 0; --j) {
+                inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            try {
+                target.edit(offset, removed, inserted);
+            } catch (IllegalArgumentException ex_) {
+                // e.g. a lone "/"; nothing changed
+            }
+            __assertTokens(MJCompiler.TOKENIZER, target);
+        }
+    }
+
+    @Test
+    public void testLookahead() {
+        // "a" is only a token if no "bc" follows; the DFA reads past it
+        Tokenizer tokenizer = new Tokenizer();
+        tokenizer.addMatcher(new RegexMatcher("A", "a"));
+        tokenizer.addMatcher(new RegexMatcher("ABBC", "abbc"));
+        tokenizer.addMatcher(new RegexMatcher("B", "b"));
+        tokenizer.addMatcher(new RegexMatcher("X", "x"));
+        tokenizer.setCombined(true);
+
+        IncrementalTokenizer target = new IncrementalTokenizer(tokenizer, "abbxx");
+        assertEquals(5, target.getTokens().size());
+        target.edit(3, 1, "c"); // after the "a" and the "b"s
+        assertEquals(2, target.getTokens().size());
+        assertEquals("abbc", target.getTokens().getText(0));
+        __assertTokens(tokenizer, target);
+    }
+}
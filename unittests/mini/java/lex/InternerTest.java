@@ -0,0 +1,68 @@
+package mini.java.lex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import mini.java.MJCompiler;
+import mini.java.syntax.TokenBuffer;
+
+import org.junit.Test;
+
+
+public class InternerTest {
+
+    @Test
+    public void testIntern() {
+        Interner target = new Interner();
+        assertEquals(0, target.intern("num"));
+        assertEquals(1, target.intern("num_aux"));
+        assertEquals(0, target.intern("x = num;", 4, 7));
+        assertEquals(2, target.intern(""));
+        assertEquals(3, target.size());
+        assertEquals("num_aux", target.getName(1));
+        
+        // the String is only created once
+        String name = target.getName(0);
+        target.intern(new StringBuilder("num"), 0, 3);
+        assertSame(name, target.getName(0));
+        
+        // a new String is kept as is; same ids whichever way it's looked up
+        String aux = new String("aux");
+        assertEquals(3, target.intern(aux));
+        assertSame(aux, target.getName(3));
+        assertEquals(3, target.intern("num_aux", 4, 7));
+        assertEquals(1, target.intern(new String("num_aux")));
+    }
+
+    @Test
+    public void testRehash() {
+        Interner target = new Interner();
+        for (int i = 0; i < 10000; ++i) {
+            assertEquals(i, target.intern("id" + i));
+        }
+        for (int i = 0; i < 10000; ++i) {
+            assertEquals(i, target.intern("id" + i));
+            assertEquals("id" + i, target.getName(i));
+        }
+        // same hash codes
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertEquals(10000, target.intern("Aa"));
+        assertEquals(10001, target.intern("BB"));
+    }
+
+    @Test
+    public void testInternTokens() {
+        TokenBuffer tokens = MJCompiler.TOKENIZER.tokenizeToBuffer("a = b + a;");
+        int kind = Arrays.asList(MJCompiler.TOKENIZER.getTypes()).indexOf(MJCompiler.ID);
+        Interner target = new Interner();
+        int[] ids = target.intern(tokens, kind);
+        assertEquals(tokens.size(), ids.length);
+        assertEquals(0, ids[0]);
+        assertEquals(-1, ids[1]); // whitespace
+        assertEquals(1, ids[4]);
+        assertEquals(0, ids[8]);
+        assertEquals(2, target.size());
+    }
+}
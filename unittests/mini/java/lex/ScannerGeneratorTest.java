@@ -0,0 +1,231 @@
+package mini.java.lex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import mini.java.MJCompiler;
+import mini.java.syntax.Terminal;
+
+import org.junit.Test;
+
+/**
+ * Differential tests: the generated scanners must tokenize exactly as the
+ * interpreted Tokenizer they were generated from.
+ */
+public class ScannerGeneratorTest {
+
+    private static final String PROGRAM =
+        "class Factorial{\n" +
+        "    public static void main(String[] a){\n" +
+        "        System.out.println(new Fac().ComputeFac(10));\n" +
+        "    }\n" +
+        "}\n" +
+        "// comment\n" +
+        "class Fac {\n" +
+        "    public int ComputeFac(int num){\n" +
+        "        int num_aux ;\n" +
+        "        if (num < 1 && !false)\n" +
+        "            num_aux = -1 ;\n" +
+        "        else\n" +
+        "            num_aux = num * (this.ComputeFac(num-1)) ;\n" +
+        "        return num_aux ;\n" +
+        "    }\n" +
+        "}\n";
+
+    /**
+     * Helper method used to compile and load the generated class. Null if
+     * there's no compiler in this runtime.
+     */
+    private static Class<?> __compile(String className_, String source_) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return null;
+        }
+
+        File dir = File.createTempFile("scanner", "");
+        dir.delete();
+        dir.mkdirs();
+        File file = new File(dir, className_ + ".java");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(source_.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        assertEquals(0, compiler.run(null, null, null,
+                "-encoding", "UTF-8", "-d", dir.getPath(), file.getPath()));
+
+        return new URLClassLoader(new URL[] {dir.toURI().toURL()}).loadClass(className_);
+    }
+
+    /**
+     * Helper method used to run the generated scanner; the result is in the
+     * form of Terminals, each followed by its trivia, or the message of the
+     * exception.
+     */
+    private static Object __scan(Class<?> scanner_, String input_) throws Exception {
+        Object scanner = scanner_.getConstructor(CharSequence.class).newInstance(input_);
+        Method next = scanner_.getMethod("next"),
+            getType = scanner_.getMethod("getType"),
+            getText = scanner_.getMethod("getText"),
+            getTrivia = scanner_.getMethod("getTrivia");
+
+        List<Object> ret = new ArrayList<Object>();
+        try {
+            while ((Boolean)next.invoke(scanner)) {
+                ret.add(new Terminal((String)getType.invoke(scanner), (String)getText.invoke(scanner)));
+                ret.add(getTrivia.invoke(scanner));
+            }
+        } catch (InvocationTargetException ex_) {
+            return ex_.getCause().getMessage();
+        }
+        return ret;
+    }
+
+    private static Object __tokenize(Tokenizer tokenizer_, String input_) {
+        List<Object> ret = new ArrayList<Object>();
+        try {
+            for (Terminal token : tokenizer_.tokenize(input_)) {
+                ret.add(token);
+                ret.add(token.getTrivia());
+            }
+        } catch (IllegalArgumentException ex_) {
+            return ex_.getMessage();
+        }
+        return ret;
+    }
+
+    private static void __testSame(Tokenizer tokenizer_, Class<?> scanner_, String input_)
+        throws Exception
+    {
+        assertEquals(__tokenize(tokenizer_, input_), __scan(scanner_, input_));
+    }
+
+    @Test
+    public void testMJ() throws Exception {
+        String source = ScannerGenerator.generate(MJCompiler.TOKENIZER, null, "MJScanner");
+        assertTrue(source.contains("switch (state_)"));
+        Class<?> scanner = __compile("MJScanner", source);
+        if (scanner == null) {
+            return; // no compiler; nothing to compare with
+        }
+
+        __testSame(MJCompiler.TOKENIZER, scanner, PROGRAM);
+        __testSame(MJCompiler.TOKENIZER, scanner, "");
+        __testSame(MJCompiler.TOKENIZER, scanner, "a = b #"); // invalid
+
+        // random inputs over the alphabet of the grammar, plus a few others
+        String alphabet = "abcdefghilnorstuvwxyzSABC_0123456789;,+-&<*.!=()[]{}/ \t\n\u00e9";
+        Random random = new Random(42);
+        for (int i = 0; i < 500; ++i) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(30); j > 0; --j) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            __testSame(MJCompiler.TOKENIZER, scanner, sb.toString());
+        }
+    }
+
+    @Test
+    public void testTable() throws Exception {
+        // enough keywords to get over the limit of the switches
+        Tokenizer tokenizer = new Tokenizer();
+        Random random = new Random(7);
+        List<String> words = new ArrayList<String>();
+        for (int i = 0; i < 300; ++i) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = 0; j < 8; ++j) {
+                sb.append((char)('a' + random.nextInt(26)));
+            }
+            words.add(sb.toString());
+            tokenizer.addMatcher(new RegexMatcher("w" + i, sb.toString()));
+        }
+        tokenizer.addMatcher(new RegexMatcher("id", "[a-z][a-z]*"));
+        tokenizer.addMatcher(new RegexMatcher("space", " "));
+
+        String source = ScannerGenerator.generate(tokenizer, "gen.test", "WordScanner");
+        assertTrue(source.startsWith("// Generated by"));
+        assertTrue(source.contains("TABLE[state_ * CLASSES + class_]"));
+        Class<?> scanner = __compile("WordScanner", source.replace("package gen.test;", ""));
+        if (scanner == null) {
+            return;
+        }
+
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 200; ++i) {
+            String word = words.get(random.nextInt(words.size()));
+            input.append(random.nextBoolean() ? word : word.substring(0, 5)).append(' ');
+        }
+        __testSame(tokenizer, scanner, input.toString());
+        __testSame(tokenizer, scanner, input.toString() + "A");
+    }
+
+    @Test
+    public void testSkipped() throws Exception {
+        Tokenizer tokenizer = new Tokenizer();
+        tokenizer.addMatcher(new RegexMatcher("id", "[a-z][a-z0-9]*"));
+        tokenizer.addMatcher(new RegexMatcher("num", "[0-9][0-9]*"));
+        tokenizer.addMatcher(new RegexMatcher("space", "[ \n][ \n]*"), true);
+        tokenizer.addMatcher(new RegexMatcher("comment", "//[^\n]*\n"), true);
+        tokenizer.addMatcher(new RegexMatcher("slash", "/"));
+        tokenizer.setKeepTrivia(true);
+
+        String source = ScannerGenerator.generate(tokenizer, null, "SkipScanner");
+        Class<?> scanner = __compile("SkipScanner", source);
+        if (scanner == null) {
+            return;
+        }
+
+        __testSame(tokenizer, scanner, "a1 // b\n 42/x  ");
+        __testSame(tokenizer, scanner, "  ");
+        __testSame(tokenizer, scanner, " a #");
+        String alphabet = "ab01/ \n#";
+        Random random = new Random(5);
+        for (int i = 0; i < 500; ++i) {
+            StringBuilder sb = new StringBuilder();
+            for (int j = random.nextInt(30); j > 0; --j) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            __testSame(tokenizer, scanner, sb.toString());
+        }
+
+        try {
+            ScannerGenerator.generate(tokenizer.getCombinedDFA(), new String[] {"a"}, new boolean[2], null, "X");
+            fail();
+        } catch (IllegalArgumentException ex_) {
+            assertEquals("One skip flag per type expected", ex_.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvalidMatcher() {
+        Tokenizer tokenizer = new Tokenizer();
+        tokenizer.addMatcher(new CharLiteralMatcher("x", 'x'));
+        try {
+            ScannerGenerator.generate(tokenizer, null, "X");
+            fail();
+        } catch (IllegalArgumentException ex_) {
+            assertEquals("Only RegexMatchers can be generated: x", ex_.getMessage());
+        }
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("\"a\\\"\\\\\\012\\000\\u4e2d\"", ScannerGenerator.quote("a\"\\\n\0\u4e2d"));
+    }
+}
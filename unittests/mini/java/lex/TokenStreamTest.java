@@ -0,0 +1,123 @@
+package mini.java.lex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mini.java.MJCompiler;
+import mini.java.syntax.Terminal;
+
+import org.junit.Test;
+
+
+public class TokenStreamTest {
+
+    private static final String PROGRAM =
+        "class Fac {\n" +
+        "    public int ComputeFac(int num){\n" +
+        "        int num_aux ;\n" +
+        "        if (num < 1) num_aux = 1 ;\n" +
+        "        else num_aux = num * (this.ComputeFac(num-1)) ;\n" +
+        "        return num_aux ;\n" +
+        "    }\n" +
+        "}\n";
+
+    private static List<Terminal> __drain(TokenStream stream_) {
+        List<Terminal> ret = new ArrayList<Terminal>();
+        while (stream_.hasNext()) {
+            ret.add(stream_.next());
+        }
+        return ret;
+    }
+
+    @Test
+    public void testSameAsTokenize() {
+        List<Terminal> expected = Arrays.asList(MJCompiler.TOKENIZER.tokenize(PROGRAM));
+        // tiny buffers, so that most of the tokens straddle a refill
+        for (int size = 1; size <= 16; ++size) {
+            TokenStream stream = new TokenStream(MJCompiler.TOKENIZER,
+                    new StringReader(PROGRAM), size);
+            assertEquals(expected, __drain(stream));
+        }
+        assertEquals(expected, __drain(MJCompiler.TOKENIZER.tokenize(new StringReader(PROGRAM))));
+    }
+
+    @Test
+    public void testNextToken() throws IOException {
+        TokenStream stream = new TokenStream(MJCompiler.TOKENIZER, new StringReader("a = 12;"), 2);
+        assertTrue(stream.hasNext());
+        assertEquals(0, stream.getOffset());
+        assertEquals("a", stream.nextToken().getData());
+        assertEquals(1, stream.getOffset());
+        stream.nextToken(); // space
+        stream.nextToken(); // =
+        stream.nextToken(); // space
+        assertEquals("12", stream.nextToken().getData());
+        assertEquals(";", stream.nextToken().getData());
+        assertNull(stream.nextToken());
+        assertFalse(stream.hasNext());
+    }
+
+    @Test
+    public void testChannel() {
+        String input = "a = b; // caf\u00e9\n";
+        TokenStream stream = new TokenStream(MJCompiler.TOKENIZER,
+                Channels.newChannel(new ByteArrayInputStream(input.getBytes(Charset.forName("UTF-8")))),
+                Charset.forName("UTF-8"));
+        assertEquals(Arrays.asList(MJCompiler.TOKENIZER.tokenize(input)), __drain(stream));
+    }
+
+    @Test
+    public void testInvalidToken() {
+        TokenStream stream = new TokenStream(MJCompiler.TOKENIZER, new StringReader("a # b"), 2);
+        assertEquals("a", stream.next().getData());
+        stream.next();
+        try {
+            stream.next();
+            fail();
+        } catch (IllegalArgumentException ex_) {
+            assertTrue(ex_.getMessage().startsWith("Invalid token found at: #"));
+        }
+    }
+
+    @Test
+    public void testBoundedBuffer() {
+        // the buffer only grows to the longest token, whatever the input
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10000; ++i) {
+            input.append("abc = 1;\n");
+        }
+        input.append("averyveryveryverylongidentifier");
+        TokenStream stream = new TokenStream(MJCompiler.TOKENIZER,
+                new StringReader(input.toString()), 4);
+        assertEquals(70001, __drain(stream).size());
+        assertEquals(32, stream.getBufferSize());
+    }
+
+    @Test
+    public void testSkip() {
+        Tokenizer tokenizer = new Tokenizer();
+        tokenizer.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        tokenizer.addMatcher(new RegexMatcher("SPACE", "[ ][ ]*"), true);
+        tokenizer.setCombined(true);
+        tokenizer.setKeepTrivia(true);
+
+        String input = "ab   cd ef ";
+        List<Terminal> tokens = __drain(new TokenStream(tokenizer, new StringReader(input), 2));
+        assertEquals(Arrays.asList(tokenizer.tokenize(input)), tokens);
+        assertNull(tokens.get(0).getTrivia());
+        assertEquals("   ", tokens.get(1).getTrivia());
+        assertEquals(" ", tokens.get(2).getTrivia());
+    }
+}
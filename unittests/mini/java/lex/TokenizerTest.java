@@ -2,13 +2,27 @@ package mini.java.lex;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.LinkedList;
 import java.util.List;
 
+import mini.java.fa.CharSet;
+import mini.java.syntax.Rule;
+import mini.java.syntax.RuleSet;
 import mini.java.syntax.Terminal;
+import mini.java.syntax.TokenBuffer;
 
 import org.junit.Test;
 
@@ -101,4 +115,413 @@ public class TokenizerTest {
         assertArrayEquals(tokens.toArray(new Terminal[0]),
                 target.tokenize("ABBAABB"));
     }
+    
+    @Test
+    public void testTokenizeOffset() {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new CharLiteralMatcher("A", 'A'));
+        // custom matcher relying on the default match(CharSequence, int)
+        target.addMatcher(new IMatcher() {
+
+            @Override
+            public String getType() {
+                return "BB";
+            }
+
+            @Override
+            public String match(String input_) {
+                return input_.startsWith("BB")
+                    ? "BB" : null;
+            }
+            
+        });
+        
+        assertEquals(new Terminal("BB", "BB"), target.getToken("ABB", 1));
+        assertNull(target.getToken("ABB", 3));
+        assertArrayEquals(
+                new Terminal[] {
+                        new Terminal("A", "A"),
+                        new Terminal("BB", "BB"),
+                        new Terminal("A", "A"),
+                },
+                target.tokenize(new StringBuilder("ABBA")));
+    }
+    
+    @Test
+    public void testCombined() {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("IF", "if"));
+        target.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        target.addMatcher(new RegexMatcher("NOT_REACHED", "if"));
+        target.addMatcher(new CharLiteralMatcher("SPACE", ' '));
+        target.setCombined(true);
+        
+        assertArrayEquals(
+                new Terminal[] {
+                        new Terminal("IF", "if"),
+                        new Terminal("SPACE", " "),
+                        new Terminal("ID", "iff"),
+                        new Terminal("SPACE", " "),
+                        new Terminal("ID", "i"),
+                },
+                target.tokenize("if iff i"));
+        
+        // the matchers added later should also be covered
+        target.addMatcher(new RegexMatcher("NUM", "[0-9][0-9]*"));
+        assertEquals(new Terminal("NUM", "42"), target.getToken("42 "));
+    }
+    
+    @Test
+    public void testCombinedPriority() {
+        Tokenizer target = new Tokenizer();
+        // an ordinary matcher registered first still wins the tie
+        target.addMatcher(new CharLiteralMatcher("LITERAL", 'a'));
+        target.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        target.setCombined(true);
+        
+        assertEquals(new Terminal("LITERAL", "a"), target.getToken("a"));
+        assertEquals(new Terminal("ID", "ab"), target.getToken("ab"));
+    }
+    
+    @Test
+    public void testLazy() {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("IF", "if", true));
+        target.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*", true));
+        target.addMatcher(new CharLiteralMatcher("SPACE", ' '));
+        target.setLazy(true);
+        target.setCombined(true);
+        
+        assertArrayEquals(
+                new Terminal[] {
+                        new Terminal("IF", "if"),
+                        new Terminal("SPACE", " "),
+                        new Terminal("ID", "iff"),
+                },
+                target.tokenize("if iff"));
+        
+        // the same with the eagerly built DFA
+        target.setLazy(false);
+        assertEquals(new Terminal("ID", "iff"), target.getToken("iff"));
+    }
+    
+    @Test
+    public void testSetCombinedDFA() {
+        Tokenizer source = new Tokenizer();
+        source.addMatcher(new RegexMatcher("IF", "if"));
+        source.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        source.addMatcher(new CharLiteralMatcher("SPACE", ' '));
+        source.setCombined(true);
+        
+        // the same matchers take it
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("IF", "if"));
+        target.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        target.addMatcher(new CharLiteralMatcher("SPACE", ' '));
+        target.setCombined(source.getCombinedDFA());
+        assertArrayEquals(source.tokenize("if iff"), target.tokenize("if iff"));
+        
+        // too few matchers for its tags
+        Tokenizer fewer = new Tokenizer();
+        fewer.addMatcher(new RegexMatcher("IF", "if"));
+        try {
+            fewer.setCombined(source.getCombinedDFA());
+            fail();
+        } catch (IllegalArgumentException ex_) {
+            assertTrue(ex_.getMessage().startsWith("DFA doesn't fit the matchers: state "));
+        }
+        assertFalse(fewer.isCombined());
+        assertNull(fewer.getCombinedDFA());
+    }
+    
+    @Test
+    public void testTokenizeToBuffer() {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("IF", "if"));
+        target.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        target.addMatcher(new CharLiteralMatcher("SPACE", ' '));
+        
+        for (boolean combined : new boolean[] {false, true}) {
+            target.setCombined(combined);
+            TokenBuffer tokens = target.tokenizeToBuffer("if iff");
+            assertEquals(3, tokens.size());
+            assertEquals(1, tokens.getKind(2));
+            assertEquals(3, tokens.getStart(2));
+            assertEquals(3, tokens.getLength(2));
+            assertArrayEquals(target.tokenize("if iff"), tokens.toArray());
+        }
+        
+        // kinds as the symbol ids of a rule set
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("IF", "SPACE", "ID"));
+        TokenBuffer tokens = target.tokenizeToBuffer("if iff", rules);
+        assertEquals(rules.getSymbolId("ID"), tokens.getKind(2));
+        assertArrayEquals(target.tokenize("if iff"), tokens.toArray());
+        try {
+            target.tokenizeToBuffer("if #");
+            fail();
+        } catch (IllegalArgumentException ex_) {
+            assertEquals("Invalid token found at: #", ex_.getMessage());
+        }
+    }
+    
+    @Test
+    public void testSkip() throws IOException {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("ID", "[a-z\u00e9][a-z\u00e9]*"));
+        target.addMatcher(new RegexMatcher("SPACE", "[ ][ ]*"), true);
+        target.addMatcher(new RegexMatcher("COMMENT", "#[^\n]*\n"), true);
+        target.setCombined(true);
+        assertTrue(target.isSkipped("SPACE"));
+        assertFalse(target.isSkipped("ID"));
+        
+        String input = "  ab #x\n cd ";
+        assertArrayEquals(
+                new Terminal[] {new Terminal("ID", "ab"), new Terminal("ID", "cd")},
+                target.tokenize(input));
+        assertNull(target.tokenize(input)[0].getTrivia());
+        
+        // still in the longest match
+        assertEquals(new Terminal("SPACE", "  "), target.getToken("  ab"));
+        
+        target.setKeepTrivia(true);
+        Terminal[] tokens = target.tokenize(input);
+        assertEquals("  ", tokens[0].getTrivia());
+        assertEquals(" #x\n ", tokens[1].getTrivia());
+        
+        TokenBuffer buffer = target.tokenizeToBuffer(input);
+        assertEquals(2, buffer.size());
+        assertEquals("cd", buffer.getText(1));
+        assertEquals(" #x\n ", buffer.getTrivia(1));
+        assertEquals(" ", buffer.getTrivia(2));
+        
+        // the skipped types don't have to be in the rule set
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("ID", "ID"));
+        assertEquals(2, target.tokenizeToBuffer(input, rules).size());
+        
+        // resumed after the last token when falling back to decoding
+        File file = File.createTempFile("tokens", ".txt");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write("ab #x\n caf\u00e9".getBytes(StandardCharsets.UTF_8));
+        } finally {
+            out.close();
+        }
+        tokens = target.tokenize(file, StandardCharsets.UTF_8);
+        assertArrayEquals(
+                new Terminal[] {new Terminal("ID", "ab"), new Terminal("ID", "caf\u00e9")},
+                tokens);
+        assertEquals(" #x\n ", tokens[1].getTrivia());
+    }
+    
+    @Test
+    public void testFirstCharIndex() {
+        final int[] calls = new int[2];
+        Tokenizer target = new Tokenizer();
+        // only tried on 'x'
+        target.addMatcher(new IMatcher() {
+            public String match(String input_) {
+                ++calls[0];
+                return input_.startsWith("xy") ? "xy" : null;
+            }
+            public CharSet getStartSet() {
+                return new CharSet('x');
+            }
+            public String getType() {
+                return "XY";
+            }
+        });
+        // no start set: tried everywhere
+        target.addMatcher(new IMatcher() {
+            public String match(String input_) {
+                ++calls[1];
+                return null;
+            }
+            public String getType() {
+                return "NONE";
+            }
+        });
+        target.addMatcher(new CharRangeMatcher("CHAR", 'a', 'z'));
+        target.addMatcher(new RegexMatcher("OTHER", "\u00e9"));
+        
+        assertArrayEquals(
+                new Terminal[] {
+                        new Terminal("CHAR", "a"),
+                        new Terminal("XY", "xy"),
+                        new Terminal("OTHER", "\u00e9"),
+                        new Terminal("CHAR", "x"),
+                },
+                target.tokenize("axy\u00e9x"));
+        assertEquals(2, calls[0]);
+        assertEquals(4, calls[1]);
+    }
+    
+    @Test
+    public void testTokenizeParallel() {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        target.addMatcher(new RegexMatcher("NUM", "[0-9][0-9]*"));
+        target.addMatcher(new RegexMatcher("COMMENT", "/[*][^*]*[*]/"), true);
+        target.addMatcher(new CharRangeMatcher("SPACE", ' ', ' '));
+        target.setCombined(true);
+        target.setKeepTrivia(true);
+        
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; ++i) {
+            sb.append("abc 123 /* a comment 42 */de ").append(i).append(' ');
+        }
+        String input = sb.toString();
+        Terminal[] expected = target.tokenize(input);
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // chunks starting anywhere in the tokens, comments included
+            for (int size = 1; size <= 40; ++size) {
+                Terminal[] tokens = target.tokenize(input, pool, size);
+                assertArrayEquals(expected, tokens);
+                for (int i = 0; i < tokens.length; ++i) {
+                    assertEquals(expected[i].getTrivia(), tokens[i].getTrivia());
+                }
+            }
+            assertArrayEquals(expected, target.tokenize(input, pool));
+            
+            try {
+                target.tokenize(input + "# " + input, pool, 7);
+                fail();
+            } catch (IllegalArgumentException ex_) {
+                assertEquals("Invalid token found at: # " + input, ex_.getMessage());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testTokenizeParallelSpeedup() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (processors < 4) {
+            return; // nothing to gain; the overhead is all there is
+        }
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("ID", "[a-z][a-z]*"));
+        target.addMatcher(new RegexMatcher("NUM", "[0-9][0-9]*"));
+        target.addMatcher(new CharRangeMatcher("SPACE", ' ', ' '), true);
+        target.setCombined(true);
+        
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 4000000) {
+            sb.append("abc 123 de 4567 xyzzy ");
+        }
+        String input = sb.toString();
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // best of a few runs, the first ones warming up
+            long sequential = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+            for (int run = 0; run < 5; ++run) {
+                long start = System.nanoTime();
+                int expected = target.tokenize(input).length;
+                sequential = Math.min(sequential, System.nanoTime() - start);
+                start = System.nanoTime();
+                assertEquals(expected, target.tokenize(input, pool).length);
+                parallel = Math.min(parallel, System.nanoTime() - start);
+            }
+            assertTrue("sequential " + sequential + "ns, parallel " + parallel + "ns",
+                    parallel < sequential);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    @Test
+    public void testTokenizeFile() throws IOException {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("ID", "[a-z\u00e9][a-z\u00e9]*"));
+        target.addMatcher(new CharLiteralMatcher("SPACE", ' '));
+        target.setCombined(true);
+        
+        File file = File.createTempFile("tokens", ".txt");
+        file.deleteOnExit();
+        // UTF-16 can't be read as ASCII; it's decoded all the way
+        for (Charset charset : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.UTF_16BE}) {
+            for (String input : new String[] {"ab cd", "ab caf\u00e9 x", "", "ab #", "\u00e9 #"}) {
+                OutputStream out = new FileOutputStream(file);
+                try {
+                    out.write(input.getBytes(charset));
+                } finally {
+                    out.close();
+                }
+                assertEquals(__tokenize(target, input), __tokenize(target, file, charset));
+            }
+        }
+    }
+    
+    @Test
+    public void testTokenizeFileWindows() throws IOException {
+        Tokenizer target = new Tokenizer();
+        target.addMatcher(new RegexMatcher("ID", "[a-z\u00e9][a-z\u00e9]*"));
+        target.addMatcher(new RegexMatcher("COMMENT", "/[*][^*]*[*]/"), true);
+        target.addMatcher(new CharLiteralMatcher("SPACE", ' '), true);
+        target.setCombined(true);
+        target.setKeepTrivia(true);
+        
+        File file = File.createTempFile("tokens", ".txt");
+        file.deleteOnExit();
+        String[] inputs = {"ab /* a long comment */cd e", "caf\u00e9 /* \u00e9t\u00e9 */ x y", ""};
+        for (Charset charset : new Charset[] {StandardCharsets.UTF_8, StandardCharsets.UTF_16BE}) {
+            for (String input : inputs) {
+                __write(file, input, charset);
+                Terminal[] expected = target.tokenize(input);
+                // tokens and chars cut at every place, and tokens longer
+                // than the windows
+                for (int size = 1; size <= 16; ++size) {
+                    Terminal[] tokens = target.tokenize(file, charset, size);
+                    assertArrayEquals(expected, tokens);
+                    for (int i = 0; i < tokens.length; ++i) {
+                        assertEquals(expected[i].getTrivia(), tokens[i].getTrivia());
+                    }
+                }
+            }
+            
+            __write(file, "ab cd # ef", charset);
+            for (int size = 1; size <= 16; ++size) {
+                try {
+                    target.tokenize(file, charset, size);
+                    fail();
+                } catch (IllegalArgumentException ex_) {
+                    assertTrue(ex_.getMessage().startsWith("Invalid token found at: #"));
+                }
+            }
+        }
+    }
+    
+    private static void __write(File file_, String input_, Charset charset_) throws IOException {
+        OutputStream out = new FileOutputStream(file_);
+        try {
+            out.write(input_.getBytes(charset_));
+        } finally {
+            out.close();
+        }
+    }
+    
+    private static Object __tokenize(Tokenizer target_, Object input_) throws IOException {
+        return __tokenize(target_, input_, null);
+    }
+    
+    /**
+     * Helper method used to get the tokens, or the message of the exception.
+     */
+    private static Object __tokenize(Tokenizer target_, Object input_, Charset charset_)
+        throws IOException
+    {
+        try {
+            return Arrays.asList((input_ instanceof File)
+                    ? target_.tokenize((File)input_, charset_)
+                    : target_.tokenize((String)input_));
+        } catch (IllegalArgumentException ex_) {
+            return ex_.getMessage();
+        }
+    }
 }
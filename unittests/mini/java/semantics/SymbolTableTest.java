@@ -0,0 +1,35 @@
+package mini.java.semantics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import mini.java.lex.Interner;
+import mini.java.syntaxtree.Identifier;
+
+import org.junit.Test;
+
+
+public class SymbolTableTest {
+
+    @Test
+    public void testGetSymbol() {
+        Interner names = new Interner();
+        int id = names.intern("x = foo;", 4, 7);
+        SymbolTable target = new SymbolTable(names);
+        
+        // by the id the AST carries, or by name if it has none
+        Identifier interned = new Identifier("foo", 1, id);
+        Identifier plain = new Identifier("foo", 2);
+        assertEquals(-1, plain.id);
+        Symbol s = target.getSymbol(interned.s, interned.id);
+        assertEquals("foo", s.toString());
+        assertSame(s, target.getSymbol(plain.s, plain.id));
+        assertSame(s, target.getSymbol("foo"));
+        assertEquals(1, names.size());
+        
+        // names not seen before get the next id
+        Symbol bar = target.getSymbol("bar", -1);
+        assertSame(bar, target.getSymbol(1));
+        assertEquals(2, names.size());
+    }
+}
@@ -0,0 +1,150 @@
+package mini.java.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class ParseTableCacheTest {
+    private File _directory;
+
+    @Before
+    public void setUp() throws IOException {
+        _directory = Files.createTempDirectory("tables").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : _directory.listFiles()) {
+            file.delete();
+        }
+        _directory.delete();
+    }
+
+    private static RuleSet createRules() {
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("E"));
+        rules.addRule(new Rule().left("E").right("E", "+", "T"));
+        rules.addRule(new Rule().left("E").right("T"));
+        rules.addRule(new Rule().left("T").right("(", "E", ")"));
+        rules.addRule(new Rule().left("T").right("id"));
+        return rules;
+    }
+
+    @Test
+    public void testGet() {
+        ParseTableCache cache = new ParseTableCache(_directory);
+        RuleSet rules = createRules();
+        File file = cache.getFile(rules);
+        assertFalse(file.exists());
+
+        ParseTable built = cache.get(rules);
+        assertTrue(file.isFile());
+
+        // a new, equal rule set finds it
+        RuleSet again = createRules();
+        assertEquals(file, cache.getFile(again));
+        ParseTable loaded = cache.get(again);
+        assertEquals(built.getStateCount(), loaded.getStateCount());
+        for (int s = 0; s < built.getStateCount(); ++s) {
+            for (int t = 0; t < rules.getTerminalCount(); ++t) {
+                assertEquals(built.getAction(s, t), loaded.getAction(s, t));
+            }
+            for (int n = rules.getTerminalCount(); n < rules.getSymbolCount(); ++n) {
+                assertEquals(built.getGoto(s, n), loaded.getGoto(s, n));
+            }
+        }
+        for (int r = 0; r < built.getRuleCount(); ++r) {
+            assertEquals(built.getRule(r), loaded.getRule(r));
+            assertTrue(loaded.getRule(r).getParent() == again);
+        }
+
+        Parser parser = new Parser(again, cache);
+        assertEquals("START(E(E(T(id)),+,T((,E(T(id)),))))", parser.parse(new Terminal("id"),
+                new Terminal("+"), new Terminal("("), new Terminal("id"), new Terminal(")")).toString());
+        assertEquals(1, _directory.listFiles().length);
+
+        // a changed rule set gets a file of its own
+        again.addRule(new Rule().left("T").right("num"));
+        assertFalse(file.equals(cache.getFile(again)));
+        cache.get(again);
+        assertEquals(2, _directory.listFiles().length);
+    }
+
+    @Test
+    public void testBrokenFile() throws IOException {
+        ParseTableCache cache = new ParseTableCache(_directory);
+        RuleSet rules = createRules();
+        File file = cache.getFile(rules);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[] {0x4d, 0x4a, 0x50, 0x54, 0, 0, 0, 1, 0, 0});
+        } finally {
+            out.close();
+        }
+
+        Parser parser = new Parser(rules, cache);
+        assertEquals("START(E(T(id)))", parser.parse(new Terminal("id")).toString());
+        assertTrue(file.length() > 10); // rewritten
+    }
+
+    @Test
+    public void testOversizedFile() throws IOException {
+        ParseTableCache cache = new ParseTableCache(_directory);
+        RuleSet rules = createRules();
+        ParseTable built = cache.get(rules);
+        File file = cache.getFile(rules);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        // a state count too large for the file, or for an int once
+        // multiplied; neither is allocated
+        for (int stateCount : new int[] {built.getStateCount() + 1, 0x10000000, Integer.MAX_VALUE}) {
+            ByteBuffer.wrap(bytes).putInt(8, stateCount);
+            Files.write(file.toPath(), bytes);
+            try {
+                ParseTable.read(ByteBuffer.wrap(bytes, 8, bytes.length - 8).asIntBuffer(), rules);
+                fail();
+            } catch (IllegalArgumentException ex_) {
+                assertEquals("Table doesn't fit the buffer: " + stateCount + " states", ex_.getMessage());
+            }
+            assertEquals(built.getStateCount(), cache.get(rules).getStateCount());
+        }
+
+        // cut short
+        ByteBuffer.wrap(bytes).putInt(8, built.getStateCount());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+        assertEquals(built.getStateCount(), cache.get(rules).getStateCount());
+        assertEquals(bytes.length, file.length()); // rewritten
+    }
+
+    @Test
+    public void testGetDefault() {
+        String old = System.getProperty(ParseTableCache.DIRECTORY_PROPERTY);
+        try {
+            System.clearProperty(ParseTableCache.DIRECTORY_PROPERTY);
+            assertNull(ParseTableCache.getDefault());
+
+            System.setProperty(ParseTableCache.DIRECTORY_PROPERTY, _directory.getPath());
+            assertEquals(_directory, ParseTableCache.getDefault().getDirectory());
+        } finally {
+            if (old != null) {
+                System.setProperty(ParseTableCache.DIRECTORY_PROPERTY, old);
+            } else {
+                System.clearProperty(ParseTableCache.DIRECTORY_PROPERTY);
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package mini.java.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+
+public class ParseTableTest {
+
+    @Test
+    public void testFreeze() {
+        RuleSet rules = new RuleSet();
+        Rule A = new Rule().left("A").right("1");
+        Rule B = new Rule().left("B").right("1");
+        rules.addRule(new Rule().left(RuleSet.START).right("S"));
+        rules.addRule(new Rule().left("S").right("A", "1"));
+        rules.addRule(new Rule().left("S").right("B", "2"));
+        rules.addRule(A);
+        rules.addRule(B);
+
+        ParseTable table = ParseTable.freeze(Parser.buildEngine(rules), rules);
+        assertEquals(7, table.getStateCount());
+        int one = rules.getSymbolId("1");
+        int two = rules.getSymbolId("2");
+
+        // shift "1", then reduce by A or B depending on the lookahead
+        int shift = table.getAction(0, one);
+        assertTrue(shift > 0);
+        int reduceA = table.getAction(shift - 1, one);
+        int reduceB = table.getAction(shift - 1, two);
+        assertTrue(reduceA < 0 && reduceB < 0);
+        assertEquals(A, table.getRule(-reduceA - 1));
+        assertEquals(B, table.getRule(-reduceB - 1));
+        assertEquals(rules.getSymbolId("A"), table.getRuleLeft(-reduceA - 1));
+        assertEquals(1, table.getRuleLength(-reduceA - 1));
+        assertEquals(ParseTable.ERROR, table.getAction(shift - 1, 0));
+
+        assertTrue(table.getGoto(0, rules.getSymbolId("A")) > 0);
+        assertTrue(table.getGoto(0, rules.getSymbolId("S")) > 0);
+        assertEquals(-1, table.getGoto(shift - 1, rules.getSymbolId("S")));
+
+        // unknown ids
+        assertEquals(ParseTable.ERROR, table.getAction(0, -1));
+        assertEquals(ParseTable.ERROR, table.getAction(0, rules.getSymbolId("S")));
+
+        // deterministic numbering
+        ParseTable again = ParseTable.freeze(Parser.buildEngine(rules), rules);
+        for (int s = 0; s < table.getStateCount(); ++s) {
+            for (int t = 0; t < rules.getTerminalCount(); ++t) {
+                assertEquals(table.getAction(s, t), again.getAction(s, t));
+            }
+        }
+    }
+
+    @Test
+    public void testErrors() {
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("E"));
+        rules.addRule(new Rule().left("E").right("(", "E", ")"));
+        rules.addRule(new Rule().left("E").right("C"));
+        Parser parser = new Parser(rules);
+
+        assertEquals("START(E((,E((,E(C),)),)))", parser.parse(
+                new Terminal("("), new Terminal("("), new Terminal("C"),
+                new Terminal(")"), new Terminal(")")).toString());
+
+        try {
+            parser.parse(new Terminal("("), new Terminal("C"));
+            fail();
+        } catch (RuntimeException ex_) {
+            assertEquals("Parsing error: END symbol encountered.", ex_.getMessage());
+        }
+        try {
+            parser.parse(new Terminal("("), new Terminal(")"));
+            fail();
+        } catch (RuntimeException ex_) {
+            assertEquals("Parsing error: Illegal syntax at <)>", ex_.getMessage());
+        }
+    }
+
+    @Test
+    public void testDeepNesting() {
+        // the stacks grow as needed
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("E"));
+        rules.addRule(new Rule().left("E").right("(", "E", ")"));
+        rules.addRule(new Rule().left("E").right("C"));
+
+        int depth = 1000;
+        Terminal[] tokens = new Terminal[2 * depth + 1];
+        for (int i = 0; i < depth; ++i) {
+            tokens[i] = new Terminal("(");
+            tokens[tokens.length - 1 - i] = new Terminal(")");
+        }
+        tokens[depth] = new Terminal("C");
+
+        NonTerminal node = new Parser(rules).parse(tokens);
+        for (int i = 0; i <= depth; ++i) {
+            node = (NonTerminal)node.getChildren().get(node.getChildren().size() == 3 ? 1 : 0);
+        }
+        assertEquals("E(C)", node.toString());
+    }
+}
@@ -0,0 +1,107 @@
+package mini.java.syntax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import mini.java.MJCompiler;
+import mini.java.MJParserTables;
+import mini.java.RegexCompiler;
+import mini.java.RegexParserTables;
+
+import org.junit.Test;
+
+/**
+ * The generated tables must be the ones Parser.buildEngine() gives.
+ */
+public class ParserGeneratorTest {
+
+    /**
+     * Helper method used to compare a table with the one built from its rule
+     * set.
+     */
+    private static void __assertBuilt(ParseTable table_) {
+        RuleSet rules = table_.getRuleSet();
+        ParseTable built = ParseTable.freeze(Parser.buildEngine(rules), rules);
+        assertEquals(built.getStateCount(), table_.getStateCount());
+        for (int s = 0; s < built.getStateCount(); ++s) {
+            for (int t = 0; t < rules.getTerminalCount(); ++t) {
+                assertEquals(built.getAction(s, t), table_.getAction(s, t));
+            }
+            for (int n = rules.getTerminalCount(); n < rules.getSymbolCount(); ++n) {
+                assertEquals(built.getGoto(s, n), table_.getGoto(s, n));
+            }
+        }
+        assertEquals(built.getRuleCount(), table_.getRuleCount());
+        for (int r = 0; r < built.getRuleCount(); ++r) {
+            assertEquals(built.getRule(r), table_.getRule(r));
+            assertEquals(built.getRuleLeft(r), table_.getRuleLeft(r));
+            assertEquals(built.getRuleLength(r), table_.getRuleLength(r));
+        }
+    }
+
+    @Test
+    public void testGeneratedTables() {
+        // null if the rules changed without the tables being regenerated
+        ParseTable table = MJParserTables.create(MJCompiler.RULE_SET);
+        assertNotNull(table);
+        __assertBuilt(table);
+
+        table = RegexParserTables.create(RegexCompiler.RULE_SET);
+        assertNotNull(table);
+        __assertBuilt(table);
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("E"));
+        rules.addRule(new Rule().left("E").right("E", "+", "T"));
+        rules.addRule(new Rule().left("E").right("T"));
+        rules.addRule(new Rule().left("T").right("(", "E", ")"));
+        rules.addRule(new Rule().left("T").right("id"));
+        String source = ParserGenerator.generate(rules, null, "Tables");
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return; // no compiler in this runtime
+        }
+        File dir = File.createTempFile("tables", "");
+        dir.delete();
+        dir.mkdirs();
+        File file = new File(dir, "Tables.java");
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(source.getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        assertEquals(0, compiler.run(null, null, null, "-cp", System.getProperty("java.class.path"),
+                "-d", dir.getPath(), file.getPath()));
+
+        Class<?> tables = new URLClassLoader(new URL[] {dir.toURI().toURL()},
+                getClass().getClassLoader()).loadClass("Tables");
+        Method create = tables.getMethod("create", RuleSet.class);
+        ParseTable table = (ParseTable)create.invoke(null, rules);
+        __assertBuilt(table);
+        assertEquals("START(E(E(T(id)),+,T((,E(T(id)),))))", new Parser(rules, table).parse(
+                new Terminal("id"), new Terminal("+"), new Terminal("("), new Terminal("id"),
+                new Terminal(")")).toString());
+
+        // stale
+        rules.addRule(new Rule().left("T").right("num"));
+        assertNull(create.invoke(null, rules));
+        assertEquals("START(E(T(num)))", new Parser(rules, (ParseTable)null).parse(
+                new Terminal("num")).toString());
+    }
+}
@@ -24,6 +24,17 @@ public class ParserStateTest {
         assertEquals(A, state.getRule("D"));
         assertEquals(B, state.getRule(RuleSet.END));
         assertNull("NonTerminals should be considered as lookaheads", state.getRule("B"));
+        
+        // the same by symbol id
+        ParserState next = new ParserState(state);
+        state.addTransition(next, "C");
+        state.index(rules);
+        assertEquals(A, state.getRule(rules.getSymbolId("D")));
+        assertEquals(B, state.getRule(rules.getSymbolId(RuleSet.END)));
+        assertNull(state.getRule(rules.getSymbolId("B")));
+        assertNull(state.getRule(-1));
+        assertEquals(next, state.getGoto(rules.getSymbolId("C")));
+        assertNull(state.getGoto(rules.getSymbolId("D")));
     }
 
 //    @Test
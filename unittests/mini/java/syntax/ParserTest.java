@@ -96,6 +96,18 @@ public class ParserTest {
             assertNotNull(ret);
             assertEquals("START(E(E(E(E((,E(C),)),*),|,E(C)),E(C)))", ret.toString());
         }
+        
+        // the same straight out of a TokenBuffer; kinds are the chars
+        {
+            String input = "(C)*|CC";
+            TokenBuffer tokens = new TokenBuffer(input, new String[] {"(", ")", "*", "|", "C"});
+            for (int i = 0; i < input.length(); ++i) {
+                tokens.add("()*|C".indexOf(input.charAt(i)), i, 1);
+            }
+            
+            NonTerminal ret = new Parser(rules).parse(tokens);
+            assertEquals("START(E(E(E(E((,E(C),)),*),|,E(C)),E(C)))", ret.toString());
+        }
     }
     
     
@@ -185,4 +197,33 @@ public class ParserTest {
         assertEquals(A, ((ParserState)state).getRules()[0]);
     }
 
+    
+    @Test
+    public void testLALR() {
+        // not SLR: "=" follows R, yet R ::= L mustn't be reduced before it
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("S"));
+        rules.addRule(new Rule().left("S").right("L", "=", "R"));
+        rules.addRule(new Rule().left("S").right("R"));
+        rules.addRule(new Rule().left("L").right("*", "R"));
+        rules.addRule(new Rule().left("L").right("id"));
+        rules.addRule(new Rule().left("R").right("L"));
+        
+        NonTerminal root = new Parser(rules).parse(new Terminal("*"), new Terminal("id"),
+                new Terminal("="), new Terminal("id"));
+        assertEquals("START(S(L(*,R(L(id))),=,R(L(id))))", root.toString());
+    }
+    
+    @Test
+    public void testEmptyRule() {
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("L"));
+        rules.addRule(new Rule().left("L"));
+        rules.addRule(new Rule().left("L").right("L", "x"));
+        
+        Parser parser = new Parser(rules);
+        assertEquals("START(L(L(L(),x),x))", parser.parse(new Terminal("x"), new Terminal("x")).toString());
+        assertEquals("START(L())", parser.parse().toString());
+    }
+
 }
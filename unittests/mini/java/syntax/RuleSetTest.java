@@ -1,6 +1,9 @@
 package mini.java.syntax;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Arrays;
@@ -117,4 +120,94 @@ public class RuleSetTest {
                 new HashSet<String>(Arrays.asList("A", "B", RuleSet.START)), rules.getSymbols());
     }
     
+    @Test
+    public void testGetSymbolId() {
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("A", "c"));
+        rules.addRule(new Rule().left("A").right("b"));
+        
+        // END first, then the terminals and the non-terminals
+        assertArrayEquals(new String[] {RuleSet.END, "b", "c", "A", RuleSet.START},
+                rules.getSymbolNames());
+        assertEquals(3, rules.getTerminalCount());
+        assertEquals(5, rules.getSymbolCount());
+        assertEquals(0, rules.getSymbolId(RuleSet.END));
+        assertEquals(3, rules.getSymbolId("A"));
+        assertEquals("A", rules.getSymbolName(3));
+        assertEquals(-1, rules.getSymbolId("x"));
+        
+        // reassigned by addRule()
+        rules.addRule(new Rule().left("A").right("a"));
+        assertEquals(4, rules.getSymbolId("A"));
+        assertEquals(4, rules.getTerminalCount());
+    }
+    
+    @Test
+    public void testGetFirsts() {
+        assertEquals(
+                new HashSet<String>(Arrays.asList("(", "id")), RULES.getFirsts("E"));
+        assertEquals(Collections.singleton("+"), RULES.getFirsts("+"));
+    }
+    
+    @Test
+    public void testNullable() {
+        // START ::= A B c; A ::= ; B ::= A | b
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("A", "B", "c"));
+        rules.addRule(new Rule().left("A"));
+        rules.addRule(new Rule().left("B").right("A"));
+        rules.addRule(new Rule().left("B").right("b"));
+        
+        assertTrue(rules.isNullable("A"));
+        assertTrue(rules.isNullable("B"));
+        assertFalse(rules.isNullable("c"));
+        assertFalse(rules.isNullable(RuleSet.START));
+        assertEquals(new HashSet<String>(Arrays.asList("b", "c")), rules.getFirsts(RuleSet.START));
+        assertEquals(new HashSet<String>(Arrays.asList("b", "c")), rules.getFollows("A"));
+        assertEquals(Collections.singleton("c"), rules.getFollows("B"));
+    }
+    
+    @Test
+    public void testIncremental() {
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("A", "c"));
+        assertEquals(Collections.singleton("c"), rules.getFollows("A"));
+        assertEquals(Collections.singleton("A"), rules.getFirsts(RuleSet.START));
+        
+        // A becomes a non-terminal, and a nullable one
+        rules.addRule(new Rule().left("A").right("a", "A"));
+        rules.addRule(new Rule().left("A"));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "c")), rules.getFirsts(RuleSet.START));
+        assertEquals(Collections.singleton("c"), rules.getFollows("A"));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "c")), rules.getFollows("a"));
+    }
+    
+    @Test
+    public void testGetFingerprint() {
+        RuleSet rules = new RuleSet();
+        rules.addRule(new Rule().left(RuleSet.START).right("A", "B"));
+        rules.addRule(new Rule().left("A").right("a"));
+        String fingerprint = rules.getFingerprint();
+        assertEquals(64, fingerprint.length());
+        
+        RuleSet same = new RuleSet();
+        same.addRule(new Rule().left(RuleSet.START).right("A", "B"));
+        same.addRule(new Rule().left("A").right("a"));
+        assertEquals(fingerprint, same.getFingerprint());
+        
+        // the order of the rules counts
+        RuleSet reordered = new RuleSet();
+        reordered.addRule(new Rule().left("A").right("a"));
+        reordered.addRule(new Rule().left(RuleSet.START).right("A", "B"));
+        assertFalse(fingerprint.equals(reordered.getFingerprint()));
+        
+        // and so do the symbols' boundaries
+        RuleSet merged = new RuleSet();
+        merged.addRule(new Rule().left(RuleSet.START).right("AB"));
+        merged.addRule(new Rule().left("A").right("a"));
+        assertFalse(fingerprint.equals(merged.getFingerprint()));
+        
+        rules.addRule(new Rule().left("A").right("b"));
+        assertFalse(fingerprint.equals(rules.getFingerprint()));
+    }
 }
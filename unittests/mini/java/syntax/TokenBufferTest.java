@@ -0,0 +1,56 @@
+package mini.java.syntax;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+
+public class TokenBufferTest {
+
+    @Test
+    public void testAdd() {
+        TokenBuffer target = new TokenBuffer("int x = 10;", new String[] {"ID", "NUM", "OP"});
+        target.add(0, 0, 3);
+        target.add(0, 4, 1);
+        target.add(2, 6, 1);
+        target.add(1, 8, 2);
+        target.add(2, 10, 1);
+        
+        assertEquals(5, target.size());
+        assertEquals(1, target.getKind(3));
+        assertEquals("NUM", target.getType(3));
+        assertEquals(8, target.getStart(3));
+        assertEquals(2, target.getLength(3));
+        assertEquals("10", target.getText(3));
+        assertEquals(new Terminal("ID", "int"), target.getToken(0));
+        assertArrayEquals(
+                new Terminal[] {
+                        new Terminal("ID", "int"),
+                        new Terminal("ID", "x"),
+                        new Terminal("OP", "="),
+                        new Terminal("NUM", "10"),
+                        new Terminal("OP", ";"),
+                },
+                target.toArray());
+    }
+
+    @Test
+    public void testGrow() {
+        StringBuilder source = new StringBuilder();
+        TokenBuffer target = new TokenBuffer(source, new String[] {"A"});
+        for (int i = 0; i < 1000; ++i) {
+            source.append('a');
+            target.add(0, i, 1);
+        }
+        assertEquals(1000, target.size());
+        assertEquals(999, target.getStart(999));
+    }
+
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        TokenBuffer target = new TokenBuffer("a", new String[] {"A"});
+        target.add(0, 0, 1);
+        target.getKind(1); // within the capacity, not the size
+    }
+}